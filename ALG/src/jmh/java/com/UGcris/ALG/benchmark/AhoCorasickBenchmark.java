@@ -0,0 +1,81 @@
+package com.UGcris.ALG.benchmark;
+
+import com.UGcris.ALG.stringMatching.AhoCorasick;
+import com.UGcris.ALG.stringMatching.DoubleArrayAhoCorasick;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * AC自动机的基准测试：构造一次、共享匹配 与 每个文本重新构造 的对比。
+ * compiledSearch 的单个文本耗时应与词典大小基本无关，rebuildPerText 则随词典线性增长，
+ * buildOnly 单独给出构造（trie + fail + 双数组编译）的耗时，containsAny 为命中即停止的过滤模式。
+ * 关键词只用 a~y，文本以 z 结尾，保留与早期结果的可比性。
+ */
+@State(Scope.Benchmark)
+public class AhoCorasickBenchmark {
+
+    private static final int TEXT_COUNT = 64;
+    private static final int TEXT_LENGTH = 256;
+
+    @Param({"1000", "100000"})
+    public int dictionarySize;
+
+    private List<String> dictionary;
+    private String[] texts;
+    private DoubleArrayAhoCorasick matcher;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        dictionary = new ArrayList<>(dictionarySize);
+        for (int i = 0; i < dictionarySize; i++) {
+            dictionary.add(randomWord(random, 4 + random.nextInt(7)));
+        }
+        texts = new String[TEXT_COUNT];
+        for (int i = 0; i < TEXT_COUNT; i++) {
+            texts[i] = randomWord(random, TEXT_LENGTH - 1) + "z";
+        }
+        matcher = DoubleArrayAhoCorasick.builder().addAll(dictionary).build();
+    }
+
+    private static String randomWord(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + random.nextInt(25)));
+        }
+        return sb.toString();
+    }
+
+    private String nextText() {
+        return texts[ThreadLocalRandom.current().nextInt(TEXT_COUNT)];
+    }
+
+    @Benchmark
+    public int[] compiledSearch() {
+        return matcher.findAll(nextText());
+    }
+
+    @Benchmark
+    public boolean containsAny() {
+        return matcher.containsAny(nextText());
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public String[][] rebuildPerText() {
+        return new AhoCorasick().acSearch(dictionary, nextText());
+    }
+
+    @Benchmark
+    public DoubleArrayAhoCorasick buildOnly() {
+        return DoubleArrayAhoCorasick.builder().addAll(dictionary).build();
+    }
+}
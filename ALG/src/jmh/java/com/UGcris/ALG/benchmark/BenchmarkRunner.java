@@ -0,0 +1,48 @@
+package com.UGcris.ALG.benchmark;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基准测试入口：依次以 1、4、16、64 线程运行所有基准（限流器、AC自动机），
+ * 同时输出吞吐量（ops/s）、采样延迟分位数（含 p99）以及 GC 分配速率。
+ *
+ * 用法：mvn -Pjmh compile exec:exec -Djmh.args="[include正则] [线程数列表]"
+ * 例如：mvn -Pjmh compile exec:exec -Djmh.args="TokenBucket 1,16"
+ */
+public class BenchmarkRunner {
+
+    private static final String DEFAULT_INCLUDE = "com\\.UGcris\\.ALG\\.benchmark\\..*";
+    private static final String DEFAULT_THREADS = "1,4,16,64";
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : DEFAULT_INCLUDE;
+        String threads = args.length > 1 ? args[1] : DEFAULT_THREADS;
+
+        for (String t : threads.split(",")) {
+            int threadCount = Integer.parseInt(t.trim());
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threadCount)
+                    .mode(Mode.Throughput)
+                    .mode(Mode.SampleTime)
+                    .timeUnit(TimeUnit.MICROSECONDS)
+                    .warmupIterations(3)
+                    .warmupTime(TimeValue.seconds(1))
+                    .measurementIterations(5)
+                    .measurementTime(TimeValue.seconds(1))
+                    .forks(1)
+                    .addProfiler(GCProfiler.class)
+                    .result("target/jmh-result-" + threadCount + "t.json")
+                    .resultFormat(org.openjdk.jmh.results.format.ResultFormatType.JSON);
+            new Runner(options.build()).run();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.UGcris.ALG.benchmark;
+
+import com.UGcris.ALG.ratelimite.FixedWindowRateLimiter;
+import com.UGcris.ALG.ratelimite.KeyedTokenBucketLimiter;
+import com.UGcris.ALG.ratelimite.SlidingWindowLogLimiter;
+import com.UGcris.ALG.ratelimite.SlidingWindowRingLogLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 按 key 限流的基准测试。
+ * keyCount=1 模拟单个热点 key（几乎全部被拒绝），
+ * keyCount=1000000 模拟高基数 key（IP、邮箱等，几乎全部放行且不断新建 key）。
+ */
+@State(Scope.Benchmark)
+public class KeyedRateLimiterBenchmark {
+
+    private static final int LIMIT = 1000;
+    private static final long WINDOW_MILLIS = 1000;
+
+    @Param({"1", "1000000"})
+    public int keyCount;
+
+    private String[] keys;
+    private FixedWindowRateLimiter fixedWindow;
+    private SlidingWindowLogLimiter slidingWindowLog;
+    private SlidingWindowRingLogLimiter slidingWindowRingLog;
+    private KeyedTokenBucketLimiter keyedTokenBucket;
+
+    @Setup
+    public void setUp() {
+        keys = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "10.0." + (i >>> 8) + "." + (i & 0xFF);
+        }
+        fixedWindow = new FixedWindowRateLimiter(LIMIT, WINDOW_MILLIS);
+        slidingWindowLog = new SlidingWindowLogLimiter(WINDOW_MILLIS, LIMIT);
+        slidingWindowRingLog = new SlidingWindowRingLogLimiter(WINDOW_MILLIS, LIMIT);
+        keyedTokenBucket = new KeyedTokenBucketLimiter(LIMIT, LIMIT, 1 << 20);
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixedWindow.shutdown();
+    }
+
+    /**
+     * 每个线程独立的 key 游标，起点随机，避免所有线程访问相同的 key 序列
+     */
+    @State(Scope.Thread)
+    public static class KeyCursor {
+        int next;
+
+        @Setup
+        public void setUp() {
+            next = ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE);
+        }
+
+        String nextKey(String[] keys) {
+            next = (next + 1) & Integer.MAX_VALUE;
+            return keys[next % keys.length];
+        }
+    }
+
+    @Benchmark
+    public boolean fixedWindowAllowRequest(KeyCursor cursor) {
+        return fixedWindow.allowRequest(cursor.nextKey(keys));
+    }
+
+    @Benchmark
+    public boolean slidingWindowLogTryLog(KeyCursor cursor) {
+        return slidingWindowLog.tryLog(cursor.nextKey(keys));
+    }
+
+    @Benchmark
+    public boolean slidingWindowRingLogTryLog(KeyCursor cursor) {
+        return slidingWindowRingLog.tryLog(cursor.nextKey(keys));
+    }
+
+    @Benchmark
+    public boolean keyedTokenBucketAllow(KeyCursor cursor) {
+        return keyedTokenBucket.allow(cursor.nextKey(keys));
+    }
+}
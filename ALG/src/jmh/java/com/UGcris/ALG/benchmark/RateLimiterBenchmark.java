@@ -0,0 +1,76 @@
+package com.UGcris.ALG.benchmark;
+
+import com.UGcris.ALG.ratelimite.LeakyBucketAlgorithm;
+import com.UGcris.ALG.ratelimite.PackedTokenBucket;
+import com.UGcris.ALG.ratelimite.SlidingWindowCounter;
+import com.UGcris.ALG.ratelimite.SlidingWindowYHCounter;
+import com.UGcris.ALG.ratelimite.TokenBucketAlgorithm;
+import com.UGcris.ALG.ratelimite.WeightedSlidingWindowCounter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 单一全局限流器（无 key）的基准测试。
+ * 配置为每秒 1000 次左右，热路径上放行与拒绝两种分支都会被覆盖。
+ */
+@State(Scope.Benchmark)
+public class RateLimiterBenchmark {
+
+    private static final int LIMIT = 1000;
+    private static final long WINDOW_MILLIS = 1000;
+
+    private TokenBucketAlgorithm tokenBucket;
+    private PackedTokenBucket packedTokenBucket;
+    private LeakyBucketAlgorithm leakyBucket;
+    private SlidingWindowCounter slidingWindowCounter;
+    private SlidingWindowYHCounter slidingWindowYHCounter;
+    private WeightedSlidingWindowCounter weightedSlidingWindowCounter;
+
+    @Setup
+    public void setUp() {
+        // 只关闭控制台输出，日志字符串拼接的开销依然计入结果
+        Logger.getLogger(TokenBucketAlgorithm.class.getName()).setLevel(Level.WARNING);
+
+        tokenBucket = new TokenBucketAlgorithm(LIMIT, LIMIT);
+        packedTokenBucket = new PackedTokenBucket(LIMIT, LIMIT);
+        leakyBucket = new LeakyBucketAlgorithm(LIMIT, LIMIT);
+        slidingWindowCounter = new SlidingWindowCounter(WINDOW_MILLIS, LIMIT);
+        slidingWindowYHCounter = new SlidingWindowYHCounter(WINDOW_MILLIS, LIMIT);
+        weightedSlidingWindowCounter = new WeightedSlidingWindowCounter(WINDOW_MILLIS, LIMIT);
+    }
+
+    @Benchmark
+    public boolean tokenBucketAllow() {
+        return tokenBucket.allow();
+    }
+
+    @Benchmark
+    public boolean packedTokenBucketAllow() {
+        return packedTokenBucket.allow();
+    }
+
+    @Benchmark
+    public boolean leakyBucketAllow() {
+        return leakyBucket.allow();
+    }
+
+    @Benchmark
+    public boolean slidingWindowCounterTryAcquire() {
+        return slidingWindowCounter.tryAcquire();
+    }
+
+    @Benchmark
+    public boolean slidingWindowYHCounterTryAcquire() {
+        return slidingWindowYHCounter.tryAcquire();
+    }
+
+    @Benchmark
+    public boolean weightedSlidingWindowCounterTryAcquire() {
+        return weightedSlidingWindowCounter.tryAcquire();
+    }
+}
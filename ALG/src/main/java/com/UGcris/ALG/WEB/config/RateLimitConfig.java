@@ -0,0 +1,105 @@
+package com.UGcris.ALG.WEB.config;
+
+import com.UGcris.ALG.WEB.interceptor.KeyExtractor;
+import com.UGcris.ALG.WEB.interceptor.RateLimitInterceptor;
+import com.UGcris.ALG.ratelimite.FixedWindowRateLimiter;
+import com.UGcris.ALG.ratelimite.KeyedRateLimiter;
+import com.UGcris.ALG.ratelimite.KeyedTokenBucketLimiter;
+import com.UGcris.ALG.ratelimite.LimiterMetricsRegistry;
+import com.UGcris.ALG.ratelimite.SharedMemoryTokenBucketLimiter;
+import com.UGcris.ALG.ratelimite.SlidingWindowRingLogLimiter;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+
+/**
+ * @Description 按配置为每条限流策略注册一个拦截器
+ * 路径匹配由 Spring 的 MappedInterceptor 完成，未配置限流的路径不会进入拦截器
+ * 每个限流器以策略路径为名注册到 {@link LimiterMetricsRegistry}，指标由 /ratelimit/metrics 导出
+ */
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitConfig implements WebMvcConfigurer {
+
+    private final RateLimitProperties properties;
+    private final LimiterMetricsRegistry metricsRegistry = new LimiterMetricsRegistry();
+
+    public RateLimitConfig(RateLimitProperties properties) {
+        this.properties = properties;
+    }
+
+    @Bean
+    public LimiterMetricsRegistry limiterMetricsRegistry() {
+        return metricsRegistry;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        for (RateLimitProperties.Policy policy : properties.getPolicies()) {
+            registry.addInterceptor(createInterceptor(policy, metricsRegistry)).addPathPatterns(policy.getPath());
+        }
+    }
+
+    /**
+     * 根据策略创建拦截器，配置错误时启动失败
+     */
+    public static RateLimitInterceptor createInterceptor(RateLimitProperties.Policy policy) {
+        return createInterceptor(policy, null);
+    }
+
+    /**
+     * 根据策略创建拦截器，metricsRegistry 不为 null 时限流器以策略路径为名注册指标
+     */
+    public static RateLimitInterceptor createInterceptor(RateLimitProperties.Policy policy,
+                                                         LimiterMetricsRegistry metricsRegistry) {
+        if (policy.getPath() == null || policy.getPath().isEmpty()) {
+            throw new IllegalArgumentException("ratelimit policy path is required");
+        }
+        KeyedRateLimiter limiter = createLimiter(policy);
+        if (metricsRegistry != null) {
+            limiter = metricsRegistry.register(policy.getPath(), limiter);
+        }
+        return new RateLimitInterceptor(limiter, KeyExtractor.parse(policy.getKey()));
+    }
+
+    private static KeyedRateLimiter createLimiter(RateLimitProperties.Policy policy) {
+        switch (policy.getAlgorithm()) {
+            case TOKEN_BUCKET:
+                return new KeyedTokenBucketLimiter(policy.getRate(), policy.getLimit(), policy.getMaxKeys());
+            case FIXED_WINDOW:
+                checkWindow(policy);
+                return new FixedWindowRateLimiter(policy.getLimit(), policy.getWindowMillis());
+            case SLIDING_WINDOW:
+                checkWindow(policy);
+                return new SlidingWindowRingLogLimiter(policy.getWindowMillis(), policy.getLimit());
+            case SHARED_TOKEN_BUCKET:
+                if (policy.getFile() == null || policy.getFile().isEmpty()) {
+                    throw new IllegalArgumentException("ratelimit policy " + policy.getPath() + ": file is required");
+                }
+                try {
+                    return new SharedMemoryTokenBucketLimiter(Paths.get(policy.getFile()),
+                            policy.getRate(), policy.getLimit(), policy.getMaxKeys());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            default:
+                throw new IllegalArgumentException("unsupported algorithm: " + policy.getAlgorithm());
+        }
+    }
+
+    private static void checkWindow(RateLimitProperties.Policy policy) {
+        if (policy.getLimit() <= 0 || policy.getWindowMillis() <= 0) {
+            throw new IllegalArgumentException("ratelimit policy " + policy.getPath()
+                    + ": limit and windowMillis must be positive");
+        }
+    }
+}
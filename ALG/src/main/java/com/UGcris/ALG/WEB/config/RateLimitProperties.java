@@ -0,0 +1,135 @@
+package com.UGcris.ALG.WEB.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @Description 接口限流配置（application.properties 中 ratelimit.* ）
+ * 每条策略指定路径、限流算法、额度和限流键，例如：
+ * <pre>
+ * ratelimit.policies[0].path=/flesh
+ * ratelimit.policies[0].algorithm=token-bucket
+ * ratelimit.policies[0].key=ip
+ * ratelimit.policies[0].limit=3
+ * ratelimit.policies[0].rate=1
+ * </pre>
+ */
+@ConfigurationProperties(prefix = "ratelimit")
+public class RateLimitProperties {
+
+    /** 总开关 */
+    private boolean enabled = true;
+
+    private List<Policy> policies = new ArrayList<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<Policy> getPolicies() {
+        return policies;
+    }
+
+    public void setPolicies(List<Policy> policies) {
+        this.policies = policies;
+    }
+
+    public enum Algorithm {
+        /** 令牌桶：limit 为桶容量，rate 为每秒补充的令牌数 */
+        TOKEN_BUCKET,
+        /** 固定窗口：每 windowMillis 最多 limit 次 */
+        FIXED_WINDOW,
+        /** 滑动窗口日志：任意 windowMillis 内最多 limit 次 */
+        SLIDING_WINDOW,
+        /** 同一台机器上多个进程共享的令牌桶，状态保存在 file 指定的内存映射文件中 */
+        SHARED_TOKEN_BUCKET
+    }
+
+    public static class Policy {
+        /** 路径，支持 Ant 风格通配符，如 /flesh、/api/** */
+        private String path;
+        private Algorithm algorithm = Algorithm.TOKEN_BUCKET;
+        /** 限流键：ip、global、header:头名称、path:路径变量名 */
+        private String key = "ip";
+        /** 窗口内最大请求数（令牌桶为容量） */
+        private int limit;
+        /** 窗口大小（毫秒），窗口类算法使用 */
+        private long windowMillis = 1000;
+        /** 每秒补充的令牌数，令牌桶使用 */
+        private double rate;
+        /** 令牌桶最多同时保存的 key 数 */
+        private int maxKeys = 65536;
+        /** 共享令牌桶的状态文件 */
+        private String file;
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public Algorithm getAlgorithm() {
+            return algorithm;
+        }
+
+        public void setAlgorithm(Algorithm algorithm) {
+            this.algorithm = algorithm;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public void setKey(String key) {
+            this.key = key;
+        }
+
+        public int getLimit() {
+            return limit;
+        }
+
+        public void setLimit(int limit) {
+            this.limit = limit;
+        }
+
+        public long getWindowMillis() {
+            return windowMillis;
+        }
+
+        public void setWindowMillis(long windowMillis) {
+            this.windowMillis = windowMillis;
+        }
+
+        public double getRate() {
+            return rate;
+        }
+
+        public void setRate(double rate) {
+            this.rate = rate;
+        }
+
+        public int getMaxKeys() {
+            return maxKeys;
+        }
+
+        public void setMaxKeys(int maxKeys) {
+            this.maxKeys = maxKeys;
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        public void setFile(String file) {
+            this.file = file;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.UGcris.ALG.WEB.controller;
+
+import com.UGcris.ALG.ratelimite.LimiterMetricsRegistry;
+import com.UGcris.ALG.ratelimite.LimiterMetricsSnapshot;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * @Description 导出各限流策略的指标：放行/拒绝次数、CAS 重试、key 数、内存估计与决策耗时百分位
+ */
+@RestController
+public class RateLimitMetricsController {
+
+    private final LimiterMetricsRegistry registry;
+
+    public RateLimitMetricsController(LimiterMetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @RequestMapping(value = "/ratelimit/metrics", method = RequestMethod.GET)
+    public List<LimiterMetricsSnapshot> metrics() {
+        return registry.snapshot();
+    }
+}
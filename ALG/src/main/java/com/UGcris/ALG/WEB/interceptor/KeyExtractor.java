@@ -0,0 +1,50 @@
+package com.UGcris.ALG.WEB.interceptor;
+
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Map;
+
+/**
+ * @Description 从请求中取出限流键
+ * 配置格式：ip、global、header:头名称、path:路径变量名；
+ * 请求头或路径变量缺失时退回到客户端 IP，避免所有缺失请求共享同一份额度；
+ * 请求头与路径变量由客户端控制，取值加 "h:" / "p:" 前缀，退回的 IP 加 "ip:" 前缀，
+ * 客户端把请求头设为他人的 IP 也不会占用对方的额度
+ */
+public interface KeyExtractor {
+
+    String GLOBAL_KEY = "*";
+    String IP_PREFIX = "ip:";
+    String HEADER_PREFIX = "h:";
+    String PATH_PREFIX = "p:";
+
+    String extract(HttpServletRequest request);
+
+    static KeyExtractor parse(String spec) {
+        if (spec == null || spec.isEmpty() || "ip".equals(spec)) {
+            return HttpServletRequest::getRemoteAddr;
+        }
+        if ("global".equals(spec)) {
+            return request -> GLOBAL_KEY;
+        }
+        if (spec.startsWith("header:") && spec.length() > "header:".length()) {
+            String header = spec.substring("header:".length());
+            return request -> {
+                String value = request.getHeader(header);
+                return value == null || value.isEmpty() ? IP_PREFIX + request.getRemoteAddr() : HEADER_PREFIX + value;
+            };
+        }
+        if (spec.startsWith("path:") && spec.length() > "path:".length()) {
+            String variable = spec.substring("path:".length());
+            return request -> {
+                @SuppressWarnings("unchecked")
+                Map<String, String> variables = (Map<String, String>)
+                        request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+                String value = variables == null ? null : variables.get(variable);
+                return value == null || value.isEmpty() ? IP_PREFIX + request.getRemoteAddr() : PATH_PREFIX + value;
+            };
+        }
+        throw new IllegalArgumentException("unsupported ratelimit key: " + spec);
+    }
+}
@@ -0,0 +1,39 @@
+package com.UGcris.ALG.WEB.interceptor;
+
+import com.UGcris.ALG.ratelimite.KeyedRateLimiter;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * @Description 接口限流拦截器
+ * 放行路径上只有一次取键和一次 tryAcquire，不分配对象；
+ * 被限流时返回 429，并按限流器的等待提示设置 Retry-After（秒，向上取整）
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    static final int TOO_MANY_REQUESTS = 429;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final KeyedRateLimiter limiter;
+    private final KeyExtractor keyExtractor;
+
+    public RateLimitInterceptor(KeyedRateLimiter limiter, KeyExtractor keyExtractor) {
+        this.limiter = limiter;
+        this.keyExtractor = keyExtractor;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String key = keyExtractor.extract(request);
+        if (limiter.tryAcquire(key)) {
+            return true;
+        }
+        long waitNanos = limiter.waitHintNanos(key, 1);
+        long retryAfter = waitNanos <= 0 ? 1 : (waitNanos + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND;
+        response.setStatus(TOO_MANY_REQUESTS);
+        response.setHeader("Retry-After", Long.toString(retryAfter));
+        return false;
+    }
+}
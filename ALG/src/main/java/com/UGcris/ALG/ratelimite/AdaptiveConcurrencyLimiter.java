@@ -0,0 +1,186 @@
+package com.UGcris.ALG.ratelimite;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 自适应并发限流器（类似 TCP 拥塞控制，按观测到的请求耗时调整并发上限）
+ * 固定 QPS 限流设得低浪费后端容量，设得高则在后端变慢时把它压垮；这里限制的是同时在途的请求数：
+ * 1. 梯度调整：每个采样窗口统计平均耗时 shortRtt，与长期基线 longRtt（指数加权平均）比较，
+ *    gradient = clamp(tolerance * longRtt / shortRtt, 0.5, 1)，新上限 = 上限 * gradient + sqrt(上限)，
+ *    耗时未上升时上限按 sqrt 逐步增加，后端开始排队、耗时上升时按比例收缩；
+ * 2. 乘性减：请求超时或被后端拒绝（{@link #onDropped(long)}）时上限立即乘以 backoffRatio；
+ * 3. 在途请求数未达到上限一半时不增加上限，避免低流量时上限无限膨胀；
+ * 4. 长期基线比当前耗时高出一倍以上时向当前耗时衰减，后端恢复后能重新找到基线。
+ * 用法：tryAcquire() 返回开始时间，请求结束后以该时间调用 onSuccess / onDropped / onIgnore 之一。
+ */
+public class AdaptiveConcurrencyLimiter implements MeasurableLimiter {
+    /** {@link #tryAcquire()} 超过并发上限时的返回值 */
+    public static final long REJECTED = Long.MIN_VALUE;
+
+    private static final double SMOOTHING = 0.2;        // 每个窗口向新上限靠拢的比例
+    private static final double TOLERANCE = 1.5;        // 允许的耗时上升倍数，低于它不收缩
+    private static final double LONG_RTT_ALPHA = 0.02;  // 长期基线的平滑系数（约 100 个窗口）
+    private static final double BACKOFF_RATIO = 0.9;    // 超时或被拒绝时的乘性减系数
+    private static final int MIN_SAMPLES = 10;          // 窗口内样本不足时延长窗口
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long windowNanos;                 // 采样窗口
+    private final TimeSource timeSource;            // 时钟
+
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final AtomicInteger maxInflight = new AtomicInteger();  // 本窗口内的最大在途数
+    private final LongAdder rttSum = new LongAdder();
+    private final LongAdder rttCount = new LongAdder();
+    private final LongAdder casRetries = new LongAdder();
+    private volatile int limit;                     // 当前并发上限
+    private volatile long windowEnd;
+
+    // 以下字段只在持有 this 锁时访问
+    private double estimatedLimit;
+    private double longRtt;                         // 长期耗时基线（纳秒），0 表示尚无样本
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this(initialLimit, minLimit, maxLimit, 100, TimeSource.SYSTEM);
+    }
+
+    /**
+     * @param initialLimit       初始并发上限
+     * @param minLimit           并发上限的下限
+     * @param maxLimit           并发上限的上限
+     * @param sampleWindowMillis 采样窗口（毫秒），每个窗口调整一次上限
+     * @param timeSource         时钟
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      long sampleWindowMillis, TimeSource timeSource) {
+        if (minLimit <= 0 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit
+                || sampleWindowMillis <= 0) {
+            throw new IllegalArgumentException("require 0 < minLimit <= initialLimit <= maxLimit and positive window");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(sampleWindowMillis);
+        this.timeSource = timeSource;
+        this.limit = initialLimit;
+        this.estimatedLimit = initialLimit;
+        this.windowEnd = timeSource.nanoTime() + windowNanos;
+    }
+
+    /**
+     * 在途请求数未达到上限时占用一个名额
+     * @return 请求开始时间，结束时传给 onSuccess / onDropped / onIgnore；超过上限时返回 {@link #REJECTED}
+     */
+    public long tryAcquire() {
+        while (true) {
+            int current = inflight.get();
+            if (current >= limit) {
+                return REJECTED;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                int max;
+                while (current + 1 > (max = maxInflight.get()) && !maxInflight.compareAndSet(max, current + 1)) {
+                    // 重试直到记录下最大在途数
+                }
+                return timeSource.nanoTime();
+            }
+            casRetries.increment();
+        }
+    }
+
+    /**
+     * 请求正常完成：释放名额并把耗时计入样本
+     */
+    public void onSuccess(long startNanos) {
+        long now = timeSource.nanoTime();
+        inflight.decrementAndGet();
+        rttSum.add(now - startNanos);
+        rttCount.increment();
+        if (now - windowEnd >= 0) {
+            updateLimit(now);
+        }
+    }
+
+    /**
+     * 请求超时或被后端拒绝（过载信号）：释放名额并立即乘性减
+     */
+    public void onDropped(long startNanos) {
+        inflight.decrementAndGet();
+        synchronized (this) {
+            estimatedLimit = Math.max(minLimit, estimatedLimit * BACKOFF_RATIO);
+            limit = (int) estimatedLimit;
+        }
+    }
+
+    /**
+     * 与后端负载无关的失败（如参数错误）：只释放名额，不计入样本
+     */
+    public void onIgnore(long startNanos) {
+        inflight.decrementAndGet();
+    }
+
+    /**
+     * 当前并发上限
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * 当前在途请求数
+     */
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    @Override
+    public long getCasRetries() {
+        return casRetries.sum();
+    }
+
+    /**
+     * 对象与计数器的固定开销
+     */
+    @Override
+    public long estimatedMemoryBytes() {
+        return 256;
+    }
+
+    // 窗口结束：用本窗口的平均耗时调整上限，只有一个线程执行，其他线程直接返回
+    private void updateLimit(long now) {
+        synchronized (this) {
+            if (now - windowEnd < 0) {
+                return; // 其他线程已经处理了这个窗口
+            }
+            long count = rttCount.sum();
+            if (count < MIN_SAMPLES) {
+                return; // 样本不足，窗口延长到凑够样本
+            }
+            long sum = rttSum.sum();
+            windowEnd = now + windowNanos;
+            // 只扣掉读到的部分，读取期间并发记录的样本留给下一个窗口，不会丢失
+            rttCount.add(-count);
+            rttSum.add(-sum);
+            double shortRtt = (double) sum / count;
+            int peakInflight = maxInflight.getAndSet(inflight.get());
+
+            if (longRtt == 0) {
+                longRtt = shortRtt;
+            } else {
+                longRtt += (shortRtt - longRtt) * LONG_RTT_ALPHA;
+                if (longRtt > shortRtt * 2) {
+                    longRtt = shortRtt * 2; // 后端恢复后基线跟着下降
+                }
+            }
+            if (peakInflight * 2 < estimatedLimit) {
+                return; // 流量太低，样本不能说明更高的上限是否安全
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+            double target = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+            estimatedLimit = estimatedLimit * (1 - SMOOTHING) + target * SMOOTHING;
+            estimatedLimit = Math.max(minLimit, Math.min(maxLimit, estimatedLimit));
+            limit = (int) estimatedLimit;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.UGcris.ALG.ratelimite;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RateLimiter#acquireAsync(int)} 的共享调度器
+ * 所有限流器共用一个守护线程：每次重试失败后按等待提示重新排入延迟队列，
+ * 等待中的请求只占用一个队列节点，不占用线程。
+ */
+final class AsyncAcquirer {
+    /** 等待提示为 0 但仍获取失败（并发竞争）时的最短等待时间 */
+    static final long MIN_WAIT_NANOS = 50_000;
+
+    private static final ScheduledThreadPoolExecutor SCHEDULER = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread thread = new Thread(r, "rate-limiter-async");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        SCHEDULER.setRemoveOnCancelPolicy(true);
+    }
+
+    private AsyncAcquirer() {
+    }
+
+    /**
+     * 在调度线程上延迟执行，供自行排队的限流器（如 {@link FairRateLimiter}）驱动异步等待者
+     */
+    static void schedule(Runnable task, long delayNanos) {
+        SCHEDULER.schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    static CompletableFuture<Void> acquire(RateLimiter limiter, int permits) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        attempt(limiter, permits, future);
+        return future;
+    }
+
+    private static void attempt(RateLimiter limiter, int permits, CompletableFuture<Void> future) {
+        if (future.isDone()) {
+            return; // 已被调用方取消
+        }
+        try {
+            if (limiter.tryAcquire(permits)) {
+                future.complete(null);
+                return;
+            }
+            long hint = limiter.waitHintNanos(permits);
+            if (hint < 0) {
+                future.completeExceptionally(
+                        new IllegalArgumentException("permits exceed limiter capacity: " + permits));
+                return;
+            }
+            SCHEDULER.schedule(() -> attempt(limiter, permits, future),
+                    Math.max(hint, MIN_WAIT_NANOS), TimeUnit.NANOSECONDS);
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        }
+    }
+}
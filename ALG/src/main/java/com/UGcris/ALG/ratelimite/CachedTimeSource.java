@@ -0,0 +1,48 @@
+package com.UGcris.ALG.ratelimite;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 粗粒度缓存时钟
+ * 后台守护线程每隔 resolution 刷新一次 System.nanoTime()，
+ * nanoTime() 只是一次 volatile 读，误差不超过一个刷新周期。
+ * 多个限流器可以共享同一个实例，不再使用时调用 close() 停止刷新线程。
+ */
+public class CachedTimeSource implements TimeSource, AutoCloseable {
+    private final long resolutionNanos;
+    private final Thread ticker;
+    private volatile long now = System.nanoTime();
+    private volatile boolean running = true;
+
+    public CachedTimeSource(long resolution, TimeUnit unit) {
+        this.resolutionNanos = unit.toNanos(resolution);
+        if (resolutionNanos <= 0) {
+            throw new IllegalArgumentException("resolution must be positive");
+        }
+        this.ticker = new Thread(this::tick, "cached-time-source");
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    @Override
+    public long nanoTime() {
+        return now;
+    }
+
+    private void tick() {
+        while (running) {
+            LockSupport.parkNanos(resolutionNanos);
+            now = System.nanoTime();
+        }
+    }
+
+    /**
+     * 停止刷新线程
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(ticker);
+    }
+}
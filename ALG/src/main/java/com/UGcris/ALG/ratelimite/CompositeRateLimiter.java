@@ -0,0 +1,147 @@
+package com.UGcris.ALG.ratelimite;
+
+import java.util.function.Function;
+
+/**
+ * 组合限流器：多个层级同时满足才放行，如“每用户 10/s 且每租户 1000/s 且全局 50k/s”
+ * 1. 每次判断只读一次时钟，所有层级使用同一时间戳；
+ * 2. 调用方只传入一个 key，各层级的 key 由 keyMapper 从中解析，每层只解析、查找一次；
+ * 3. 某一层拒绝时，按相反顺序归还前面层级已扣除的许可。
+ * 层级按构造顺序检查，建议把最容易拒绝、粒度最细的层级（如每用户）放在前面，
+ * 被拒绝的请求不会触及全局等共享层级，减少这些层级上的竞争和无谓的归还。
+ * 在扣除与归还之间的短暂时间内，其他请求可能看到已被扣除的额度（只会更严，不会超限）。
+ */
+public class CompositeRateLimiter implements KeyedRateLimiter {
+    private final Level[] levels;
+    private final TimeSource timeSource;
+
+    /**
+     * 一个限流层级
+     */
+    public static final class Level {
+        final String name;
+        final Function<String, String> keyMapper;   // 为 null 时该层级不区分 key
+        final RefundableKeyedRateLimiter keyed;
+        final RefundableRateLimiter global;
+
+        private Level(String name, Function<String, String> keyMapper,
+                      RefundableKeyedRateLimiter keyed, RefundableRateLimiter global) {
+            this.name = name;
+            this.keyMapper = keyMapper;
+            this.keyed = keyed;
+            this.global = global;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        String keyOf(String key) {
+            return keyMapper == null ? null : keyMapper.apply(key);
+        }
+
+        boolean tryAcquireAt(String key, int permits, long now) {
+            return keyed != null ? keyed.tryAcquireAt(key, permits, now) : global.tryAcquireAt(permits, now);
+        }
+
+        void refund(String key, int permits, long now) {
+            if (keyed != null) {
+                keyed.refund(key, permits, now);
+            } else {
+                global.refund(permits, now);
+            }
+        }
+
+        long waitHintNanos(String key, int permits) {
+            return keyed != null ? keyed.waitHintNanos(key, permits) : global.waitHintNanos(permits);
+        }
+    }
+
+    /**
+     * 直接使用调用方 key 的层级
+     */
+    public static Level level(String name, RefundableKeyedRateLimiter limiter) {
+        return new Level(name, Function.identity(), limiter, null);
+    }
+
+    /**
+     * 从调用方 key 解析出本层 key 的层级，如 "tenant/user" -> "tenant"
+     */
+    public static Level level(String name, Function<String, String> keyMapper, RefundableKeyedRateLimiter limiter) {
+        return new Level(name, keyMapper, limiter, null);
+    }
+
+    /**
+     * 不区分 key 的层级（如全局限流）
+     */
+    public static Level level(String name, RefundableRateLimiter limiter) {
+        return new Level(name, null, null, limiter);
+    }
+
+    /**
+     * @param timeSource 时钟，必须与各层级限流器使用的时钟一致
+     * @param levels     限流层级，按顺序检查
+     */
+    public CompositeRateLimiter(TimeSource timeSource, Level... levels) {
+        if (levels.length == 0) {
+            throw new IllegalArgumentException("at least one level is required");
+        }
+        this.timeSource = timeSource;
+        this.levels = levels.clone();
+    }
+
+    public CompositeRateLimiter(Level... levels) {
+        this(TimeSource.SYSTEM, levels);
+    }
+
+    @Override
+    public boolean tryAcquire(String key, int permits) {
+        return tryAcquireOrReject(key, permits) < 0;
+    }
+
+    /**
+     * 尝试获取许可，返回拒绝的层级
+     * @return -1 表示放行，否则为拒绝请求的层级下标
+     */
+    public int tryAcquireOrReject(String key, int permits) {
+        if (permits <= 0) {
+            return -1;
+        }
+        long now = timeSource.nanoTime();
+        String[] keys = new String[levels.length];
+        for (int i = 0; i < levels.length; i++) {
+            Level level = levels[i];
+            keys[i] = level.keyOf(key);
+            if (!level.tryAcquireAt(keys[i], permits, now)) {
+                for (int j = i - 1; j >= 0; j--) {
+                    levels[j].refund(keys[j], permits, now);
+                }
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 所有层级中最长的等待提示
+     */
+    @Override
+    public long waitHintNanos(String key, int permits) {
+        long max = 0;
+        for (Level level : levels) {
+            long hint = level.waitHintNanos(level.keyOf(key), permits);
+            if (hint < 0) {
+                return -1;
+            }
+            max = Math.max(max, hint);
+        }
+        return max;
+    }
+
+    /**
+     * 层级名称（与 {@link #tryAcquireOrReject(String, int)} 返回的下标对应）
+     */
+    public String levelName(int index) {
+        return levels[index].name;
+    }
+}
@@ -0,0 +1,75 @@
+package com.UGcris.ALG.ratelimite;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Count-Min Sketch：固定内存估计每个 key 的计数
+ * depth 行、每行 width 个计数器，key 在每行按不同的哈希选一个计数器累加，估计值取各行最小值。
+ * 估计值只会偏大不会偏小：总计数为 N 时，以 1 - e^-depth 的概率偏大不超过 e * N / width。
+ * 所有操作无锁，计数器为 int，内存 = depth * width * 4 字节。
+ */
+public class CountMinSketch {
+    private final int depth;
+    private final int widthMask;
+    private final AtomicIntegerArray counters;  // 第 i 行占用 [i * width, (i + 1) * width)
+
+    /**
+     * @param depth 哈希行数（常用 4~5）
+     * @param width 每行的计数器数（向上取整到 2 的幂）
+     */
+    public CountMinSketch(int depth, int width) {
+        if (depth <= 0 || depth > 16 || width <= 0) {
+            throw new IllegalArgumentException("depth must be in [1, 16] and width positive");
+        }
+        int size = width == 1 ? 1 : Integer.highestOneBit(width - 1) << 1;
+        this.depth = depth;
+        this.widthMask = size - 1;
+        this.counters = new AtomicIntegerArray(depth * size);
+    }
+
+    /**
+     * 累加 key 的计数
+     * @return 累加后的估计值
+     */
+    public int add(String key, int count) {
+        long hash = Hashing.hash64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;           // 双哈希生成各行的下标
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int index = row * (widthMask + 1) + ((h1 + row * h2) & widthMask);
+            min = Math.min(min, counters.addAndGet(index, count));
+        }
+        return min;
+    }
+
+    /**
+     * key 计数的估计值（不小于真实值）
+     */
+    public int estimate(String key) {
+        long hash = Hashing.hash64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counters.get(row * (widthMask + 1) + ((h1 + row * h2) & widthMask)));
+        }
+        return min;
+    }
+
+    /**
+     * 清空所有计数（与并发的 add 之间不保证原子性）
+     */
+    public void clear() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+    }
+
+    /**
+     * 计数器占用的内存（字节）
+     */
+    public long estimatedMemoryBytes() {
+        return (long) counters.length() * Integer.BYTES;
+    }
+}
@@ -0,0 +1,183 @@
+package com.UGcris.ALG.ratelimite;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 分布式令牌桶（集群全局限流，本地租约）
+ * 全局额度由 {@link TokenCoordinator} 持有（如进程内的 {@link LocalTokenCoordinator}，底层为 {@link TokenBucketAlgorithm}），
+ * 节点每次批量租用一批令牌，tryAcquire() 只在本地计数器上 CAS，不访问协调者：
+ * 1. 租约大小自适应：按节点观测到的消费速率（指数加权平均）计算，使每个租约大约覆盖 leaseTarget 时长，
+ *    高流量节点租得多、访问协调者的频率不随流量增长，低流量节点租得少、不囤积额度；
+ * 2. 租约有 TTL，过期未用完的令牌归还给协调者，close() 时同样归还；
+ * 3. 协调者额度不足时按其等待提示退避，期间的拒绝都在本地完成，不会把压力转嫁到协调者。
+ */
+public class DistributedTokenBucket implements RateLimiter, AutoCloseable {
+    private static final double EWMA_ALPHA = 0.3;   // 速率平滑系数
+
+    private final TokenCoordinator coordinator;
+    private final String nodeId;
+    private final int minLease;                     // 租约大小下限
+    private final int maxLease;                     // 租约大小上限
+    private final long leaseTargetNanos;            // 每个租约希望覆盖的时长
+    private final long leaseTtlNanos;               // 租约有效期
+    private final TimeSource timeSource;            // 时钟
+
+    private final AtomicLong localTokens = new AtomicLong();  // 本地剩余令牌
+    private volatile long leaseExpiresAt;           // 当前租约过期时间
+    private volatile long nextLeaseAt;              // 协调者额度不足时，下次允许租用的时间
+
+    // 以下字段只在持有 leaseLock 时访问
+    private final Object leaseLock = new Object();
+    private long lastLeaseAt;
+    private long tokensAfterLease;                  // 上次租用后的本地令牌数，用于统计消费量
+    private double tokensPerNano;                   // 观测到的消费速率
+    private int leaseSize;
+
+    public DistributedTokenBucket(TokenCoordinator coordinator, String nodeId) {
+        this(coordinator, nodeId, 1, 1000, 100, 1000, TimeSource.SYSTEM);
+    }
+
+    /**
+     * @param coordinator        全局额度的协调者
+     * @param nodeId             节点标识
+     * @param minLease           租约大小下限
+     * @param maxLease           租约大小上限
+     * @param leaseTargetMillis  每个租约希望覆盖的时长（毫秒），决定访问协调者的频率
+     * @param leaseTtlMillis     租约有效期（毫秒），过期后未使用的令牌归还
+     * @param timeSource         时钟
+     */
+    public DistributedTokenBucket(TokenCoordinator coordinator, String nodeId, int minLease, int maxLease,
+                                  long leaseTargetMillis, long leaseTtlMillis, TimeSource timeSource) {
+        if (minLease <= 0 || maxLease < minLease || leaseTargetMillis <= 0 || leaseTtlMillis <= 0) {
+            throw new IllegalArgumentException("invalid lease settings");
+        }
+        this.coordinator = coordinator;
+        this.nodeId = nodeId;
+        this.minLease = minLease;
+        this.maxLease = maxLease;
+        this.leaseTargetNanos = TimeUnit.MILLISECONDS.toNanos(leaseTargetMillis);
+        this.leaseTtlNanos = TimeUnit.MILLISECONDS.toNanos(leaseTtlMillis);
+        this.timeSource = timeSource;
+        this.leaseSize = minLease;
+        long now = timeSource.nanoTime();
+        this.lastLeaseAt = now;
+        this.leaseExpiresAt = now;
+        this.nextLeaseAt = now;
+    }
+
+    public boolean allow() {
+        return tryAcquire(1);
+    }
+
+    @Override
+    public boolean tryAcquire(int permits) {
+        if (permits <= 0) return true;
+        long now = timeSource.nanoTime();
+        if (now - leaseExpiresAt < 0 && takeLocal(permits)) {
+            return true;
+        }
+        return leaseAndTake(permits, now);
+    }
+
+    @Override
+    public long waitHintNanos(int permits) {
+        if (permits <= 0) return 0;
+        long now = timeSource.nanoTime();
+        long missing = permits - localTokens.get();
+        if (missing <= 0 && now - leaseExpiresAt < 0) return 0;
+        long hint = coordinator.waitHintNanos((int) Math.max(missing, permits));
+        return hint < 0 ? -1 : Math.max(hint, nextLeaseAt - now);
+    }
+
+    /**
+     * 当前租约大小
+     */
+    public int getLeaseSize() {
+        synchronized (leaseLock) {
+            return leaseSize;
+        }
+    }
+
+    /**
+     * 本地剩余令牌数
+     */
+    public long getLocalTokens() {
+        return localTokens.get();
+    }
+
+    /**
+     * 归还本地剩余令牌
+     */
+    @Override
+    public void close() {
+        synchronized (leaseLock) {
+            returnLeftover();
+            leaseExpiresAt = timeSource.nanoTime();
+        }
+    }
+
+    private boolean takeLocal(int permits) {
+        while (true) {
+            long tokens = localTokens.get();
+            if (tokens < permits) {
+                return false;
+            }
+            if (localTokens.compareAndSet(tokens, tokens - permits)) {
+                return true;
+            }
+        }
+    }
+
+    // 本地令牌不足或租约过期：归还过期令牌、按观测速率重新租用
+    private boolean leaseAndTake(int permits, long now) {
+        synchronized (leaseLock) {
+            if (now - leaseExpiresAt >= 0) {
+                observeRate(now);
+                returnLeftover();
+            } else if (takeLocal(permits)) {
+                return true; // 其他线程已经续租
+            } else {
+                observeRate(now);
+            }
+            if (now - nextLeaseAt < 0) {
+                return false; // 协调者额度不足，退避期间直接拒绝
+            }
+
+            long missing = permits - localTokens.get();
+            int request = (int) Math.max(leaseSize, missing);
+            int granted = coordinator.lease(nodeId, request);
+            long tokens = localTokens.addAndGet(granted);
+            tokensAfterLease = tokens;
+            lastLeaseAt = now;
+            leaseExpiresAt = now + leaseTtlNanos;
+            if (granted < request) {
+                long hint = coordinator.waitHintNanos(Math.max(1, leaseSize));
+                nextLeaseAt = now + Math.max(0, hint);
+            }
+            return takeLocal(permits);
+        }
+    }
+
+    // 统计上次租用以来的消费速率并调整租约大小（需持有 leaseLock）
+    private void observeRate(long now) {
+        long elapsed = now - lastLeaseAt;
+        if (elapsed <= 0) {
+            return;
+        }
+        long consumed = Math.max(0, tokensAfterLease - localTokens.get());
+        double sample = (double) consumed / elapsed;
+        tokensPerNano = tokensPerNano == 0 ? sample : EWMA_ALPHA * sample + (1 - EWMA_ALPHA) * tokensPerNano;
+        long wanted = (long) Math.ceil(tokensPerNano * leaseTargetNanos);
+        leaseSize = (int) Math.max(minLease, Math.min(maxLease, wanted));
+    }
+
+    // 归还本地剩余令牌（需持有 leaseLock）
+    private void returnLeftover() {
+        long leftover = localTokens.getAndSet(0);
+        tokensAfterLease = 0;
+        if (leftover > 0) {
+            coordinator.release(nodeId, (int) leftover);
+        }
+    }
+}
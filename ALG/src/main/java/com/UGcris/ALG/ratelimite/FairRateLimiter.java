@@ -0,0 +1,195 @@
+package com.UGcris.ALG.ratelimite;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 先来先得的限流器包装（阻塞等待的公平队列）
+ * 默认的 {@link RateLimiter#acquire(int)} 让每个等待线程各自按等待提示醒来重试，
+ * 成千上万个线程同时等待时，每次补充令牌都会引起一轮对底层 CAS 的争抢，且先到的线程不一定先拿到：
+ * 1. 等待者按到达顺序排队，只有队首会访问底层限流器，按等待提示 park，其余等待者 park 到被前驱唤醒，
+ *    底层限流器上的竞争与等待线程数无关；
+ * 2. 队首获得许可（或超时、被中断）离开时唤醒新的队首，许可按到达顺序交给等待者；
+ * 3. 有人排队时非阻塞的 tryAcquire 直接失败，不会插队抢走正在补充的许可；
+ * 4. 只使用 LockSupport 与无锁队列，不使用 synchronized，虚拟线程等待时不会钉住载体线程；
+ * 5. acquireAsync 的调用方与阻塞等待者排在同一个队列中，轮到时由共享调度线程按等待提示重试，
+ *    不会因为 tryAcquire 在有人排队时总是失败而一直饿死。
+ */
+public class FairRateLimiter implements RateLimiter {
+
+    // 排队的等待者：阻塞等待者 park 在 thread 上，异步等待者（thread 为 null）由调度线程驱动
+    private static final class Waiter {
+        final Thread thread;
+        final int permits;
+        final CompletableFuture<Void> future;
+        final AtomicBoolean scheduled = new AtomicBoolean();  // 异步等待者已有待执行的重试
+
+        Waiter(Thread thread, int permits, CompletableFuture<Void> future) {
+            this.thread = thread;
+            this.permits = permits;
+            this.future = future;
+        }
+    }
+
+    private final RateLimiter target;
+    private final TimeSource timeSource;  // 计算超时截止时间的时钟，应与底层限流器一致
+    private final ConcurrentLinkedQueue<Waiter> queue = new ConcurrentLinkedQueue<>();
+
+    public FairRateLimiter(RateLimiter target) {
+        this(target, TimeSource.SYSTEM);
+    }
+
+    public FairRateLimiter(RateLimiter target, TimeSource timeSource) {
+        this.target = target;
+        this.timeSource = timeSource;
+    }
+
+    /**
+     * 没有人排队时才尝试获取，保证等待者优先
+     */
+    @Override
+    public boolean tryAcquire(int permits) {
+        return queue.isEmpty() && target.tryAcquire(permits);
+    }
+
+    @Override
+    public long waitHintNanos(int permits) {
+        return target.waitHintNanos(permits);
+    }
+
+    @Override
+    public void acquire(int permits) throws InterruptedException {
+        if (permits <= 0 || tryAcquire(permits)) {
+            return;
+        }
+        await(permits, 0, false);
+    }
+
+    @Override
+    public boolean tryAcquire(int permits, long timeout, TimeUnit unit) throws InterruptedException {
+        if (permits <= 0 || tryAcquire(permits)) {
+            return true;
+        }
+        return await(permits, timeSource.nanoTime() + unit.toNanos(timeout), true);
+    }
+
+    /**
+     * 异步获取许可：能立即获得（且无人排队）时直接完成，否则与阻塞等待者按到达顺序排队，
+     * 轮到时在共享调度线程上按等待提示重试。future 被取消时离开队列
+     */
+    @Override
+    public CompletableFuture<Void> acquireAsync(int permits) {
+        if (permits <= 0 || tryAcquire(permits)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Waiter waiter = new Waiter(null, permits, new CompletableFuture<>());
+        waiter.future.whenComplete((ignored, error) -> leave(waiter));  // 被调用方取消时离开队列
+        queue.offer(waiter);
+        if (queue.peek() == waiter) {
+            wake(waiter);
+        }
+        return waiter.future;
+    }
+
+    /**
+     * 正在排队的等待者数
+     */
+    public int getQueueLength() {
+        return queue.size();
+    }
+
+    /**
+     * 被包装的限流器
+     */
+    public RateLimiter getTarget() {
+        return target;
+    }
+
+    // 排队等待轮到自己，队首按等待提示重试底层限流器；离开时（无论成功与否）唤醒下一个
+    private boolean await(int permits, long deadline, boolean timed) throws InterruptedException {
+        Waiter waiter = new Waiter(Thread.currentThread(), permits, null);
+        queue.offer(waiter);
+        try {
+            while (true) {
+                long remaining = timed ? deadline - timeSource.nanoTime() : Long.MAX_VALUE;
+                if (queue.peek() == waiter) {
+                    if (target.tryAcquire(permits)) {
+                        return true;
+                    }
+                    long hint = target.waitHintNanos(permits);
+                    if (hint < 0) {
+                        if (timed) return false;
+                        throw new IllegalArgumentException("permits exceed limiter capacity: " + permits);
+                    }
+                    if (hint > remaining) {
+                        return false;
+                    }
+                    LockSupport.parkNanos(this, Math.min(Math.max(hint, AsyncAcquirer.MIN_WAIT_NANOS), remaining));
+                } else {
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    if (timed) {
+                        LockSupport.parkNanos(this, remaining);
+                    } else {
+                        LockSupport.park(this);
+                    }
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        } finally {
+            leave(waiter);
+        }
+    }
+
+    // 离开后唤醒当前队首：并发离开时无法可靠判断自己是不是队首，多唤醒一次只会让队首多重试一次
+    private void leave(Waiter waiter) {
+        queue.remove(waiter);
+        Waiter next = queue.peek();
+        if (next != null) {
+            wake(next);
+        }
+    }
+
+    // 唤醒队首：阻塞等待者 unpark，异步等待者安排一次重试（已安排时不重复）
+    private void wake(Waiter waiter) {
+        if (waiter.thread != null) {
+            LockSupport.unpark(waiter.thread);
+        } else if (waiter.scheduled.compareAndSet(false, true)) {
+            AsyncAcquirer.schedule(() -> attemptAsync(waiter), 0);
+        }
+    }
+
+    // 异步等待者的一次重试：不是队首时什么都不做，由前驱离开时唤醒；先离开队列再完成 future，回调中看到的队列已不含自己
+    private void attemptAsync(Waiter waiter) {
+        waiter.scheduled.set(false);  // 先清除，此后的唤醒会重新安排
+        if (waiter.future.isDone() || queue.peek() != waiter) {
+            return;
+        }
+        try {
+            if (target.tryAcquire(waiter.permits)) {
+                leave(waiter);
+                waiter.future.complete(null);
+                return;
+            }
+            long hint = target.waitHintNanos(waiter.permits);
+            if (hint < 0) {
+                leave(waiter);
+                waiter.future.completeExceptionally(
+                        new IllegalArgumentException("permits exceed limiter capacity: " + waiter.permits));
+                return;
+            }
+            if (waiter.scheduled.compareAndSet(false, true)) {
+                AsyncAcquirer.schedule(() -> attemptAsync(waiter), Math.max(hint, AsyncAcquirer.MIN_WAIT_NANOS));
+            }
+        } catch (Throwable e) {
+            leave(waiter);
+            waiter.future.completeExceptionally(e);
+        }
+    }
+}
@@ -1,29 +1,50 @@
 package com.UGcris.ALG.ratelimite;
 
-import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 /**
- * 固定窗口限流器
+ * 固定窗口限流器（无锁）
+ * 每个 key 的计数器是一个 AtomicLong：高 32 位为窗口编号，低 32 位为该窗口内的请求数。
+ * 窗口编号由时钟计算，进入新窗口时按 key 惰性归零，不需要后台线程定时 clear()；
+ * 不同 key 之间没有共享的锁，吞吐量随核数线性增长。
+ * 已经过期的 key 由 {@link KeyExpirySweeper} 在请求线程上增量清理。
+ * 支持快照：保存当前窗口内各 key 的计数与窗口剩余时间，新进程恢复时对齐到原来的窗口边界。
  */
-public class FixedWindowRateLimiter {
+public class FixedWindowRateLimiter implements RefundableKeyedRateLimiter, Snapshottable, MeasurableLimiter {
+
+    // 计数器被清理器移除的标记（请求数字段全 1，正常计数不可能达到）
+    private static final long RETIRED = -1L;
 
     // 存储每个 key 的计数器
-    private final ConcurrentHashMap<String, AtomicInteger> counters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
 
-    // 窗口大小（毫秒），例如 60_000 = 1分钟
-    private final long windowSizeMs;
+    // 窗口大小（纳秒），构造参数为毫秒，例如 60_000 = 1分钟
+    private final long windowSizeNanos;
+    private volatile long origin;                    // 窗口编号的起点，恢复快照时对齐到原窗口边界
     private final int maxRequests;
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+    private final KeyExpirySweeper sweeper;
+    private final TimeSource timeSource;             // 时钟
+    private final LongAdder casRetries = new LongAdder();   // 决策路径上 CAS 失败重试的次数
 
     public FixedWindowRateLimiter(int maxRequests, long windowSizeMs) {
+        this(maxRequests, windowSizeMs, TimeSource.SYSTEM);
+    }
+
+    public FixedWindowRateLimiter(int maxRequests, long windowSizeMs, TimeSource timeSource) {
+        this.timeSource = timeSource;
+        this.origin = timeSource.nanoTime();
         this.maxRequests = maxRequests;
-        this.windowSizeMs = windowSizeMs;
+        this.windowSizeNanos = TimeUnit.MILLISECONDS.toNanos(windowSizeMs);
 
-        // 每隔 windowSizeMs 时间重置一次计数器
-        this.scheduler.scheduleAtFixedRate(
-                this::resetCounters,
-                windowSizeMs, windowSizeMs, TimeUnit.MILLISECONDS
-        );
+        // 每个窗口划分为 8 个时间轮槽位
+        this.sweeper = new KeyExpirySweeper(this::expireIfIdle, timeSource,
+                Math.max(windowSizeNanos / 8, 1_000_000), 64, 1024);
     }
 
     /**
@@ -31,44 +52,269 @@ public class FixedWindowRateLimiter {
      * @param key 限流的标识（如 IP、邮箱）
      * @return 是否允许
      */
-    public synchronized boolean allowRequest(String key) {
-        if (key == null || key.isEmpty()) {
+    public boolean allowRequest(String key) {
+        return allowRequest(key, 1);
+    }
+
+    /**
+     * 检查是否允许 key 一次通过 permits 个请求
+     */
+    public boolean allowRequest(String key, int permits) {
+        return tryAcquireAt(key, permits, timeSource.nanoTime());
+    }
+
+    @Override
+    public boolean tryAcquireAt(String key, int permits, long now) {
+        if (key == null || key.isEmpty() || permits > maxRequests) {
             return false;
         }
+        if (permits <= 0) {
+            return true;
+        }
 
-        // 获取当前 key 的计数器，不存在则创建
-        AtomicInteger counter = counters.computeIfAbsent(key, k -> new AtomicInteger(0));
-        int count = counter.get();
+        sweeper.maybeSweep(now);
+        long window = windowOf(now);
+        int epoch = (int) window;
+        while (true) {
+            AtomicLong counter = counterOf(key, window);
+            long current = counter.get();
+            if (current == RETIRED) {
+                continue; // 已被清理器移除，重新获取
+            }
+            // 计数器停留在旧窗口时视为 0（惰性归零）
+            int count = epochOf(current) == epoch ? countOf(current) : 0;
+            if (count + permits > maxRequests) {
+                return false; // 超过限制
+            }
+            if (counter.compareAndSet(current, pack(epoch, count + permits))) {
+                return true;
+            }
+            casRetries.increment();
+        }
+    }
+
+    @Override
+    public boolean tryAcquire(String key, int permits) {
+        return allowRequest(key, permits);
+    }
 
-        if (count >= maxRequests) {
-            return false; // 超过限制
+    /**
+     * 从 now 所在窗口的计数中撤销，窗口已切换或 key 已被清理时忽略
+     */
+    @Override
+    public void refund(String key, int permits, long now) {
+        AtomicLong counter = key == null ? null : counters.get(key);
+        if (counter == null || permits <= 0) {
+            return;
         }
+        int epoch = (int) windowOf(now);
+        while (true) {
+            long current = counter.get();
+            if (current == RETIRED || epochOf(current) != epoch || countOf(current) < permits) {
+                return;
+            }
+            if (counter.compareAndSet(current, pack(epoch, countOf(current) - permits))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 当前窗口额度不足时需要等到下一个窗口开始
+     */
+    @Override
+    public long waitHintNanos(String key, int permits) {
+        if (key == null || key.isEmpty() || permits > maxRequests) {
+            return -1;
+        }
+        long now = timeSource.nanoTime();
+        long window = windowOf(now);
+        AtomicLong counter = counters.get(key);
+        long current = counter == null ? RETIRED : counter.get();
+        int count = current != RETIRED && epochOf(current) == (int) window ? countOf(current) : 0;
+        return count + permits <= maxRequests ? 0 : windowEnd(window) - now;
+    }
 
-        // 原子递增
-        counter.incrementAndGet();
-        return true;
+    /**
+     * 立即清理一次已过期的 key
+     * @return 本次回收的 key 数
+     */
+    public int sweepExpiredKeys() {
+        return sweeper.sweep(timeSource.nanoTime());
     }
 
     /**
-     * 重置所有计数器（每窗口周期执行一次）
+     * 最近一次清理回收的 key 数
      */
-    private void resetCounters() {
-        System.out.println("🔄 重置固定窗口计数器...");
-        counters.clear();
+    public int getLastSweepReclaimed() {
+        return sweeper.getLastSweepReclaimed();
     }
 
     /**
-     * 关闭调度器（应用关闭时调用）
+     * 累计回收的 key 数
      */
-    public void shutdown() {
-        scheduler.shutdown();
-        try {
-            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                scheduler.shutdownNow();
+    public long getTotalReclaimed() {
+        return sweeper.getTotalReclaimed();
+    }
+
+    /**
+     * 当前保存的 key 数
+     */
+    @Override
+    public int getKeyCount() {
+        return counters.size();
+    }
+
+    /**
+     * 写出当前窗口内各 key 的计数，以及窗口剩余时间
+     */
+    @Override
+    public void writeSnapshot(WritableByteChannel channel) throws IOException {
+        SnapshotWriter writer = new SnapshotWriter(channel);
+        writer.writeHeader(SnapshotWriter.KIND_FIXED_WINDOW, windowSizeNanos);
+        long now = timeSource.nanoTime();
+        long window = windowOf(now);
+        long remaining = windowEnd(window) - now;
+        for (Map.Entry<String, AtomicLong> entry : counters.entrySet()) {
+            long current = entry.getValue().get();
+            if (current == RETIRED || epochOf(current) != (int) window || countOf(current) == 0) {
+                continue; // 已过期的 key 不写入
+            }
+            writer.putKey(entry.getKey());
+            writer.putVarLong(countOf(current));
+            writer.putVarLong(remaining);
+        }
+        writer.putEnd();
+        writer.flush();
+    }
+
+    /**
+     * 恢复快照：原窗口在停机期间已结束的记录被丢弃。
+     * 还没有任何 key 时，窗口边界对齐到原进程，恢复的计数在原窗口结束时准确失效；
+     * 否则计入当前窗口（可能比原窗口晚失效）。
+     */
+    @Override
+    public int readSnapshot(ReadableByteChannel channel) throws IOException {
+        SnapshotReader reader = new SnapshotReader(channel);
+        reader.readHeader(SnapshotWriter.KIND_FIXED_WINDOW);
+        if (reader.windowSizeNanos() != windowSizeNanos) {
+            throw new IOException("snapshot window size " + reader.windowSizeNanos()
+                    + "ns differs from " + windowSizeNanos + "ns");
+        }
+        long now = timeSource.nanoTime();
+        boolean keepOrigin = !counters.isEmpty();
+        int restored = 0;
+        String key;
+        while ((key = reader.getKey()) != null) {
+            long count = reader.getVarLong();
+            long written = reader.getVarLong();
+            if (count < 0 || count > maxRequests) {
+                throw new IOException("snapshot count " + count + " for key " + key
+                        + " outside [0, " + maxRequests + "]");
+            }
+            if (written < 0 || written > windowSizeNanos) {
+                throw new IOException("snapshot remaining " + written + "ns for key " + key
+                        + " outside [0, " + windowSizeNanos + "ns]");
             }
-        } catch (InterruptedException e) {
-            scheduler.shutdownNow();
-            Thread.currentThread().interrupt();
+            long remaining = written - reader.elapsedNanos();
+            if (remaining <= 0 || key.isEmpty()) {
+                continue;
+            }
+            if (!keepOrigin) {
+                origin = now + remaining - windowSizeNanos; // 当前窗口恰好在 remaining 之后结束
+                keepOrigin = true;
+            }
+            long window = windowOf(now);
+            int epoch = (int) window;
+            AtomicLong counter;
+            long current;
+            do {
+                counter = counterOf(key, window);
+                current = counter.get();
+            } while (current == RETIRED);
+            while (true) {
+                int existing = epochOf(current) == epoch ? countOf(current) : 0;
+                if (counter.compareAndSet(current, pack(epoch, Math.max(existing, (int) count)))) {
+                    break;
+                }
+                current = counter.get();
+            }
+            restored++;
         }
+        return restored;
+    }
+
+    private AtomicLong counterOf(String key, long window) {
+        AtomicLong counter = counters.get(key);
+        if (counter == null) {
+            AtomicLong created = new AtomicLong(pack((int) window, 0));
+            counter = counters.putIfAbsent(key, created);
+            if (counter == null) {
+                counter = created;
+                sweeper.schedule(key, windowEnd(window));
+            }
+        }
+        return counter;
+    }
+
+    // 计数器停留在旧窗口则标记并移除，否则在当前窗口结束时再检查
+    private long expireIfIdle(String key, long now) {
+        AtomicLong counter = counters.get(key);
+        if (counter == null) {
+            return KeyExpirySweeper.ABSENT;
+        }
+        long window = windowOf(now);
+        while (true) {
+            long current = counter.get();
+            if (current == RETIRED) {
+                return KeyExpirySweeper.ABSENT;
+            }
+            if (epochOf(current) == (int) window) {
+                return windowEnd(window);
+            }
+            if (counter.compareAndSet(current, RETIRED)) {
+                counters.remove(key, counter);
+                return KeyExpirySweeper.REMOVED;
+            }
+        }
+    }
+
+    private long windowOf(long now) {
+        return (now - origin) / windowSizeNanos;
+    }
+
+    private long windowEnd(long window) {
+        return origin + (window + 1) * windowSizeNanos;
+    }
+
+    private static long pack(int epoch, int count) {
+        return ((long) epoch << 32) | (count & 0xFFFFFFFFL);
+    }
+
+    private static int epochOf(long packed) {
+        return (int) (packed >>> 32);
+    }
+
+    private static int countOf(long packed) {
+        return (int) packed;
+    }
+
+    /**
+     * 已无后台线程，保留该方法以兼容原有调用方
+     */
+    public void shutdown() {
+    }
+
+    @Override
+    public long getCasRetries() {
+        return casRetries.sum();
+    }
+
+    /**
+     * 与 key 数成正比
+     */
+    @Override
+    public long estimatedMemoryBytes() {
+        return (long) counters.size() * (ESTIMATED_KEY_BYTES + 24 + 24); // AtomicLong、时间轮中的一项
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,40 @@
+package com.UGcris.ALG.ratelimite;
+
+/**
+ * key 的 64 位哈希（FNV-1a + murmur3 fmix64 混合）
+ * 用于在原始类型数组中以指纹代替 String 存储 key
+ */
+final class Hashing {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private Hashing() {
+    }
+
+    static long hash64(CharSequence key) {
+        long h = FNV_OFFSET;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= FNV_PRIME;
+        }
+        return fmix64(h);
+    }
+
+    /**
+     * 返回非 0 的指纹，0 留作“空槽”标记
+     */
+    static long fingerprint(CharSequence key) {
+        long h = hash64(key);
+        return h == 0 ? 1 : h;
+    }
+
+    static long fmix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,195 @@
+package com.UGcris.ALG.ratelimite;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 重度用户检测 + 精确滑动窗口的两级按 key 限流器
+ * 海量长尾 key（如百万级 IP）中只有极少数会接近限额，没必要为每个 key 保存精确的时间戳队列：
+ * 1. 前置级：两个按窗口轮换的 {@link CountMinSketch}（当前窗口、上一窗口按剩余比例加权）在固定内存中估计每个 key 的请求数，
+ *    估计值只偏大不偏小，不超过 limit / 2 的 key 一定没有超限，直接放行，不分配任何 per-key 状态；
+ * 2. 估计值超过 limit / 2 的 key 被视为疑似重度用户，提升到精确级（{@link SlidingWindowLogLimiter}），
+ *    提升时按估计值预占额度，此后由精确窗口判断；
+ * 3. 精确级最多保存 maxHeavyHitters 个 key（space-saving 思路）：满了以后淘汰本窗口命中最少的 key，
+ *    整个窗口都没有请求的 key 在窗口轮换时降级回前置级。
+ * 内存 = 2 个 sketch + 最多 maxHeavyHitters 个精确窗口，与 key 总数无关。
+ */
+public class HeavyHitterRateLimiter implements KeyedRateLimiter, MeasurableLimiter {
+    private static final int SKETCH_DEPTH = 4;
+
+    private final long windowNanos;
+    private final int limit;
+    private final int promoteThreshold;             // 估计值超过它的 key 进入精确级
+    private final int maxHeavyHitters;
+    private final CountMinSketch[] sketches;        // 下标为窗口编号 & 1
+    private final SlidingWindowLogLimiter exact;
+    private final ConcurrentHashMap<String, LongAdder> heavyHitters = new ConcurrentHashMap<>(); // 值为本窗口命中数
+    private final long origin;
+    private final TimeSource timeSource;            // 时钟
+    private volatile long currentWindow;
+
+    public HeavyHitterRateLimiter(long windowSizeMillis, int limit) {
+        this(windowSizeMillis, limit, 1024, 1 << 16, TimeSource.SYSTEM);
+    }
+
+    /**
+     * @param windowSizeMillis 窗口大小（毫秒）
+     * @param limit            每个 key 窗口内最大请求数
+     * @param maxHeavyHitters  精确级最多保存的 key 数
+     * @param sketchWidth      sketch 每行的计数器数，越大估计越准（每个窗口总请求数为 N 时偏大约 e * N / width）
+     * @param timeSource       时钟
+     */
+    public HeavyHitterRateLimiter(long windowSizeMillis, int limit, int maxHeavyHitters, int sketchWidth,
+                                  TimeSource timeSource) {
+        if (windowSizeMillis <= 0 || limit <= 0 || maxHeavyHitters <= 0) {
+            throw new IllegalArgumentException("windowSizeMillis, limit and maxHeavyHitters must be positive");
+        }
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowSizeMillis);
+        this.limit = limit;
+        this.promoteThreshold = Math.max(1, limit / 2);
+        this.maxHeavyHitters = maxHeavyHitters;
+        this.sketches = new CountMinSketch[]{
+                new CountMinSketch(SKETCH_DEPTH, sketchWidth), new CountMinSketch(SKETCH_DEPTH, sketchWidth)};
+        this.exact = new SlidingWindowLogLimiter(windowSizeMillis, limit, timeSource);
+        this.timeSource = timeSource;
+        this.origin = timeSource.nanoTime();
+    }
+
+    @Override
+    public boolean tryAcquire(String key, int permits) {
+        if (permits > limit) return false;
+        if (permits <= 0) return true;
+        long now = timeSource.nanoTime();
+        long window = rotate(now);
+
+        LongAdder hits = heavyHitters.get(key);
+        if (hits != null) {
+            hits.add(permits);
+            sketches[(int) window & 1].add(key, permits); // 降级后估计值仍然有效
+            return exact.tryAcquireAt(key, permits, now);
+        }
+        int estimate = sketches[(int) window & 1].add(key, permits) + previousWeight(key, window, now);
+        if (estimate <= promoteThreshold) {
+            return true; // 真实请求数不超过估计值，一定没有超限
+        }
+        promote(key, estimate - permits, now);
+        return exact.tryAcquireAt(key, permits, now);
+    }
+
+    /**
+     * 前置级的 key 未超过阈值时无需等待，其余按精确窗口计算
+     */
+    @Override
+    public long waitHintNanos(String key, int permits) {
+        if (permits > limit) return -1;
+        if (permits <= 0) return 0;
+        return heavyHitters.containsKey(key) ? exact.waitHintNanos(key, permits) : 0;
+    }
+
+    /**
+     * 是否已被提升到精确级
+     */
+    public boolean isHeavyHitter(String key) {
+        return heavyHitters.containsKey(key);
+    }
+
+    /**
+     * 前置级对 key 在当前滑动窗口内请求数的估计（不小于真实值）
+     */
+    public int estimate(String key) {
+        long now = timeSource.nanoTime();
+        long window = rotate(now);
+        return sketches[(int) window & 1].estimate(key) + previousWeight(key, window, now);
+    }
+
+    /**
+     * 基于 sketch 与并发 Map，没有 CAS 重试循环
+     */
+    @Override
+    public long getCasRetries() {
+        return 0;
+    }
+
+    /**
+     * 精确级保存的 key 数
+     */
+    @Override
+    public int getKeyCount() {
+        return heavyHitters.size();
+    }
+
+    /**
+     * 两个 sketch 的固定内存加上精确级的 key
+     */
+    @Override
+    public long estimatedMemoryBytes() {
+        return sketches[0].estimatedMemoryBytes() * 2
+                + (long) heavyHitters.size() * (ESTIMATED_KEY_BYTES + 32)
+                + exact.estimatedMemoryBytes();
+    }
+
+    // 上一窗口的计数按当前窗口剩余比例计入（与加权滑动窗口相同的近似），向上取整保证不低估
+    private int previousWeight(String key, long window, long now) {
+        int previous = sketches[(int) (window + 1) & 1].estimate(key);
+        if (previous == 0) {
+            return 0;
+        }
+        long elapsed = now - origin - window * windowNanos;
+        return (int) Math.ceil(previous * (double) (windowNanos - elapsed) / windowNanos);
+    }
+
+    // 进入新窗口时清空两个窗口前的 sketch（跳过多个窗口时两个都清空），并降级整个窗口没有请求的重度用户
+    private long rotate(long now) {
+        long window = (now - origin) / windowNanos;
+        if (window == currentWindow) {
+            return window;
+        }
+        synchronized (this) {
+            long current = currentWindow;
+            if (window > current) {
+                sketches[(int) window & 1].clear();
+                if (window - current > 1) {
+                    sketches[(int) (window + 1) & 1].clear();
+                }
+                for (Iterator<Map.Entry<String, LongAdder>> it = heavyHitters.entrySet().iterator(); it.hasNext(); ) {
+                    Map.Entry<String, LongAdder> entry = it.next();
+                    if (entry.getValue().sumThenReset() == 0) {
+                        it.remove();
+                        exact.reset(entry.getKey());
+                    }
+                }
+                currentWindow = window;
+            }
+        }
+        return window;
+    }
+
+    // 提升到精确级并按估计值预占额度（保守：视为刚刚发生），已满时淘汰本窗口命中最少的 key
+    private void promote(String key, int used, long now) {
+        synchronized (this) {
+            if (heavyHitters.containsKey(key)) {
+                return;
+            }
+            if (heavyHitters.size() >= maxHeavyHitters) {
+                String victim = null;
+                long fewest = Long.MAX_VALUE;
+                for (Map.Entry<String, LongAdder> entry : heavyHitters.entrySet()) {
+                    long sum = entry.getValue().sum();
+                    if (sum < fewest) {
+                        fewest = sum;
+                        victim = entry.getKey();
+                    }
+                }
+                heavyHitters.remove(victim);
+                exact.reset(victim);
+            }
+            heavyHitters.put(key, new LongAdder());
+            if (used > 0) {
+                exact.tryAcquireAt(key, Math.min(used, limit), now);
+            }
+        }
+    }
+}
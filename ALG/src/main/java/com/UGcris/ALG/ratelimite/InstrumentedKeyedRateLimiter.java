@@ -0,0 +1,55 @@
+package com.UGcris.ALG.ratelimite;
+
+/**
+ * 带指标统计的按 key 限流器包装（所有 key 合计）：记录放行/拒绝次数，并按采样率记录每次决策的耗时。
+ * 阻塞、超时与异步获取都经过 {@link #tryAcquire(String, int)}，每次重试都计为一次决策。
+ */
+public class InstrumentedKeyedRateLimiter implements KeyedRateLimiter {
+    private final KeyedRateLimiter target;
+    private final LimiterMetrics metrics;
+
+    public InstrumentedKeyedRateLimiter(String name, KeyedRateLimiter target) {
+        this(name, target, 1);
+    }
+
+    /**
+     * @param sampleEvery 平均每多少次决策记录一次耗时（向上取整到 2 的幂），1 表示每次都记录
+     */
+    public InstrumentedKeyedRateLimiter(String name, KeyedRateLimiter target, int sampleEvery) {
+        this.target = target;
+        this.metrics = new LimiterMetrics(name, target, sampleEvery);
+    }
+
+    @Override
+    public boolean tryAcquire(String key, int permits) {
+        if (!metrics.shouldSample()) {
+            return metrics.record(target.tryAcquire(key, permits));
+        }
+        long start = System.nanoTime();
+        boolean admitted = target.tryAcquire(key, permits);
+        return metrics.record(admitted, System.nanoTime() - start);
+    }
+
+    @Override
+    public long waitHintNanos(String key, int permits) {
+        return target.waitHintNanos(key, permits);
+    }
+
+    /**
+     * 被包装的限流器
+     */
+    public KeyedRateLimiter getTarget() {
+        return target;
+    }
+
+    /**
+     * 当前的指标
+     */
+    public LimiterMetricsSnapshot snapshot() {
+        return metrics.snapshot();
+    }
+
+    LimiterMetrics metrics() {
+        return metrics;
+    }
+}
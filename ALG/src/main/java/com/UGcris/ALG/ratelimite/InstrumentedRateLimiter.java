@@ -0,0 +1,55 @@
+package com.UGcris.ALG.ratelimite;
+
+/**
+ * 带指标统计的限流器包装：记录放行/拒绝次数，并按采样率记录每次决策的耗时。
+ * 阻塞、超时与异步获取都经过 {@link #tryAcquire(int)}，每次重试都计为一次决策。
+ */
+public class InstrumentedRateLimiter implements RateLimiter {
+    private final RateLimiter target;
+    private final LimiterMetrics metrics;
+
+    public InstrumentedRateLimiter(String name, RateLimiter target) {
+        this(name, target, 1);
+    }
+
+    /**
+     * @param sampleEvery 平均每多少次决策记录一次耗时（向上取整到 2 的幂），1 表示每次都记录
+     */
+    public InstrumentedRateLimiter(String name, RateLimiter target, int sampleEvery) {
+        this.target = target;
+        this.metrics = new LimiterMetrics(name, target, sampleEvery);
+    }
+
+    @Override
+    public boolean tryAcquire(int permits) {
+        if (!metrics.shouldSample()) {
+            return metrics.record(target.tryAcquire(permits));
+        }
+        long start = System.nanoTime();
+        boolean admitted = target.tryAcquire(permits);
+        return metrics.record(admitted, System.nanoTime() - start);
+    }
+
+    @Override
+    public long waitHintNanos(int permits) {
+        return target.waitHintNanos(permits);
+    }
+
+    /**
+     * 被包装的限流器
+     */
+    public RateLimiter getTarget() {
+        return target;
+    }
+
+    /**
+     * 当前的指标
+     */
+    public LimiterMetricsSnapshot snapshot() {
+        return metrics.snapshot();
+    }
+
+    LimiterMetrics metrics() {
+        return metrics;
+    }
+}
@@ -0,0 +1,179 @@
+package com.UGcris.ALG.ratelimite;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按 key 限流器的过期清理器（哈希时间轮）
+ * key 创建时按其预计过期时间放入时间轮对应的槽位，每次清理只处理已经到期的槽位，
+ * 且单次最多检查 maxKeysPerSweep 个 key，未处理完的留到下一次，不会整表 clear() 或长时间停顿。
+ * 到期的 key 交给 {@link ExpiryPolicy} 判断：窗口已完全过期则移除，否则按新的过期时间重新入轮。
+ */
+public class KeyExpirySweeper {
+
+    /** key 已被移除（计入回收数） */
+    public static final long REMOVED = -1;
+    /** key 已不存在（如已被 reset），无需处理 */
+    public static final long ABSENT = -2;
+
+    /**
+     * 由限流器实现的过期判断
+     */
+    public interface ExpiryPolicy {
+        /**
+         * @param key 到期的 key
+         * @param now 当前时间（纳秒）
+         * @return {@link #REMOVED}、{@link #ABSENT}，或该 key 下一次应检查的时间（纳秒）
+         */
+        long expireIfIdle(String key, long now);
+    }
+
+    // 时间轮中的一项
+    private static final class Entry {
+        final String key;
+        final long expireAt;
+
+        Entry(String key, long expireAt) {
+            this.key = key;
+            this.expireAt = expireAt;
+        }
+    }
+
+    // 槽位处理边界标记：处理过程中重新入轮的 key 排在它后面，本轮不会重复处理
+    private static final Entry SENTINEL = new Entry(null, 0);
+
+    private final ExpiryPolicy policy;
+    private final long tickNanos;                           // 每个槽位覆盖的时间（纳秒）
+    private final ConcurrentLinkedQueue<Entry>[] wheel;
+    private final int mask;
+    private final int maxKeysPerSweep;                      // 单次清理最多检查的 key 数
+    private final AtomicBoolean sweeping = new AtomicBoolean(false);
+    private final AtomicLong totalReclaimed = new AtomicLong();
+
+    private long nextTick;                                  // 下一个待处理的 tick（仅清理线程访问）
+    private boolean draining;                               // 当前槽位是否处理到一半
+    private volatile long nextSweepAt;                      // 下一次有槽位到期的时间（纳秒）
+    private volatile int lastSweepReclaimed;
+
+    /**
+     * @param policy          过期判断
+     * @param timeSource      与限流器相同的时钟
+     * @param tickNanos       每个槽位覆盖的时间（纳秒）
+     * @param wheelSize       槽位数（向上取整到 2 的幂）
+     * @param maxKeysPerSweep 单次清理最多检查的 key 数
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public KeyExpirySweeper(ExpiryPolicy policy, TimeSource timeSource, long tickNanos, int wheelSize, int maxKeysPerSweep) {
+        if (tickNanos <= 0 || wheelSize <= 0 || maxKeysPerSweep <= 0) {
+            throw new IllegalArgumentException("tickNanos, wheelSize and maxKeysPerSweep must be positive");
+        }
+        this.policy = policy;
+        this.tickNanos = tickNanos;
+        int size = wheelSize == 1 ? 1 : Integer.highestOneBit(wheelSize - 1) << 1;
+        this.mask = size - 1;
+        this.wheel = new ConcurrentLinkedQueue[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.maxKeysPerSweep = maxKeysPerSweep;
+
+        long now = timeSource.nanoTime();
+        this.nextTick = Math.floorDiv(now, tickNanos);
+        this.nextSweepAt = (nextTick + 1) * tickNanos;
+    }
+
+    /**
+     * 登记一个 key 的预计过期时间
+     */
+    public void schedule(String key, long expireAt) {
+        // 放入过期时间之后的第一个 tick，处理该槽位时其中的 key 都已到期
+        long tick = Math.floorDiv(expireAt - 1, tickNanos) + 1;
+        wheel[(int) tick & mask].offer(new Entry(key, expireAt));
+    }
+
+    /**
+     * 若有槽位到期且没有其他线程正在清理，则顺带执行一次清理（在请求线程上调用，开销为一次 volatile 读）
+     * @return 本次回收的 key 数
+     */
+    public int maybeSweep(long now) {
+        if (now - nextSweepAt < 0) {
+            return 0;
+        }
+        return sweep(now);
+    }
+
+    /**
+     * 处理所有已到期的槽位（最多检查 maxKeysPerSweep 个 key）
+     * @return 本次回收的 key 数；若其他线程正在清理则返回 0
+     */
+    public int sweep(long now) {
+        if (!sweeping.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            int reclaimed = 0;
+            int budget = maxKeysPerSweep;
+            long nowTick = Math.floorDiv(now, tickNanos);
+            // 超过一整圈未清理时，每个槽位最多处理一次即可
+            if (!draining && nowTick - nextTick > mask) {
+                nextTick = nowTick - mask;
+            }
+            while (nextTick <= nowTick && budget > 0) {
+                ConcurrentLinkedQueue<Entry> slot = wheel[(int) nextTick & mask];
+                if (!draining) {
+                    slot.offer(SENTINEL);
+                    draining = true;
+                }
+                boolean finished = false;
+                while (budget > 0) {
+                    Entry entry = slot.poll();
+                    if (entry == SENTINEL) {
+                        finished = true;
+                        break;
+                    }
+                    budget--;
+                    if (entry.expireAt - now > 0) {
+                        slot.offer(entry); // 属于之后某一圈，留在原槽位
+                        continue;
+                    }
+                    long next = policy.expireIfIdle(entry.key, now);
+                    if (next == REMOVED) {
+                        reclaimed++;
+                    } else if (next != ABSENT) {
+                        // 至少放到下一个 tick，避免落入正在处理的槽位而多等一整圈
+                        schedule(entry.key, Math.max(next, (nextTick + 1) * tickNanos));
+                    }
+                }
+                if (!finished && slot.peek() == SENTINEL) {
+                    slot.poll(); // 预算恰好用完时槽位也已处理完
+                    finished = true;
+                }
+                if (finished) {
+                    draining = false;
+                    nextTick++;
+                }
+            }
+            nextSweepAt = draining ? now : nextTick * tickNanos;
+            lastSweepReclaimed = reclaimed;
+            totalReclaimed.addAndGet(reclaimed);
+            return reclaimed;
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    /**
+     * 最近一次清理回收的 key 数
+     */
+    public int getLastSweepReclaimed() {
+        return lastSweepReclaimed;
+    }
+
+    /**
+     * 累计回收的 key 数
+     */
+    public long getTotalReclaimed() {
+        return totalReclaimed.get();
+    }
+}
@@ -0,0 +1,58 @@
+package com.UGcris.ALG.ratelimite;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按 key 限流的统一接口（如每个 IP、每个用户一份额度）
+ * 与 {@link RateLimiter} 相同，实现类只需提供非阻塞获取和等待提示，
+ * 阻塞、超时和异步获取通过 {@link #forKey(String)} 复用 RateLimiter 的默认实现。
+ */
+public interface KeyedRateLimiter {
+
+    /**
+     * 尝试立即为 key 获取许可，不等待
+     * @return true 表示允许，false 表示被限流
+     */
+    boolean tryAcquire(String key, int permits);
+
+    /**
+     * 估计 key 还需等待多久才可能获得 permits 个许可
+     * @return 纳秒数，0 表示可以立即重试；-1 表示永远无法获得
+     */
+    long waitHintNanos(String key, int permits);
+
+    default boolean tryAcquire(String key) {
+        return tryAcquire(key, 1);
+    }
+
+    /**
+     * 单个 key 的限流视图，不保存额外状态
+     */
+    default RateLimiter forKey(String key) {
+        KeyedRateLimiter keyed = this;
+        return new RateLimiter() {
+            @Override
+            public boolean tryAcquire(int permits) {
+                return keyed.tryAcquire(key, permits);
+            }
+
+            @Override
+            public long waitHintNanos(int permits) {
+                return keyed.waitHintNanos(key, permits);
+            }
+        };
+    }
+
+    default void acquire(String key, int permits) throws InterruptedException {
+        forKey(key).acquire(permits);
+    }
+
+    default boolean tryAcquire(String key, int permits, long timeout, TimeUnit unit) throws InterruptedException {
+        return forKey(key).tryAcquire(permits, timeout, unit);
+    }
+
+    default CompletableFuture<Void> acquireAsync(String key, int permits) {
+        return forKey(key).acquireAsync(permits);
+    }
+}
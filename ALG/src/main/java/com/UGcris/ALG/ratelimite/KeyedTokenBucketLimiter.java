@@ -0,0 +1,255 @@
+package com.UGcris.ALG.ratelimite;
+
+/**
+ * 按 key 的令牌桶限流器（如每个用户、每个 IP 一个桶）
+ * 桶状态与 {@link PackedTokenBucket} 相同：一个 long 记录“桶被取空的虚拟时间”。
+ * 所有桶存放在两个定长 long[] 中（key 指纹 + 桶状态，每个 key 16 字节），
+ * 按组相联方式组织：key 哈希到一个组，组内 WAYS 个槽位。
+ * 内存在构造时就已确定，不会随 key 的数量增长：
+ * 1. 已经补满的桶与“不存在”等价，可以直接复用（空闲淘汰）；
+ * 2. 组内没有空闲槽位时淘汰最接近补满的桶，新 key 继承其桶状态（未补满的令牌数），
+ *    key 数超过槽位数时各 key 互相淘汰也拿不到额外的令牌，只会更保守。
+ */
+public class KeyedTokenBucketLimiter implements RefundableKeyedRateLimiter, MeasurableLimiter {
+    private static final int WAYS = 8;              // 每组槽位数
+    private static final int MAX_LOCK_STRIPES = 1024;
+
+    private final int capacity;                     // 每个桶的最大容量
+    private final long nanosPerToken;               // 生成一个令牌需要的纳秒数
+    private final long burstNanos;                  // 装满整桶需要的纳秒数
+    private final int setMask;
+    private final long[] fingerprints;              // key 指纹，0 表示空槽
+    private final long[] emptyAt;                   // 桶被取空的虚拟时间（纳秒）
+    private final Object[] locks;                   // 分段锁，按组划分
+    private final int lockMask;
+    private final TimeSource timeSource;            // 时钟
+
+    public KeyedTokenBucketLimiter(double refillTokensPerSecond, int capacity, int maxKeys) {
+        this(refillTokensPerSecond, capacity, maxKeys, TimeSource.SYSTEM);
+    }
+
+    /**
+     * @param refillTokensPerSecond 每个桶每秒补充的令牌数
+     * @param capacity              每个桶的最大容量
+     * @param maxKeys               同时保存的最大 key 数（向上取整到 2 的幂）
+     * @param timeSource            时钟
+     */
+    public KeyedTokenBucketLimiter(double refillTokensPerSecond, int capacity, int maxKeys, TimeSource timeSource) {
+        if (refillTokensPerSecond <= 0 || capacity <= 0 || maxKeys <= 0) {
+            throw new IllegalArgumentException("refillTokensPerSecond, capacity and maxKeys must be positive");
+        }
+        this.capacity = capacity;
+        this.timeSource = timeSource;
+        this.nanosPerToken = Math.max(1L, Math.round(1_000_000_000.0 / refillTokensPerSecond));
+        this.burstNanos = Math.multiplyExact(nanosPerToken, (long) capacity);
+
+        int wantedSets = (maxKeys + WAYS - 1) / WAYS;
+        int sets = wantedSets <= 1 ? 1 : Integer.highestOneBit(wantedSets - 1) << 1;
+        this.setMask = sets - 1;
+        this.fingerprints = new long[sets * WAYS];
+        this.emptyAt = new long[sets * WAYS];
+
+        int stripes = Math.min(sets, MAX_LOCK_STRIPES);
+        this.lockMask = stripes - 1;
+        this.locks = new Object[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * 尝试为 key 获取一个令牌
+     * @param key 限流的标识（如 IP、用户 ID）
+     * @return true 表示允许，false 表示被限流
+     */
+    public boolean allow(String key) {
+        return allow(key, 1);
+    }
+
+    /**
+     * 尝试为 key 获取指定数量的令牌
+     */
+    public boolean allow(String key, int numTokens) {
+        return tryAcquireAt(key, numTokens, timeSource.nanoTime());
+    }
+
+    @Override
+    public boolean tryAcquireAt(String key, int numTokens, long now) {
+        if (key == null) return false;
+        if (numTokens <= 0) return true;
+        if (numTokens > capacity) return false;
+
+        long fp = Hashing.fingerprint(key);
+        int set = (int) fp & setMask;
+        long cost = numTokens * nanosPerToken;
+        synchronized (locks[set & lockMask]) {
+            int slot = findOrClaim(set, fp, now);
+            long base = Math.max(emptyAt[slot], now - burstNanos);
+            long updated = base + cost;
+            if (updated - now > 0) {
+                return false; // 令牌不足
+            }
+            emptyAt[slot] = updated;
+            return true;
+        }
+    }
+
+    @Override
+    public boolean tryAcquire(String key, int permits) {
+        return allow(key, permits);
+    }
+
+    /**
+     * 归还令牌，key 已被淘汰时忽略
+     */
+    @Override
+    public void refund(String key, int permits, long now) {
+        if (key == null || permits <= 0) return;
+        long fp = Hashing.fingerprint(key);
+        int set = (int) fp & setMask;
+        synchronized (locks[set & lockMask]) {
+            int start = set * WAYS;
+            for (int i = start; i < start + WAYS; i++) {
+                if (fingerprints[i] == fp) {
+                    emptyAt[i] -= permits * nanosPerToken;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * key 还需等待多久才能攒够 permits 个令牌，不存在的 key 视为满桶
+     */
+    @Override
+    public long waitHintNanos(String key, int permits) {
+        if (key == null || permits > capacity) return -1;
+        if (permits <= 0) return 0;
+        long fp = Hashing.fingerprint(key);
+        int set = (int) fp & setMask;
+        synchronized (locks[set & lockMask]) {
+            long now = timeSource.nanoTime();
+            int start = set * WAYS;
+            for (int i = start; i < start + WAYS; i++) {
+                if (fingerprints[i] == fp) {
+                    long base = Math.max(emptyAt[i], now - burstNanos);
+                    return Math.max(0, base + permits * nanosPerToken - now);
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * 获取 key 当前剩余令牌数（用于监控），不存在的 key 视为满桶
+     */
+    public int getAvailableTokens(String key) {
+        long fp = Hashing.fingerprint(key);
+        int set = (int) fp & setMask;
+        synchronized (locks[set & lockMask]) {
+            long now = timeSource.nanoTime();
+            int start = set * WAYS;
+            for (int i = start; i < start + WAYS; i++) {
+                if (fingerprints[i] == fp) {
+                    long base = Math.max(emptyAt[i], now - burstNanos);
+                    return (int) ((now - base) / nanosPerToken);
+                }
+            }
+            return capacity;
+        }
+    }
+
+    /**
+     * 清除所有已经补满的桶（与不存在等价）
+     * @return 本次回收的 key 数
+     */
+    public int evictIdle() {
+        int evicted = 0;
+        for (int set = 0; set <= setMask; set++) {
+            synchronized (locks[set & lockMask]) {
+                long idleBefore = timeSource.nanoTime() - burstNanos;
+                int start = set * WAYS;
+                for (int i = start; i < start + WAYS; i++) {
+                    if (fingerprints[i] != 0 && emptyAt[i] - idleBefore <= 0) {
+                        fingerprints[i] = 0;
+                        evicted++;
+                    }
+                }
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * 当前占用的槽位数（含已补满但尚未被复用的桶）
+     */
+    public int size() {
+        int size = 0;
+        for (int set = 0; set <= setMask; set++) {
+            synchronized (locks[set & lockMask]) {
+                int start = set * WAYS;
+                for (int i = start; i < start + WAYS; i++) {
+                    if (fingerprints[i] != 0) size++;
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 最多可同时保存的 key 数
+     */
+    public int maxKeys() {
+        return fingerprints.length;
+    }
+
+    /**
+     * 桶状态占用的内存（字节），构造后固定不变
+     */
+    @Override
+    public long estimatedMemoryBytes() {
+        return (long) fingerprints.length * Long.BYTES * 2;
+    }
+
+    // 在组内查找 key，不存在时按 空槽 > 最接近补满（含已补满）的顺序占用一个槽位（需持有该组的锁）
+    // 空槽从满桶开始，淘汰的槽位保留原桶状态：已补满时等同满桶，未补满时新 key 只能用剩余的令牌
+    private int findOrClaim(int set, long fp, long now) {
+        int start = set * WAYS;
+        int empty = -1;
+        int oldest = start;
+        for (int i = start; i < start + WAYS; i++) {
+            long f = fingerprints[i];
+            if (f == fp) {
+                return i;
+            }
+            if (f == 0) {
+                if (empty < 0) empty = i;
+            } else if (emptyAt[i] < emptyAt[oldest] || fingerprints[oldest] == 0) {
+                oldest = i;
+            }
+        }
+        if (empty >= 0) {
+            fingerprints[empty] = fp;
+            emptyAt[empty] = now - burstNanos;
+            return empty;
+        }
+        fingerprints[oldest] = fp;
+        return oldest;
+    }
+
+    /**
+     * 基于锁实现，没有 CAS 重试
+     */
+    @Override
+    public long getCasRetries() {
+        return 0;
+    }
+
+    /**
+     * 当前占用的槽位数
+     */
+    @Override
+    public int getKeyCount() {
+        return size();
+    }
+}
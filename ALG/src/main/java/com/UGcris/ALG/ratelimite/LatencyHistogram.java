@@ -0,0 +1,123 @@
+package com.UGcris.ALG.ratelimite;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无分配的并发延迟直方图（HdrHistogram 式的对数-线性分桶）
+ * 每个 2 的幂区间再均分为 16 个子桶，相对误差约 6%；小于 16ns 的值精确记录，
+ * 超过 2^41ns（约 36 分钟）的值计入最后一个桶。
+ * 计数按线程分散到多个条带上，记录一次只是一次 getAndIncrement，不分配对象；
+ * 百分位数在读取时合并各条带计算。
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_BIT = 40;                          // 可区分的最高位
+    private static final long MAX_VALUE = (1L << (MAX_BIT + 1)) - 1;
+    static final int BUCKETS = (MAX_BIT - SUB_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts;     // 条带 i 占用 [i * BUCKETS, (i + 1) * BUCKETS)
+    private final int stripeMask;
+    private final AtomicLong max = new AtomicLong();
+
+    public LatencyHistogram() {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        int stripes = Math.min(8, Integer.highestOneBit(Math.max(1, cpus - 1)) << 1);
+        this.stripeMask = stripes - 1;
+        this.counts = new AtomicLongArray(stripes * BUCKETS);
+    }
+
+    /**
+     * 记录一次耗时（纳秒），负数按 0 计
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        int stripe = (int) Thread.currentThread().getId() & stripeMask;
+        counts.getAndIncrement(stripe * BUCKETS + indexOf(value));
+        long current;
+        while (value > (current = max.get())) {
+            if (max.compareAndSet(current, value)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * 记录的总次数
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * 记录过的最大值（纳秒）
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * 第 percentile（0~100）百分位的耗时（纳秒），返回所在子桶的上界，不超过最大值；没有记录时为 0
+     */
+    public long getValueAtPercentile(double percentile) {
+        long[] merged = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            long c = counts.get(i);
+            merged[i % BUCKETS] += c;
+            total += c;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100, percentile) / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += merged[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * 清空所有记录（与并发的 record 之间不保证原子性）
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        max.set(0);
+    }
+
+    // 最高位为 msb 的值落在第 msb - SUB_BITS + 1 组，组内按接下来的 SUB_BITS 位再分
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        long v = Math.min(value, MAX_VALUE);
+        int shift = 63 - Long.numberOfLeadingZeros(v) - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((v >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    static long lowerBoundOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        return (long) (SUB_BUCKETS + (index & (SUB_BUCKETS - 1))) << shift;
+    }
+
+    static long upperBoundOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        return lowerBoundOf(index) + (1L << (index / SUB_BUCKETS - 1)) - 1;
+    }
+}
@@ -1,28 +1,42 @@
 package com.UGcris.ALG.ratelimite;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 /**
  * 漏桶算法
+ * 水量以纳秒为单位定点记账：桶状态是“桶将被漏空的时间”drainedAt，
+ * 当前水量 = (drainedAt - now) / nanosPerDrop，因此支持任意小数漏水速率（如 0.5 个/秒）。
+ * 使用单调时钟 System.nanoTime()，不受系统时间调整影响。
+ * 除了 allow() 的放行/拒绝语义外，tryReserve() 把漏桶当作队列使用，返回调用方应等待的时间。
  */
-public class LeakyBucketAlgorithm {
+public class LeakyBucketAlgorithm implements RefundableRateLimiter, MeasurableLimiter {
     private final int capacity;           // 桶的容量（最多容纳多少请求）
-    private final int leakRatePerMs;      // 每毫秒“漏水”（处理）的请求数
-    private final AtomicReference<Bucket> bucketRef;// 桶的状态，包含当前水量和上次漏水时间
+    private final long nanosPerDrop;      // 漏出一个请求需要的纳秒数
+    private final long maxLevelNanos;     // 满桶对应的水位 = capacity * nanosPerDrop
+    private final AtomicLong drainedAt;   // 桶将被漏空的时间（纳秒），早于当前时间表示桶是空的
+    private final TimeSource timeSource;  // 时钟
+    private final LongAdder casRetries = new LongAdder();   // 决策路径上 CAS 失败重试的次数
 
-    private static class Bucket {
-        final int water;           // 当前水量（请求数）
-        final long lastLeakTime;   // 上次漏水时间（毫秒）
+    public LeakyBucketAlgorithm(int capacity, int leakRatePerSecond) {
+        this(capacity, (double) leakRatePerSecond);
+    }
 
-        Bucket(int water, long lastLeakTime) {
-            this.water = water;
-            this.lastLeakTime = lastLeakTime;
-        }
+    /**
+     * @param capacity          桶的容量
+     * @param leakRatePerSecond 每秒漏出（处理）的请求数，可以是小数
+     */
+    public LeakyBucketAlgorithm(int capacity, double leakRatePerSecond) {
+        this(capacity, leakRatePerSecond, TimeSource.SYSTEM);
     }
 
-    public LeakyBucketAlgorithm(int capacity, int leakRatePerSecond) {
+    public LeakyBucketAlgorithm(int capacity, double leakRatePerSecond, TimeSource timeSource) {
+        if (capacity <= 0 || leakRatePerSecond <= 0) {
+            throw new IllegalArgumentException("capacity and leakRatePerSecond must be positive");
+        }
         this.capacity = capacity;
-        this.leakRatePerMs = leakRatePerSecond / 1000;
-        this.bucketRef = new AtomicReference<>(new Bucket(0, System.currentTimeMillis()));
+        this.nanosPerDrop = Math.max(1L, Math.round(1_000_000_000.0 / leakRatePerSecond));
+        this.maxLevelNanos = Math.multiplyExact(nanosPerDrop, (long) capacity);
+        this.timeSource = timeSource;
+        this.drainedAt = new AtomicLong(timeSource.nanoTime());
     }
 
     /**
@@ -30,50 +44,95 @@ public class LeakyBucketAlgorithm {
      * @return true 表示成功加入桶中（允许），false 表示桶满被拒绝
      */
     public boolean allow() {
-        long now = System.currentTimeMillis();
-        while (true) {
-            Bucket oldBucket = bucketRef.get();
-            Bucket newBucket = leakAndAdd(oldBucket, now, 1);
-            if (bucketRef.compareAndSet(oldBucket, newBucket)) {
-                return newBucket.water <= capacity;
-            }
-        }
+        return tryReserve(1) >= 0;
     }
+
     public boolean allow(int request) {
-        long now = System.currentTimeMillis();
-        while (true) {
-            Bucket oldBucket = bucketRef.get();
-            Bucket newBucket = leakAndAdd(oldBucket, now, request);
-            if (bucketRef.compareAndSet(oldBucket, newBucket)) {
-                return newBucket.water <= capacity;
-            }
-        }
+        if (request <= 0) return true;
+        return tryReserve(request) >= 0;
     }
 
-    private Bucket leakAndAdd(Bucket oldBucket, long now, int request) {
-        // 计算从上次漏水到现在应该漏掉多少水
-        long elapsedMs = now - oldBucket.lastLeakTime;
-        int leakedWater = (int) (elapsedMs * leakRatePerMs);
-        int currentWater = Math.max(0, oldBucket.water - leakedWater);
+    @Override
+    public boolean tryAcquire(int permits) {
+        return allow(permits);
+    }
 
-        // 更新时间
-        long newTime = now;
+    /**
+     * 还需等待多久桶内才能腾出 permits 个请求的空间
+     */
+    @Override
+    public long waitHintNanos(int permits) {
+        if (permits <= 0) return 0;
+        if (permits > capacity) return -1;
+        long now = timeSource.nanoTime();
+        long level = Math.max(drainedAt.get(), now);
+        return Math.max(0, level + permits * nanosPerDrop - now - maxLevelNanos);
+    }
 
-        // 尝试加入新请求
-        if (currentWater + request <= capacity) {
-            return new Bucket(currentWater + request, newTime);
-        } else {
-            // 桶满，拒绝请求，但状态不变
-            return oldBucket;
+    /**
+     * 以队列方式加入请求：桶未满则加入，并返回这些请求排到出口前需要等待的时间
+     * @param request 请求数
+     * @return 需要等待的纳秒数（0 表示可以立即处理），-1 表示桶满被拒绝
+     */
+    public long tryReserve(int request) {
+        if (request <= 0) return 0;
+        if (request > capacity) return -1;
+        return reserve(request, timeSource.nanoTime());
+    }
+
+    @Override
+    public boolean tryAcquireAt(int permits, long now) {
+        if (permits <= 0) return true;
+        if (permits > capacity) return false;
+        return reserve(permits, now) >= 0;
+    }
+
+    /**
+     * 取回加入的水：漏空时间前移，早于当前时间时等价于空桶
+     */
+    @Override
+    public void refund(int permits, long now) {
+        if (permits > 0) {
+            drainedAt.addAndGet(-permits * nanosPerDrop);
         }
     }
 
-    // 获取当前水量（用于监控）
+    private long reserve(int request, long now) {
+        long added = request * nanosPerDrop;
+        while (true) {
+            long old = drainedAt.get();
+            // 已漏空时从当前时间开始计算水位
+            long level = Math.max(old, now);
+            long updated = level + added;
+            if (updated - now > maxLevelNanos) {
+                return -1; // 桶满，拒绝请求，状态不变
+            }
+            if (drainedAt.compareAndSet(old, updated)) {
+                return level - now; // 前面的水漏完之前需要等待的时间
+            }
+            casRetries.increment();
+        }
+    }
+
+    // 获取当前水量（用于监控），不足一个请求的部分向上取整
     public int getCurrentWater() {
-        Bucket bucket = bucketRef.get();
-        long now = System.currentTimeMillis();
-        long elapsedMs = now - bucket.lastLeakTime;
-        int leakedWater = (int) (elapsedMs * leakRatePerMs);
-        return Math.max(0, bucket.water - leakedWater);
+        long remaining = drainedAt.get() - timeSource.nanoTime();
+        if (remaining <= 0) {
+            return 0;
+        }
+        return (int) ((remaining + nanosPerDrop - 1) / nanosPerDrop);
+    }
+
+    @Override
+    public long getCasRetries() {
+        return casRetries.sum();
+    }
+
+    /**
+     * 对象与一个 AtomicLong 的固定开销
+     */
+    @Override
+    public long estimatedMemoryBytes() {
+        return 64;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,53 @@
+package com.UGcris.ALG.ratelimite;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一个被包装限流器的计数与耗时统计，由 {@link InstrumentedRateLimiter}、{@link InstrumentedKeyedRateLimiter} 共用
+ */
+final class LimiterMetrics {
+    private final String name;
+    private final Object target;
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final int sampleMask;           // 每 sampleMask + 1 次决策抽样一次耗时
+
+    LimiterMetrics(String name, Object target, int sampleEvery) {
+        if (sampleEvery <= 0) {
+            throw new IllegalArgumentException("sampleEvery must be positive");
+        }
+        this.name = name;
+        this.target = target;
+        this.sampleMask = sampleEvery == 1 ? 0 : (Integer.highestOneBit(sampleEvery - 1) << 1) - 1;
+    }
+
+    boolean shouldSample() {
+        return sampleMask == 0 || (ThreadLocalRandom.current().nextInt() & sampleMask) == 0;
+    }
+
+    boolean record(boolean admitted) {
+        (admitted ? allowed : rejected).increment();
+        return admitted;
+    }
+
+    boolean record(boolean admitted, long elapsedNanos) {
+        latency.record(elapsedNanos);
+        return record(admitted);
+    }
+
+    LimiterMetricsSnapshot snapshot() {
+        long casRetries = 0;
+        int keyCount = 1;
+        long memory = 0;
+        if (target instanceof MeasurableLimiter) {
+            MeasurableLimiter measurable = (MeasurableLimiter) target;
+            casRetries = measurable.getCasRetries();
+            keyCount = measurable.getKeyCount();
+            memory = measurable.estimatedMemoryBytes();
+        }
+        return new LimiterMetricsSnapshot(name, target.getClass().getSimpleName(), allowed.sum(), rejected.sum(),
+                casRetries, keyCount, memory, latency);
+    }
+}
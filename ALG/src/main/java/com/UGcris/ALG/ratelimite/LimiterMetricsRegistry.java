@@ -0,0 +1,67 @@
+package com.UGcris.ALG.ratelimite;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 限流器指标的注册中心：注册时返回带统计的包装，调用方使用包装代替原限流器，
+ * {@link #snapshot()} 随时导出所有限流器的指标（供监控端点或程序内部读取）
+ */
+public class LimiterMetricsRegistry {
+    private final Map<String, LimiterMetrics> metrics = new ConcurrentSkipListMap<>();
+    private final int sampleEvery;
+
+    public LimiterMetricsRegistry() {
+        this(1);
+    }
+
+    /**
+     * @param sampleEvery 平均每多少次决策记录一次耗时，1 表示每次都记录
+     */
+    public LimiterMetricsRegistry(int sampleEvery) {
+        this.sampleEvery = sampleEvery;
+    }
+
+    /**
+     * 注册一个限流器，同名的旧注册被替换
+     */
+    public InstrumentedRateLimiter register(String name, RateLimiter limiter) {
+        InstrumentedRateLimiter instrumented = new InstrumentedRateLimiter(name, limiter, sampleEvery);
+        metrics.put(name, instrumented.metrics());
+        return instrumented;
+    }
+
+    /**
+     * 注册一个按 key 限流器，同名的旧注册被替换
+     */
+    public InstrumentedKeyedRateLimiter register(String name, KeyedRateLimiter limiter) {
+        InstrumentedKeyedRateLimiter instrumented = new InstrumentedKeyedRateLimiter(name, limiter, sampleEvery);
+        metrics.put(name, instrumented.metrics());
+        return instrumented;
+    }
+
+    public void unregister(String name) {
+        metrics.remove(name);
+    }
+
+    /**
+     * 所有限流器的当前指标，按名称排序
+     */
+    public List<LimiterMetricsSnapshot> snapshot() {
+        List<LimiterMetricsSnapshot> snapshots = new ArrayList<>(metrics.size());
+        for (LimiterMetrics m : metrics.values()) {
+            snapshots.add(m.snapshot());
+        }
+        return snapshots;
+    }
+
+    /**
+     * 指定限流器的当前指标，未注册时返回 null
+     */
+    public LimiterMetricsSnapshot snapshot(String name) {
+        LimiterMetrics m = metrics.get(name);
+        return m == null ? null : m.snapshot();
+    }
+}
@@ -0,0 +1,106 @@
+package com.UGcris.ALG.ratelimite;
+
+/**
+ * 某个限流器在某一时刻的指标（不可变），由 {@link LimiterMetricsRegistry#snapshot()} 生成，可直接序列化为 JSON
+ */
+public class LimiterMetricsSnapshot {
+    private final String name;
+    private final String type;
+    private final long allowed;
+    private final long rejected;
+    private final long casRetries;
+    private final int keyCount;
+    private final long estimatedMemoryBytes;
+    private final long latencySamples;
+    private final long latencyP50Nanos;
+    private final long latencyP90Nanos;
+    private final long latencyP99Nanos;
+    private final long latencyP999Nanos;
+    private final long latencyMaxNanos;
+
+    LimiterMetricsSnapshot(String name, String type, long allowed, long rejected, long casRetries,
+                           int keyCount, long estimatedMemoryBytes, LatencyHistogram latency) {
+        this.name = name;
+        this.type = type;
+        this.allowed = allowed;
+        this.rejected = rejected;
+        this.casRetries = casRetries;
+        this.keyCount = keyCount;
+        this.estimatedMemoryBytes = estimatedMemoryBytes;
+        this.latencySamples = latency.getCount();
+        this.latencyP50Nanos = latency.getValueAtPercentile(50);
+        this.latencyP90Nanos = latency.getValueAtPercentile(90);
+        this.latencyP99Nanos = latency.getValueAtPercentile(99);
+        this.latencyP999Nanos = latency.getValueAtPercentile(99.9);
+        this.latencyMaxNanos = latency.getMax();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 被包装的限流器类名
+     */
+    public String getType() {
+        return type;
+    }
+
+    public long getAllowed() {
+        return allowed;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * CAS 失败重试次数，限流器未实现 {@link MeasurableLimiter} 时为 0
+     */
+    public long getCasRetries() {
+        return casRetries;
+    }
+
+    public int getKeyCount() {
+        return keyCount;
+    }
+
+    public long getEstimatedMemoryBytes() {
+        return estimatedMemoryBytes;
+    }
+
+    /**
+     * 参与耗时统计的决策次数（按采样率抽样）
+     */
+    public long getLatencySamples() {
+        return latencySamples;
+    }
+
+    public long getLatencyP50Nanos() {
+        return latencyP50Nanos;
+    }
+
+    public long getLatencyP90Nanos() {
+        return latencyP90Nanos;
+    }
+
+    public long getLatencyP99Nanos() {
+        return latencyP99Nanos;
+    }
+
+    public long getLatencyP999Nanos() {
+        return latencyP999Nanos;
+    }
+
+    public long getLatencyMaxNanos() {
+        return latencyMaxNanos;
+    }
+
+    @Override
+    public String toString() {
+        return name + "{type=" + type + ", allowed=" + allowed + ", rejected=" + rejected
+                + ", casRetries=" + casRetries + ", keys=" + keyCount + ", memory=" + estimatedMemoryBytes
+                + "B, p50=" + latencyP50Nanos + "ns, p99=" + latencyP99Nanos + "ns, p999=" + latencyP999Nanos
+                + "ns, max=" + latencyMaxNanos + "ns}";
+    }
+}
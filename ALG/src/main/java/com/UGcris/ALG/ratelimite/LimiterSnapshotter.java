@@ -0,0 +1,102 @@
+package com.UGcris.ALG.ratelimite;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 限流器快照的保存与恢复
+ * 启动时 restore() 读回上次的状态；start() 后定时保存；close() 或 JVM 退出时再保存一次。
+ * 保存时先写临时文件再原子替换，写到一半崩溃也不会破坏上一份快照。
+ */
+public class LimiterSnapshotter implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(LimiterSnapshotter.class.getName());
+
+    private final Snapshottable limiter;
+    private final Path file;
+    private ScheduledExecutorService scheduler;
+    private Thread shutdownHook;
+
+    public LimiterSnapshotter(Snapshottable limiter, Path file) {
+        this.limiter = limiter;
+        this.file = file;
+    }
+
+    /**
+     * 读回快照，文件不存在时什么也不做
+     * @return 恢复的 key 数
+     */
+    public int restore() throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return limiter.readSnapshot(channel);
+        }
+    }
+
+    /**
+     * 立即保存一次快照
+     */
+    public synchronized void save() throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            limiter.writeSnapshot(channel);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 开始定时保存，并在 JVM 退出时保存最后一次
+     */
+    public synchronized void start(long period, TimeUnit unit) {
+        if (scheduler != null) {
+            throw new IllegalStateException("already started");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "limiter-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::saveQuietly, period, period, unit);
+        shutdownHook = new Thread(this::saveQuietly, "limiter-snapshot-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * 停止定时保存并保存最后一次
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (scheduler != null) {
+                scheduler.shutdownNow();
+                scheduler = null;
+                try {
+                    Runtime.getRuntime().removeShutdownHook(shutdownHook);
+                } catch (IllegalStateException e) {
+                    // JVM 正在退出，钩子会自行保存
+                }
+                shutdownHook = null;
+            }
+        }
+        save();
+    }
+
+    private void saveQuietly() {
+        try {
+            save();
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.WARNING, "failed to save limiter snapshot to " + file, e);
+        }
+    }
+}
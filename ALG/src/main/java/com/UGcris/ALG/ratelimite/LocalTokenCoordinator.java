@@ -0,0 +1,53 @@
+package com.UGcris.ALG.ratelimite;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进程内的令牌协调者：全局额度就是一个 {@link TokenBucketAlgorithm}
+ * 多个 {@link DistributedTokenBucket} 共享同一实例即可模拟多个节点。
+ */
+public class LocalTokenCoordinator implements TokenCoordinator {
+    private final TokenBucketAlgorithm globalBucket;
+    private final AtomicLong leaseCount = new AtomicLong();    // 租约请求次数
+    private final AtomicLong leasedTokens = new AtomicLong();  // 累计租出的令牌数
+    private final AtomicLong releasedTokens = new AtomicLong(); // 累计归还的令牌数
+
+    public LocalTokenCoordinator(double refillTokensPerSecond, int capacity) {
+        this(new TokenBucketAlgorithm(refillTokensPerSecond, capacity));
+    }
+
+    public LocalTokenCoordinator(TokenBucketAlgorithm globalBucket) {
+        this.globalBucket = globalBucket;
+    }
+
+    @Override
+    public int lease(String nodeId, int requested) {
+        leaseCount.incrementAndGet();
+        int granted = globalBucket.takeUpTo(requested);
+        leasedTokens.addAndGet(granted);
+        return granted;
+    }
+
+    @Override
+    public void release(String nodeId, int tokens) {
+        releasedTokens.addAndGet(tokens);
+        globalBucket.giveBack(tokens);
+    }
+
+    @Override
+    public long waitHintNanos(int tokens) {
+        return globalBucket.waitHintNanos(tokens);
+    }
+
+    public long getLeaseCount() {
+        return leaseCount.get();
+    }
+
+    public long getLeasedTokens() {
+        return leasedTokens.get();
+    }
+
+    public long getReleasedTokens() {
+        return releasedTokens.get();
+    }
+}
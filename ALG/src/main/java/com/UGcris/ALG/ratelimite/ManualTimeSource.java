@@ -0,0 +1,38 @@
+package com.UGcris.ALG.ratelimite;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 手动推进的时钟，用于单元测试与抓包流量回放（可以比真实时间快任意倍）
+ */
+public class ManualTimeSource implements TimeSource {
+    private final AtomicLong now;
+
+    public ManualTimeSource() {
+        this(0);
+    }
+
+    public ManualTimeSource(long startNanos) {
+        this.now = new AtomicLong(startNanos);
+    }
+
+    @Override
+    public long nanoTime() {
+        return now.get();
+    }
+
+    /**
+     * 时间前进指定时长
+     */
+    public void advance(long duration, TimeUnit unit) {
+        now.addAndGet(unit.toNanos(duration));
+    }
+
+    /**
+     * 直接设置当前时间（纳秒），回放时使用抓包记录的时间戳
+     */
+    public void set(long nanos) {
+        now.set(nanos);
+    }
+}
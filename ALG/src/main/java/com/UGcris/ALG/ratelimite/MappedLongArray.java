@@ -0,0 +1,106 @@
+package com.UGcris.ALG.ratelimite;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.MappedByteBuffer;
+
+/**
+ * 内存映射文件上的 long 数组，支持跨进程的 volatile 读写与 CAS
+ * MappedByteBuffer 本身没有原子操作，这里直接对映射内存地址使用 Unsafe；
+ * 映射地址按页对齐，下标按 8 字节寻址，保证每个 long 都是对齐的，CAS 在多个进程间同样有效。
+ * 所有数据都按本机字节序存取，共享同一文件的进程必须运行在同一台机器上。
+ * Unsafe 只在类初始化时反射查找一次，各操作绑定为 static final 的 MethodHandle（JIT 会内联），
+ * 源码不引用 sun.misc 的类型，编译时没有内部 API 警告。
+ */
+final class MappedLongArray {
+    private static final MethodHandle GET_LONG_VOLATILE;    // (Object, long) long
+    private static final MethodHandle PUT_LONG_VOLATILE;    // (Object, long, long) void
+    private static final MethodHandle COMPARE_AND_SWAP_LONG;    // (Object, long, long, long) boolean
+    private static final MethodHandle GET_LONG;             // (Object, long) long，读取 Buffer.address
+    private static final long ADDRESS_OFFSET;
+
+    static {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            Object unsafe = field.get(null);
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            GET_LONG_VOLATILE = lookup.findVirtual(unsafeClass, "getLongVolatile",
+                    MethodType.methodType(long.class, Object.class, long.class)).bindTo(unsafe);
+            PUT_LONG_VOLATILE = lookup.findVirtual(unsafeClass, "putLongVolatile",
+                    MethodType.methodType(void.class, Object.class, long.class, long.class)).bindTo(unsafe);
+            COMPARE_AND_SWAP_LONG = lookup.findVirtual(unsafeClass, "compareAndSwapLong",
+                    MethodType.methodType(boolean.class, Object.class, long.class, long.class, long.class)).bindTo(unsafe);
+            GET_LONG = lookup.findVirtual(unsafeClass, "getLong",
+                    MethodType.methodType(long.class, Object.class, long.class)).bindTo(unsafe);
+            MethodHandle objectFieldOffset = lookup.findVirtual(unsafeClass, "objectFieldOffset",
+                    MethodType.methodType(long.class, Field.class)).bindTo(unsafe);
+            ADDRESS_OFFSET = (long) objectFieldOffset.invokeExact(Buffer.class.getDeclaredField("address"));
+        } catch (Throwable e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final MappedByteBuffer buffer;  // 持有引用，防止映射被回收
+    private final long address;
+    private final int length;
+
+    MappedLongArray(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        try {
+            this.address = (long) GET_LONG.invokeExact((Object) buffer, ADDRESS_OFFSET);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+        this.length = buffer.capacity() / Long.BYTES;
+    }
+
+    int length() {
+        return length;
+    }
+
+    long get(int index) {
+        long address = addressOf(index);
+        try {
+            return (long) GET_LONG_VOLATILE.invokeExact((Object) null, address);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    void set(int index, long value) {
+        long address = addressOf(index);
+        try {
+            PUT_LONG_VOLATILE.invokeExact((Object) null, address, value);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    boolean compareAndSet(int index, long expected, long updated) {
+        long address = addressOf(index);
+        try {
+            return (boolean) COMPARE_AND_SWAP_LONG.invokeExact((Object) null, address, expected, updated);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 把修改写回磁盘
+     */
+    void force() {
+        buffer.force();
+    }
+
+    private long addressOf(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+        }
+        return address + ((long) index << 3);
+    }
+}
@@ -0,0 +1,30 @@
+package com.UGcris.ALG.ratelimite;
+
+/**
+ * 可观测的限流器：暴露内部竞争程度、key 数量与内存占用，
+ * 与 {@link InstrumentedRateLimiter} 统计的放行/拒绝次数、决策耗时一起组成 {@link LimiterMetricsSnapshot}
+ */
+public interface MeasurableLimiter {
+
+    /**
+     * 每个 key 在 ConcurrentHashMap 中的估计开销（节点、桶、典型的短字符串 key），用于内存估算
+     */
+    int ESTIMATED_KEY_BYTES = 120;
+
+    /**
+     * 决策路径上 CAS 失败重试的次数，反映并发竞争程度；基于锁的实现为 0
+     */
+    long getCasRetries();
+
+    /**
+     * 当前保存状态的 key 数，不区分 key 的限流器为 1
+     */
+    default int getKeyCount() {
+        return 1;
+    }
+
+    /**
+     * 状态占用内存的粗略估计（字节）
+     */
+    long estimatedMemoryBytes();
+}
@@ -0,0 +1,125 @@
+package com.UGcris.ALG.ratelimite;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 令牌桶算法（生产模式）
+ * 桶状态压缩为一个 AtomicLong：记录“桶被取空的虚拟时间”emptyAt（纳秒），
+ * 当前令牌数 = (now - emptyAt) / nanosPerToken，上限为 capacity。
+ * 相当于以纳秒为单位的定点数记账，支持小数速率；
+ * allow() 在放行和拒绝路径上都不分配对象、不打印日志。
+ */
+public class PackedTokenBucket implements RefundableRateLimiter, MeasurableLimiter {
+    private final int capacity;             // 桶的最大容量
+    private final long nanosPerToken;       // 生成一个令牌需要的纳秒数
+    private final long burstNanos;          // 装满整桶需要的纳秒数 = capacity * nanosPerToken
+    private final AtomicLong emptyAt;       // 桶被取空的虚拟时间（纳秒）
+    private final TimeSource timeSource;    // 时钟
+    private final LongAdder casRetries = new LongAdder();   // 决策路径上 CAS 失败重试的次数
+
+    public PackedTokenBucket(double refillTokensPerSecond, int capacity) {
+        this(refillTokensPerSecond, capacity, TimeSource.SYSTEM);
+    }
+
+    public PackedTokenBucket(double refillTokensPerSecond, int capacity, TimeSource timeSource) {
+        if (refillTokensPerSecond <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("refillTokensPerSecond and capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.nanosPerToken = Math.max(1L, Math.round(1_000_000_000.0 / refillTokensPerSecond));
+        this.burstNanos = Math.multiplyExact(nanosPerToken, (long) capacity);
+        this.timeSource = timeSource;
+        this.emptyAt = new AtomicLong(timeSource.nanoTime() - burstNanos); // 初始时桶是满的
+    }
+
+    /**
+     * 尝试获取一个令牌
+     * @return true 表示获取成功（允许请求），false 表示被限流
+     */
+    public boolean allow() {
+        return tryConsume(1, timeSource.nanoTime());
+    }
+
+    /**
+     * 尝试获取指定数量的令牌
+     * @param numTokens 要获取的令牌数
+     * @return true 表示成功，false 表示令牌不足
+     */
+    public boolean allow(int numTokens) {
+        if (numTokens <= 0) return true;
+        if (numTokens > capacity) return false;
+        return tryConsume(numTokens, timeSource.nanoTime());
+    }
+
+    @Override
+    public boolean tryAcquire(int permits) {
+        return allow(permits);
+    }
+
+    /**
+     * 还需等待多久才能攒够 permits 个令牌（精确值）
+     */
+    @Override
+    public long waitHintNanos(int permits) {
+        if (permits <= 0) return 0;
+        if (permits > capacity) return -1;
+        long now = timeSource.nanoTime();
+        long base = Math.max(emptyAt.get(), now - burstNanos);
+        return Math.max(0, base + permits * nanosPerToken - now);
+    }
+
+    @Override
+    public boolean tryAcquireAt(int permits, long now) {
+        if (permits <= 0) return true;
+        if (permits > capacity) return false;
+        return tryConsume(permits, now);
+    }
+
+    /**
+     * 归还令牌：桶被取空的时间前移，超出容量的部分自然被上限截掉
+     */
+    @Override
+    public void refund(int permits, long now) {
+        if (permits > 0) {
+            emptyAt.addAndGet(-permits * nanosPerToken);
+        }
+    }
+
+    private boolean tryConsume(int numTokens, long now) {
+        long cost = numTokens * nanosPerToken;
+        while (true) {
+            long old = emptyAt.get();
+            // 桶最多攒满 capacity 个令牌，更早的时间没有意义
+            long base = Math.max(old, now - burstNanos);
+            long updated = base + cost;
+            if (updated - now > 0) {
+                return false; // 令牌不足，状态不变
+            }
+            if (emptyAt.compareAndSet(old, updated)) {
+                return true;
+            }
+            casRetries.increment();
+        }
+    }
+
+    // 获取当前剩余令牌数（用于监控）
+    public int getAvailableTokens() {
+        long now = timeSource.nanoTime();
+        long base = Math.max(emptyAt.get(), now - burstNanos);
+        return (int) ((now - base) / nanosPerToken);
+    }
+
+    @Override
+    public long getCasRetries() {
+        return casRetries.sum();
+    }
+
+    /**
+     * 对象与一个 AtomicLong 的固定开销
+     */
+    @Override
+    public long estimatedMemoryBytes() {
+        return 64;
+    }
+}
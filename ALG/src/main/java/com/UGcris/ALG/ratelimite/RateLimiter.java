@@ -0,0 +1,87 @@
+package com.UGcris.ALG.ratelimite;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 限流器统一接口
+ * 各算法只需实现非阻塞的 {@link #tryAcquire(int)} 与 {@link #waitHintNanos(int)}，
+ * 阻塞、超时和异步三种获取方式由默认方法实现：
+ * 许可不足时按等待提示 park（或在调度线程上延迟重试），不在热循环中反复尝试。
+ */
+public interface RateLimiter {
+
+    /**
+     * 尝试立即获取许可，不等待
+     * @param permits 许可数
+     * @return true 表示允许，false 表示被限流
+     */
+    boolean tryAcquire(int permits);
+
+    /**
+     * 估计还需等待多久才可能获得 permits 个许可（用当前时钟计算，不修改状态）
+     * @return 纳秒数，0 表示可以立即重试；-1 表示 permits 超过上限，永远无法获得
+     */
+    long waitHintNanos(int permits);
+
+    default boolean tryAcquire() {
+        return tryAcquire(1);
+    }
+
+    default void acquire() throws InterruptedException {
+        acquire(1);
+    }
+
+    /**
+     * 阻塞直到获得许可
+     * @throws IllegalArgumentException permits 超过上限
+     * @throws InterruptedException     等待期间被中断
+     */
+    default void acquire(int permits) throws InterruptedException {
+        while (!tryAcquire(permits)) {
+            long hint = waitHintNanos(permits);
+            if (hint < 0) {
+                throw new IllegalArgumentException("permits exceed limiter capacity: " + permits);
+            }
+            LockSupport.parkNanos(this, Math.max(hint, AsyncAcquirer.MIN_WAIT_NANOS));
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    /**
+     * 在超时时间内等待获得许可
+     * 等待提示已超过剩余时间时立即返回 false，不做无意义的等待
+     * @return true 表示获得许可，false 表示超时或 permits 超过上限
+     */
+    default boolean tryAcquire(int permits, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!tryAcquire(permits)) {
+            long hint = waitHintNanos(permits);
+            long remaining = deadline - System.nanoTime();
+            if (hint < 0 || hint > remaining) {
+                return false;
+            }
+            LockSupport.parkNanos(this, Math.min(Math.max(hint, AsyncAcquirer.MIN_WAIT_NANOS), remaining));
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        return true;
+    }
+
+    default CompletableFuture<Void> acquireAsync() {
+        return acquireAsync(1);
+    }
+
+    /**
+     * 异步获取许可：能立即获得时在调用线程上直接完成，否则由共享调度线程按等待提示延迟重试，
+     * 不占用调用线程。permits 超过上限时以 IllegalArgumentException 异常完成。
+     * 后续回调默认在调度线程上执行，耗时操作请使用 thenXxxAsync 指定自己的线程池。
+     */
+    default CompletableFuture<Void> acquireAsync(int permits) {
+        return AsyncAcquirer.acquire(this, permits);
+    }
+}
@@ -0,0 +1,17 @@
+package com.UGcris.ALG.ratelimite;
+
+/**
+ * 可以按给定时间获取、并归还许可的按 key 限流器，见 {@link RefundableRateLimiter}
+ */
+public interface RefundableKeyedRateLimiter extends KeyedRateLimiter {
+
+    /**
+     * 以 now 为当前时间尝试为 key 获取许可
+     */
+    boolean tryAcquireAt(String key, int permits, long now);
+
+    /**
+     * 归还 now 时刻通过 {@link #tryAcquireAt(String, int, long)} 为 key 获取的许可
+     */
+    void refund(String key, int permits, long now);
+}
@@ -0,0 +1,19 @@
+package com.UGcris.ALG.ratelimite;
+
+/**
+ * 可以按给定时间获取、并归还许可的限流器，供 {@link CompositeRateLimiter} 组合使用：
+ * 多个层级共享同一次时钟读取，后面的层级拒绝时归还前面层级已扣除的许可。
+ * now 必须来自与限流器相同的时钟。
+ */
+public interface RefundableRateLimiter extends RateLimiter {
+
+    /**
+     * 以 now 为当前时间尝试获取许可
+     */
+    boolean tryAcquireAt(int permits, long now);
+
+    /**
+     * 归还 now 时刻通过 {@link #tryAcquireAt(int, long)} 获取的许可
+     */
+    void refund(int permits, long now);
+}
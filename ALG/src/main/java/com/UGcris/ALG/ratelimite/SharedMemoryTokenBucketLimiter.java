@@ -0,0 +1,259 @@
+package com.UGcris.ALG.ratelimite;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 跨进程共享的按 key 令牌桶限流器
+ * 桶状态与 {@link KeyedTokenBucketLimiter} 相同（key 指纹 + 桶被取空的虚拟时间，组相联），
+ * 但保存在内存映射文件中，同一台机器上打开同一文件的所有 JVM 共享额度，进程重启后状态仍在。
+ * 1. 所有更新都是映射内存上的 CAS，没有跨进程锁，也没有网络开销；
+ * 2. 进程之间的 System.nanoTime() 没有共同起点，时间使用纪元纳秒（墙上时钟）；
+ * 3. 新 key 只用 CAS 抢占指纹，不重置桶状态：空闲槽位的旧状态早已补满，
+ *    组内没有空闲槽位时淘汰最接近补满的桶，新 key 继承其剩余令牌，只会更保守。
+ * 文件头记录桶参数，参数不一致的文件拒绝打开，避免不同配置的进程互相破坏数据。
+ */
+public class SharedMemoryTokenBucketLimiter implements KeyedRateLimiter, AutoCloseable, MeasurableLimiter {
+    /** 纪元纳秒时钟，所有进程一致 */
+    public static final TimeSource EPOCH_CLOCK = () -> {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000_000L + now.getNano();
+    };
+
+    private static final long MAGIC = 0x414C47544B4E4231L; // "ALGTKNB1"
+    private static final int WAYS = 8;                      // 每组槽位数
+    private static final int HEADER_LONGS = 8;              // 文件头：魔数、组数、容量、令牌间隔，其余保留
+    private static final int H_MAGIC = 0;
+    private static final int H_SETS = 1;
+    private static final int H_CAPACITY = 2;
+    private static final int H_NANOS_PER_TOKEN = 3;
+
+    private final int capacity;                     // 每个桶的最大容量
+    private final long nanosPerToken;               // 生成一个令牌需要的纳秒数
+    private final long burstNanos;                  // 装满整桶需要的纳秒数
+    private final int setMask;
+    private final FileChannel channel;
+    private final MappedLongArray slots;            // 文件头之后每个槽位两个 long：指纹、emptyAt
+    private final TimeSource timeSource;
+    private final LongAdder casRetries = new LongAdder();   // 决策路径上 CAS 失败重试的次数
+
+    public SharedMemoryTokenBucketLimiter(Path file, double refillTokensPerSecond, int capacity, int maxKeys)
+            throws IOException {
+        this(file, refillTokensPerSecond, capacity, maxKeys, EPOCH_CLOCK);
+    }
+
+    /**
+     * 打开（不存在时创建）共享状态文件
+     * @param file                  共享状态文件，同一台机器上的进程使用同一路径
+     * @param refillTokensPerSecond 每个桶每秒补充的令牌数
+     * @param capacity              每个桶的最大容量
+     * @param maxKeys               同时保存的最大 key 数（向上取整到 2 的幂）
+     * @param timeSource            时钟，必须在所有进程间一致
+     * @throws IllegalStateException 文件已存在且桶参数不一致
+     */
+    public SharedMemoryTokenBucketLimiter(Path file, double refillTokensPerSecond, int capacity, int maxKeys,
+                                          TimeSource timeSource) throws IOException {
+        if (refillTokensPerSecond <= 0 || capacity <= 0 || maxKeys <= 0) {
+            throw new IllegalArgumentException("refillTokensPerSecond, capacity and maxKeys must be positive");
+        }
+        this.capacity = capacity;
+        this.timeSource = timeSource;
+        this.nanosPerToken = Math.max(1L, Math.round(1_000_000_000.0 / refillTokensPerSecond));
+        this.burstNanos = Math.multiplyExact(nanosPerToken, (long) capacity);
+
+        int wantedSets = (maxKeys + WAYS - 1) / WAYS;
+        int sets = wantedSets <= 1 ? 1 : Integer.highestOneBit(wantedSets - 1) << 1;
+        this.setMask = sets - 1;
+        long size = ((long) HEADER_LONGS + 2L * sets * WAYS) * Long.BYTES;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("maxKeys too large: " + maxKeys);
+        }
+
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            // 文件锁只在打开时使用，保证只有一个进程初始化文件头
+            try (FileLock ignored = channel.lock()) {
+                boolean created = channel.size() == 0;
+                if (!created && channel.size() != size) {
+                    throw new IllegalStateException("rate limit file " + file + " was created with different settings");
+                }
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                this.slots = new MappedLongArray(buffer);
+                if (created) {
+                    slots.set(H_SETS, sets);
+                    slots.set(H_CAPACITY, capacity);
+                    slots.set(H_NANOS_PER_TOKEN, nanosPerToken);
+                    slots.set(H_MAGIC, MAGIC);
+                } else {
+                    checkHeader(file, sets);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void checkHeader(Path file, int sets) {
+        if (slots.get(H_MAGIC) != MAGIC || slots.get(H_SETS) != sets
+                || slots.get(H_CAPACITY) != capacity || slots.get(H_NANOS_PER_TOKEN) != nanosPerToken) {
+            throw new IllegalStateException("rate limit file " + file + " was created with different settings");
+        }
+    }
+
+    /**
+     * 尝试为 key 获取一个令牌
+     */
+    public boolean allow(String key) {
+        return allow(key, 1);
+    }
+
+    /**
+     * 尝试为 key 获取指定数量的令牌
+     */
+    public boolean allow(String key, int numTokens) {
+        if (key == null) return false;
+        if (numTokens <= 0) return true;
+        if (numTokens > capacity) return false;
+
+        long cost = numTokens * nanosPerToken;
+        int state = stateIndex(findOrClaim(Hashing.fingerprint(key)));
+        long now = timeSource.nanoTime();
+        while (true) {
+            long old = slots.get(state);
+            long base = Math.max(old, now - burstNanos);
+            long updated = base + cost;
+            if (updated - now > 0) {
+                return false; // 令牌不足
+            }
+            if (slots.compareAndSet(state, old, updated)) {
+                return true;
+            }
+            casRetries.increment();
+        }
+    }
+
+    @Override
+    public boolean tryAcquire(String key, int permits) {
+        return allow(key, permits);
+    }
+
+    @Override
+    public long waitHintNanos(String key, int permits) {
+        if (key == null || permits > capacity) return -1;
+        if (permits <= 0) return 0;
+        int slot = find(Hashing.fingerprint(key));
+        if (slot < 0) return 0;
+        long now = timeSource.nanoTime();
+        long base = Math.max(slots.get(stateIndex(slot)), now - burstNanos);
+        return Math.max(0, base + permits * nanosPerToken - now);
+    }
+
+    /**
+     * 获取 key 当前剩余令牌数（用于监控），不存在的 key 视为满桶
+     */
+    public int getAvailableTokens(String key) {
+        int slot = find(Hashing.fingerprint(key));
+        if (slot < 0) return capacity;
+        long now = timeSource.nanoTime();
+        long base = Math.max(slots.get(stateIndex(slot)), now - burstNanos);
+        return (int) ((now - base) / nanosPerToken);
+    }
+
+    /**
+     * 最多可同时保存的 key 数
+     */
+    public int maxKeys() {
+        return (setMask + 1) * WAYS;
+    }
+
+    /**
+     * 把共享状态写回磁盘（进程退出后状态本就保留在操作系统页缓存中，只有整机重启才需要）
+     */
+    public void force() {
+        slots.force();
+    }
+
+    /**
+     * 关闭文件，映射在 GC 回收前仍然有效，关闭后不应再调用限流方法
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int find(long fp) {
+        int start = ((int) fp & setMask) * WAYS;
+        for (int i = start; i < start + WAYS; i++) {
+            if (slots.get(fingerprintIndex(i)) == fp) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // 在组内查找 key，不存在时按 空槽 > 最接近补满 的顺序 CAS 抢占一个槽位，失败则重新查找
+    private int findOrClaim(long fp) {
+        int start = ((int) fp & setMask) * WAYS;
+        while (true) {
+            int victim = -1;
+            long victimFp = 0;
+            long oldest = Long.MAX_VALUE;
+            for (int i = start; i < start + WAYS; i++) {
+                long f = slots.get(fingerprintIndex(i));
+                if (f == fp) {
+                    return i;
+                }
+                long emptyAt = f == 0 ? Long.MIN_VALUE : slots.get(stateIndex(i));
+                if (victim < 0 || emptyAt < oldest) {
+                    victim = i;
+                    victimFp = f;
+                    oldest = emptyAt;
+                }
+            }
+            if (slots.compareAndSet(fingerprintIndex(victim), victimFp, fp)) {
+                return victim;
+            }
+        }
+    }
+
+    private static int fingerprintIndex(int slot) {
+        return HEADER_LONGS + 2 * slot;
+    }
+
+    private static int stateIndex(int slot) {
+        return HEADER_LONGS + 2 * slot + 1;
+    }
+
+    @Override
+    public long getCasRetries() {
+        return casRetries.sum();
+    }
+
+    /**
+     * 统计共享文件中已占用的槽位数（遍历全部槽位，仅用于监控）
+     */
+    @Override
+    public int getKeyCount() {
+        int count = 0;
+        for (int i = 0; i < maxKeys(); i++) {
+            if (slots.get(fingerprintIndex(i)) != 0) count++;
+        }
+        return count;
+    }
+
+    /**
+     * 映射文件的大小（位于堆外，多个进程共享）
+     */
+    @Override
+    public long estimatedMemoryBytes() {
+        return (long) slots.length() * Long.BYTES;
+    }
+}
@@ -1,18 +1,27 @@
 package com.UGcris.ALG.ratelimite;
 
+import java.util.NavigableSet;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 滑动窗口限流器
  */
-public class SlidingWindowCounter {
+public class SlidingWindowCounter implements RateLimiter, MeasurableLimiter {
     private final ConcurrentSkipListSet<Long> timestamps;
     private final long windowSizeMillis;  // 窗口大小，如 60_000ms（1分钟）
     private final int limit;              // 最大请求数
     private final AtomicInteger currentCount = new AtomicInteger(0);
+    private final TimeSource timeSource;  // 时钟
+    private final LongAdder casRetries = new LongAdder();   // 决策路径上 CAS 失败重试的次数
 
     public SlidingWindowCounter(long windowSizeMillis, int limit) {
+        this(windowSizeMillis, limit, TimeSource.SYSTEM);
+    }
+
+    public SlidingWindowCounter(long windowSizeMillis, int limit, TimeSource timeSource) {
+        this.timeSource = timeSource;
         this.timestamps = new ConcurrentSkipListSet<>();
         this.windowSizeMillis = windowSizeMillis*1_000_000;//转纳秒
         this.limit = limit;
@@ -22,9 +31,18 @@ public class SlidingWindowCounter {
      * 尝试通过限流检查
      * @return true 表示允许，false 表示被限流
      */
-
+    @Override
     public boolean tryAcquire() {
-        long now = System.nanoTime();
+        return tryAcquire(1);
+    }
+
+    /**
+     * 尝试一次通过 permits 个请求
+     */
+    @Override
+    public boolean tryAcquire(int permits) {
+        if (permits <= 0) return true;
+        long now = timeSource.nanoTime();
         long windowStart = now - windowSizeMillis;
 
         // 清理旧时间戳并同步计数器
@@ -34,13 +52,20 @@ public class SlidingWindowCounter {
         // 原子化检查并递增
         while (true) {
             int current = currentCount.get();
-            if (current >= limit) {
+            if (current + permits > limit) {
                 return false;
             }
-            if (currentCount.compareAndSet(current, current + 1)) {
-                timestamps.add(now);
+            if (currentCount.compareAndSet(current, current + permits)) {
+                // 粗粒度时钟下多个请求可能拿到同一时间戳，顺延 1 纳秒保证集合中各占一项
+                long stamp = now;
+                for (int i = 0; i < permits; i++) {
+                    while (!timestamps.add(stamp)) {
+                        stamp++;
+                    }
+                }
                 return true;
             }
+            casRetries.increment();
         }
     }
 
@@ -63,11 +88,30 @@ public class SlidingWindowCounter {
 //        return true;
 //    }
 
+    /**
+     * 还需等待多久窗口内才能腾出 permits 个名额：第 (超出数) 早的请求滑出窗口的时间
+     */
+    @Override
+    public long waitHintNanos(int permits) {
+        if (permits <= 0) return 0;
+        if (permits > limit) return -1;
+        long now = timeSource.nanoTime();
+        NavigableSet<Long> window = timestamps.tailSet(now - windowSizeMillis);
+        int excess = window.size() + permits - limit;
+        if (excess <= 0) return 0;
+        for (long timestamp : window) {
+            if (--excess <= 0) {
+                return Math.max(0, timestamp + windowSizeMillis - now + 1);
+            }
+        }
+        return 0;
+    }
+
     /**
      * 获取当前窗口内的请求数
      */
     public int getCount() {
-        long windowStart = System.nanoTime() - windowSizeMillis;
+        long windowStart = timeSource.nanoTime() - windowSizeMillis;
         int count = (int) timestamps.tailSet(windowStart).size();
         return count;
     }
@@ -78,4 +122,17 @@ public class SlidingWindowCounter {
     public void reset() {
         timestamps.clear();
     }
+
+    @Override
+    public long getCasRetries() {
+        return casRetries.sum();
+    }
+
+    /**
+     * 与窗口内记录的时间戳数量成正比（size() 需遍历跳表，仅用于监控）
+     */
+    @Override
+    public long estimatedMemoryBytes() {
+        return 64 + (long) timestamps.size() * 64; // 跳表节点、索引与 Long 装箱
+    }
 }
@@ -1,5 +1,10 @@
 package com.UGcris.ALG.ratelimite;
 
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -7,16 +12,28 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 /**
  * 滑动窗口日志限流器
  * 用于限制每个 key（如 ip、email、userId）在指定时间窗口内的最大请求数
+ * 窗口已完全过期的 key 由 {@link KeyExpirySweeper} 在请求线程上增量清理，map 不会无限增长
+ * 支持快照：每个 key 保存窗口内的时间戳（首个为距快照时刻的时长，其余为相邻差值，变长编码）
  */
-public class SlidingWindowLogLimiter {
+public class SlidingWindowLogLimiter implements RefundableKeyedRateLimiter, Snapshottable, MeasurableLimiter {
     private final long windowSizeMillis;   // 窗口大小，如 60_000 ms（1分钟）
     private final int maxRequests;         // 窗口内最大请求数
     private final ConcurrentHashMap<String, ConcurrentLinkedQueue<Long>> requestWindows;
+    private final KeyExpirySweeper sweeper;
+    private final TimeSource timeSource;   // 时钟
 
     public SlidingWindowLogLimiter(long windowSizeMillis, int maxRequests) {
+        this(windowSizeMillis, maxRequests, TimeSource.SYSTEM);
+    }
+
+    public SlidingWindowLogLimiter(long windowSizeMillis, int maxRequests, TimeSource timeSource) {
+        this.timeSource = timeSource;
         this.windowSizeMillis = windowSizeMillis*1_000_000;//转纳秒
         this.maxRequests = maxRequests;
         this.requestWindows = new ConcurrentHashMap<>();
+        // 每个窗口划分为 8 个时间轮槽位，槽位最小 1ms
+        this.sweeper = new KeyExpirySweeper(this::expireIfIdle, timeSource,
+                Math.max(this.windowSizeMillis / 8, 1_000_000), 64, 1024);
     }
 
     /**
@@ -25,22 +42,94 @@ public class SlidingWindowLogLimiter {
      * @return 是否允许（true = 允许，false = 被限流）
      */
     public boolean tryLog(String key) {
-        long now = System.nanoTime();
-        Queue<Long> window = requestWindows.computeIfAbsent(key, k -> new ConcurrentLinkedQueue<>());
+        return tryLog(key, 1);
+    }
+
+    /**
+     * 尝试一次记录 permits 次操作
+     */
+    public boolean tryLog(String key, int permits) {
+        return tryAcquireAt(key, permits, timeSource.nanoTime());
+    }
+
+    @Override
+    public boolean tryAcquireAt(String key, int permits, long now) {
+        if (permits > maxRequests) return false;
+        if (permits <= 0) return true;
+        sweeper.maybeSweep(now);
+        // 查找、检查与记录都在 map 的 compute 中完成：与清理器的 computeIfPresent 互斥，
+        // 时间戳不会加入已被移除的队列；同一 key 的并发请求也不会同时通过检查而超出上限
+        boolean[] result = new boolean[2];  // 是否允许，是否新建了 key
+        requestWindows.compute(key, (k, window) -> {
+            if (window == null) {
+                window = new ConcurrentLinkedQueue<>();
+                result[1] = true;
+            }
 
-        // 1. 清理过期请求
-        while (!window.isEmpty() && window.peek() < now - windowSizeMillis) {
-            window.poll();
+            // 1. 清理过期请求
+            while (!window.isEmpty() && window.peek() < now - windowSizeMillis) {
+                window.poll();
+            }
+
+            // 2. 检查当前窗口内请求数是否超限
+            if (window.size() + permits > maxRequests) {
+                return window;
+            }
+
+            // 3. 添加当前请求时间戳
+            for (int i = 0; i < permits; i++) {
+                window.offer(now);
+            }
+            result[0] = true;
+            return window;
+        });
+        if (result[1]) {
+            sweeper.schedule(key, now + windowSizeMillis);
         }
+        return result[0];
+    }
+
+    @Override
+    public boolean tryAcquire(String key, int permits) {
+        return tryLog(key, permits);
+    }
 
-        // 2. 检查当前窗口内请求数是否超限
-        if (window.size() >= maxRequests) {
-            return false;
+    /**
+     * 删除 now 时刻记录的 permits 条时间戳
+     */
+    @Override
+    public void refund(String key, int permits, long now) {
+        Queue<Long> window = requestWindows.get(key);
+        if (window == null) return;
+        Long timestamp = now;
+        for (int i = 0; i < permits && window.remove(timestamp); i++) {
+            // 逐条删除
         }
+    }
 
-        // 3. 添加当前请求时间戳
-        window.offer(now);
-        return true;
+    /**
+     * 还需等待多久才能腾出 permits 个名额：第 (超出数) 早的记录滑出窗口的时间
+     */
+    @Override
+    public long waitHintNanos(String key, int permits) {
+        if (permits > maxRequests) return -1;
+        if (permits <= 0) return 0;
+        Queue<Long> window = requestWindows.get(key);
+        if (window == null) return 0;
+        long now = timeSource.nanoTime();
+        long windowStart = now - windowSizeMillis;
+        int live = 0;
+        for (long timestamp : window) {
+            if (timestamp >= windowStart) live++;
+        }
+        int excess = live + permits - maxRequests;
+        if (excess <= 0) return 0;
+        for (long timestamp : window) {
+            if (timestamp >= windowStart && --excess <= 0) {
+                return Math.max(0, timestamp + windowSizeMillis - now + 1);
+            }
+        }
+        return 0;
     }
 
     /**
@@ -50,7 +139,7 @@ public class SlidingWindowLogLimiter {
         Queue<Long> window = requestWindows.get(key);
         if (window == null) return 0;
 
-        long now = System.nanoTime();
+        long now = timeSource.nanoTime();
         // 临时清理过期数据并计数
         window.removeIf(timestamp -> timestamp < now - windowSizeMillis);
         return window.size();
@@ -62,4 +151,150 @@ public class SlidingWindowLogLimiter {
     public void reset(String key) {
         requestWindows.remove(key);
     }
+
+    /**
+     * 立即清理一次已到期的 key
+     * @return 本次回收的 key 数
+     */
+    public int sweepExpiredKeys() {
+        return sweeper.sweep(timeSource.nanoTime());
+    }
+
+    /**
+     * 最近一次清理回收的 key 数
+     */
+    public int getLastSweepReclaimed() {
+        return sweeper.getLastSweepReclaimed();
+    }
+
+    /**
+     * 累计回收的 key 数
+     */
+    public long getTotalReclaimed() {
+        return sweeper.getTotalReclaimed();
+    }
+
+    /**
+     * 当前保存的 key 数
+     */
+    @Override
+    public int getKeyCount() {
+        return requestWindows.size();
+    }
+
+    /**
+     * 写出各 key 窗口内的时间戳
+     */
+    @Override
+    public void writeSnapshot(WritableByteChannel channel) throws IOException {
+        SnapshotWriter writer = new SnapshotWriter(channel);
+        writer.writeHeader(SnapshotWriter.KIND_SLIDING_LOG, windowSizeMillis);
+        long now = timeSource.nanoTime();
+        long windowStart = now - windowSizeMillis;
+        long[] live = new long[Math.max(1, Math.min(maxRequests, 1024))];
+        for (Map.Entry<String, ConcurrentLinkedQueue<Long>> entry : requestWindows.entrySet()) {
+            // 先复制到数组，保证写出的条数与时间戳一致
+            int n = 0;
+            for (long timestamp : entry.getValue()) {
+                if (timestamp >= windowStart) {
+                    if (n == live.length) {
+                        live = Arrays.copyOf(live, n * 2);
+                    }
+                    live[n++] = timestamp;
+                }
+            }
+            if (n == 0) {
+                continue;
+            }
+            writer.putKey(entry.getKey());
+            writer.putVarLong(n);
+            writer.putSignedVarLong(now - live[0]);
+            for (int i = 1; i < n; i++) {
+                writer.putSignedVarLong(live[i] - live[i - 1]);
+            }
+        }
+        writer.putEnd();
+        writer.flush();
+    }
+
+    /**
+     * 恢复快照：时间戳按停机时长前移后换算到当前时钟，已滑出窗口的记录被丢弃
+     * 只恢复当前不存在的 key：已有的 key 保留运行中的记录，不把较早的时间戳追加到较新的记录之后，
+     * 保持队列从旧到新的顺序（过期清理依赖队首最早）
+     * @throws IOException 快照的窗口大小与本限流器不同
+     */
+    @Override
+    public int readSnapshot(ReadableByteChannel channel) throws IOException {
+        SnapshotReader reader = new SnapshotReader(channel);
+        reader.readHeader(SnapshotWriter.KIND_SLIDING_LOG);
+        if (reader.windowSizeNanos() != windowSizeMillis) {
+            throw new IOException("snapshot window size " + reader.windowSizeNanos()
+                    + "ns differs from " + windowSizeMillis + "ns");
+        }
+        long now = timeSource.nanoTime();
+        long windowStart = now - windowSizeMillis;
+        long snapshotNow = now - reader.elapsedNanos(); // 快照时刻在当前时钟下的位置
+        int restored = 0;
+        String key;
+        while ((key = reader.getKey()) != null) {
+            long n = reader.getVarLong();
+            ConcurrentLinkedQueue<Long> window = new ConcurrentLinkedQueue<>();
+            long timestamp = snapshotNow - reader.getSignedVarLong();
+            for (long i = 0; i < n; i++) {
+                if (i > 0) {
+                    timestamp += reader.getSignedVarLong();
+                }
+                if (timestamp >= windowStart) {
+                    window.offer(timestamp);
+                }
+            }
+            if (window.isEmpty()) {
+                continue;
+            }
+            if (requestWindows.putIfAbsent(key, window) == null) {
+                sweeper.schedule(key, window.peek() + windowSizeMillis);
+                restored++;
+            }
+        }
+        return restored;
+    }
+
+    // 清理到期 key：窗口内已没有请求则移除，否则在最早一条记录滑出窗口时再检查
+    // 与 tryAcquireAt 的 compute 互斥，移除后到达的请求会新建队列，不会丢失记录
+    private long expireIfIdle(String key, long now) {
+        long[] next = {KeyExpirySweeper.ABSENT};
+        requestWindows.computeIfPresent(key, (k, window) -> {
+            while (!window.isEmpty() && window.peek() < now - windowSizeMillis) {
+                window.poll();
+            }
+            Long oldest = window.peek();
+            if (oldest == null) {
+                next[0] = KeyExpirySweeper.REMOVED;
+                return null;
+            }
+            next[0] = oldest + windowSizeMillis;
+            return window;
+        });
+        return next[0];
+    }
+
+    /**
+     * 基于锁实现，没有 CAS 重试
+     */
+    @Override
+    public long getCasRetries() {
+        return 0;
+    }
+
+    /**
+     * 与 key 数及窗口内的时间戳数成正比（遍历所有队列，仅用于监控）
+     */
+    @Override
+    public long estimatedMemoryBytes() {
+        long bytes = 0;
+        for (ConcurrentLinkedQueue<Long> window : requestWindows.values()) {
+            bytes += ESTIMATED_KEY_BYTES + 24 + (long) window.size() * 40; // 队列节点与 Long 装箱
+        }
+        return bytes;
+    }
 }
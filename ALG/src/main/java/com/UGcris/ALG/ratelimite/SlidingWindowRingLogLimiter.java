@@ -0,0 +1,213 @@
+package com.UGcris.ALG.ratelimite;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 滑动窗口日志限流器（环形缓冲区实现）
+ * 与 {@link SlidingWindowLogLimiter} 接口一致，但每个 key 使用一个长度为 maxRequests 的 long[] 环形缓冲区
+ * 记录最近 maxRequests 次放行的时间戳：
+ * 1. 写指针指向的槽位就是最早的一次放行，只要它已滑出窗口就可以覆盖，判断为 O(1)；
+ * 2. 每个 key 的内存固定为 8 * maxRequests 字节，不再有 Long 装箱和队列节点；
+ * 3. 窗口已完全过期的 key 由 {@link KeyExpirySweeper} 在请求线程上增量清理。
+ */
+public class SlidingWindowRingLogLimiter implements KeyedRateLimiter, MeasurableLimiter {
+    private final long windowSizeMillis;   // 窗口大小（纳秒）
+    private final int maxRequests;         // 窗口内最大请求数
+    private final ConcurrentHashMap<String, Ring> requestWindows;
+    private final KeyExpirySweeper sweeper;
+    private final TimeSource timeSource;   // 时钟
+
+    // 每个 key 的环形缓冲区
+    private static final class Ring {
+        final long[] timestamps;   // 最近 maxRequests 次放行的时间（纳秒）
+        int next;                  // 下一个写入位置，写满后即最早的一次放行
+        int size;                  // 已写入的槽位数
+        boolean retired;           // 已被清理器移除，持有旧引用的线程需重新获取
+
+        Ring(int capacity) {
+            this.timestamps = new long[capacity];
+        }
+    }
+
+    public SlidingWindowRingLogLimiter(long windowSizeMillis, int maxRequests) {
+        this(windowSizeMillis, maxRequests, TimeSource.SYSTEM);
+    }
+
+    public SlidingWindowRingLogLimiter(long windowSizeMillis, int maxRequests, TimeSource timeSource) {
+        if (maxRequests <= 0) {
+            throw new IllegalArgumentException("maxRequests must be positive");
+        }
+        this.windowSizeMillis = windowSizeMillis * 1_000_000;//转纳秒
+        this.maxRequests = maxRequests;
+        this.requestWindows = new ConcurrentHashMap<>();
+        this.timeSource = timeSource;
+        this.sweeper = new KeyExpirySweeper(this::expireIfIdle, timeSource,
+                Math.max(this.windowSizeMillis / 8, 1_000_000), 64, 1024);
+    }
+
+    /**
+     * 尝试记录一次日志操作
+     * @param key 限流键（如：ip、email、userId）
+     * @return 是否允许（true = 允许，false = 被限流）
+     */
+    public boolean tryLog(String key) {
+        return tryLog(key, 1);
+    }
+
+    /**
+     * 尝试一次记录 permits 次操作
+     */
+    public boolean tryLog(String key, int permits) {
+        if (permits > maxRequests) return false;
+        if (permits <= 0) return true;
+        sweeper.maybeSweep(timeSource.nanoTime());
+        while (true) {
+            Ring ring = ringOf(key);
+            synchronized (ring) {
+                if (!ring.retired) {
+                    return tryLog(ring, permits, timeSource.nanoTime());
+                }
+            }
+        }
+    }
+
+    // 在持有 ring 锁的情况下尝试放行
+    private boolean tryLog(Ring ring, int permits, long now) {
+        int last = lastOverwritten(ring, permits);
+        if (last >= 0 && ring.timestamps[last] >= now - windowSizeMillis) {
+            return false; // 将被覆盖的最后一次放行仍在窗口内
+        }
+        for (int i = 0; i < permits; i++) {
+            ring.timestamps[ring.next] = now;
+            ring.next = ring.next + 1 == maxRequests ? 0 : ring.next + 1;
+        }
+        ring.size = Math.min(ring.size + permits, maxRequests);
+        return true;
+    }
+
+    // 写入 permits 条记录会覆盖 next 起的若干条最早记录，返回其中最新一条的位置，不覆盖时返回 -1
+    private int lastOverwritten(Ring ring, int permits) {
+        if (ring.size + permits <= maxRequests) {
+            return -1;
+        }
+        return (ring.next + permits - 1) % maxRequests;
+    }
+
+    @Override
+    public boolean tryAcquire(String key, int permits) {
+        return tryLog(key, permits);
+    }
+
+    /**
+     * 还需等待多久才能腾出 permits 个名额：将被覆盖的最后一条记录滑出窗口的时间
+     */
+    @Override
+    public long waitHintNanos(String key, int permits) {
+        if (permits > maxRequests) return -1;
+        if (permits <= 0) return 0;
+        Ring ring = requestWindows.get(key);
+        if (ring == null) return 0;
+        synchronized (ring) {
+            int last = lastOverwritten(ring, permits);
+            if (last < 0) return 0;
+            long now = timeSource.nanoTime();
+            return Math.max(0, ring.timestamps[last] + windowSizeMillis - now + 1);
+        }
+    }
+
+    /**
+     * 获取当前 key 的请求数（用于监控）
+     */
+    public int getRequestCount(String key) {
+        Ring ring = requestWindows.get(key);
+        if (ring == null) return 0;
+
+        synchronized (ring) {
+            long windowStart = timeSource.nanoTime() - windowSizeMillis;
+            int count = 0;
+            for (int i = 0; i < ring.size; i++) {
+                if (ring.timestamps[i] >= windowStart) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * 手动重置某个 key（测试用）
+     */
+    public void reset(String key) {
+        requestWindows.remove(key);
+    }
+
+    /**
+     * 立即清理一次已到期的 key
+     * @return 本次回收的 key 数
+     */
+    public int sweepExpiredKeys() {
+        return sweeper.sweep(timeSource.nanoTime());
+    }
+
+    /**
+     * 累计回收的 key 数
+     */
+    public long getTotalReclaimed() {
+        return sweeper.getTotalReclaimed();
+    }
+
+    /**
+     * 当前保存的 key 数
+     */
+    @Override
+    public int getKeyCount() {
+        return requestWindows.size();
+    }
+
+    private Ring ringOf(String key) {
+        Ring ring = requestWindows.get(key);
+        if (ring == null) {
+            Ring created = new Ring(maxRequests);
+            ring = requestWindows.putIfAbsent(key, created);
+            if (ring == null) {
+                ring = created;
+                sweeper.schedule(key, timeSource.nanoTime() + windowSizeMillis);
+            }
+        }
+        return ring;
+    }
+
+    // 最近一次放行已滑出窗口则移除，否则在它滑出窗口时再检查
+    private long expireIfIdle(String key, long now) {
+        Ring ring = requestWindows.get(key);
+        if (ring == null) {
+            return KeyExpirySweeper.ABSENT;
+        }
+        synchronized (ring) {
+            int last = ring.next == 0 ? maxRequests - 1 : ring.next - 1;
+            long latest = ring.timestamps[last];
+            if (ring.size == 0 || latest < now - windowSizeMillis) {
+                ring.retired = true;
+                requestWindows.remove(key, ring);
+                return KeyExpirySweeper.REMOVED;
+            }
+            return latest + windowSizeMillis;
+        }
+    }
+
+    /**
+     * 基于锁实现，没有 CAS 重试
+     */
+    @Override
+    public long getCasRetries() {
+        return 0;
+    }
+
+    /**
+     * 每个 key 固定为环形缓冲区大小加上 Map 开销
+     */
+    @Override
+    public long estimatedMemoryBytes() {
+        return (long) requestWindows.size() * (ESTIMATED_KEY_BYTES + 32 + 16 + (long) maxRequests * Long.BYTES);
+    }
+}
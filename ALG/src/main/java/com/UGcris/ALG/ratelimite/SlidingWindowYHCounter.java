@@ -1,90 +1,199 @@
 package com.UGcris.ALG.ratelimite;
 
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * 滑动窗口限流器
+ * 滑动窗口限流器（分桶优化版）
+ * 窗口被划分为 slots 个时间子桶，每个子桶是一个原子单元：高 32 位为子桶编号，低 32 位为计数。
+ * 子桶编号落后超过一个窗口即视为过期，无需清理队列；
+ * 内存只与子桶数有关，与请求量无关，判断为 O(slots)。
+ * 放行流程：先只读统计，已满直接拒绝（大部分拒绝不产生写竞争）；
+ * 否则先在当前子桶计数 +1，再重新统计，超限则撤销，保证并发下放行数不超过 limit，且计数与放行数一致。
  */
-public class SlidingWindowYHCounter {
-//    private final ConcurrentSkipListSet<Long> timestamps;
-    private final ConcurrentLinkedQueue<Long> requestWindows;
-    private final long windowSizeMillis;  // 窗口大小，如 60_000ms（1分钟）
-    private final int limit;              // 最大请求数
-    private final AtomicInteger currentCount = new AtomicInteger(0);
+public class SlidingWindowYHCounter implements RefundableRateLimiter, MeasurableLimiter {
+    private static final int DEFAULT_SLOTS = 10;
+
+    private final AtomicLongArray cells;   // 时间子桶
+    private final int slots;               // 子桶数
+    private final long slotSizeNanos;      // 每个子桶的时间跨度（纳秒）
+    private final int limit;               // 最大请求数
+    private final long origin;
+    private final TimeSource timeSource;   // 时钟
+    private final LongAdder casRetries = new LongAdder();   // 决策路径上 CAS 失败重试的次数
 
     public SlidingWindowYHCounter(long windowSizeMillis, int limit) {
-//        this.timestamps = new ConcurrentSkipListSet<>();
-        this.requestWindows = new ConcurrentLinkedQueue<>();
-        this.windowSizeMillis = windowSizeMillis*1_000_000;//转纳秒
+        this(windowSizeMillis, limit, DEFAULT_SLOTS);
+    }
+
+    public SlidingWindowYHCounter(long windowSizeMillis, int limit, int slots) {
+        this(windowSizeMillis, limit, slots, TimeSource.SYSTEM);
+    }
+
+    /**
+     * @param windowSizeMillis 窗口大小，如 60_000ms（1分钟）
+     * @param limit            窗口内最大请求数
+     * @param slots            子桶数，越多越接近精确滑动窗口（常用 10~100）
+     * @param timeSource       时钟
+     */
+    public SlidingWindowYHCounter(long windowSizeMillis, int limit, int slots, TimeSource timeSource) {
+        if (slots <= 0 || limit <= 0) {
+            throw new IllegalArgumentException("limit and slots must be positive");
+        }
+        this.slots = slots;
+        this.slotSizeNanos = Math.max(1L, windowSizeMillis * 1_000_000 / slots);//转纳秒
         this.limit = limit;
+        this.cells = new AtomicLongArray(slots);
+        this.timeSource = timeSource;
+        this.origin = timeSource.nanoTime();
     }
 
     /**
      * 尝试通过限流检查
      * @return true 表示允许，false 表示被限流
      */
-
+    @Override
     public boolean tryAcquire() {
-        long now = System.nanoTime();
-        long windowStart = now - windowSizeMillis;
-
-        // 清理旧时间戳并同步计数器
-//        timestamps.headSet(windowStart).clear();
-        // 清理旧时间戳并同步计数器
-        while (!requestWindows.isEmpty() && requestWindows.peek() < windowStart) {
-            requestWindows.poll();
+        return tryAcquire(1);
+    }
+
+    /**
+     * 尝试一次通过 permits 个请求
+     */
+    @Override
+    public boolean tryAcquire(int permits) {
+        return tryAcquireAt(permits, timeSource.nanoTime());
+    }
+
+    @Override
+    public boolean tryAcquireAt(int permits, long now) {
+        if (permits <= 0) return true;
+        long slot = (now - origin) / slotSizeNanos;
+        if (count(slot) + permits > limit) {
+            return false;
         }
-        currentCount.set(requestWindows.size()); // 同步实际数量
 
-        // 原子化检查并递增
+        int index = (int) (slot % slots);
+        int epoch = (int) slot;
         while (true) {
-            int current = currentCount.get();
-            if (current >= limit) {
-                return false;
-            }
-            if (currentCount.compareAndSet(current, current + 1)) {
-//                timestamps.add(now);
-                requestWindows.add(now);
-                return true;
+            long cell = cells.get(index);
+            long count = epochOf(cell) == epoch ? countOf(cell) : 0; // 旧编号的子桶直接复用
+            if (cells.compareAndSet(index, cell, pack(epoch, count + permits))) {
+                break;
             }
+            casRetries.increment();
+        }
+
+        // 计入自己之后重新统计，超限则撤销
+        if (count(slot) > limit) {
+            release(index, epoch, permits);
+            return false;
         }
+        return true;
     }
 
-//    public boolean tryAcquire() {
-//
-//        long now = System.nanoTime();
-//        long windowStart = now - windowSizeMillis;
-//        // 1. 移除窗口外的旧时间戳
-//        timestamps.headSet(windowStart).clear();
-//
-//        // 2. 检查当前请求数是否超限
-//        if (timestamps.size() >= limit) {
-//            return false;
-//        }
-//
-//        // 3. 添加当前请求时间戳
-//        timestamps.add(now);
-//        System.err.println("当前时间: " + now + ", 窗口请求数: " + timestamps.size());
-////        System.err.println("当前窗口内请求数: " + timestamps.size());
-//        return true;
-//    }
+    /**
+     * 从 now 所在的子桶中撤销计数，子桶已轮换时忽略
+     */
+    @Override
+    public void refund(int permits, long now) {
+        if (permits <= 0) return;
+        long slot = (now - origin) / slotSizeNanos;
+        release((int) (slot % slots), (int) slot, permits);
+    }
+
+    /**
+     * 还需等待多久窗口内才能腾出 permits 个名额：从最早的子桶开始累加，直到释放的计数足够
+     */
+    @Override
+    public long waitHintNanos(int permits) {
+        if (permits <= 0) return 0;
+        if (permits > limit) return -1;
+        long now = timeSource.nanoTime();
+        long slot = (now - origin) / slotSizeNanos;
+        long excess = count(slot) + permits - limit;
+        if (excess <= 0) return 0;
+        for (long s = slot - slots + 1; s <= slot; s++) {
+            long cell = cells.get((int) Math.floorMod(s, (long) slots));
+            if (epochOf(cell) == (int) s) {
+                excess -= countOf(cell);
+            }
+            if (excess <= 0) {
+                // 子桶 s 在编号 s + slots 开始时滑出窗口
+                return Math.max(0, origin + (s + slots) * slotSizeNanos - now);
+            }
+        }
+        return slotSizeNanos;
+    }
 
     /**
      * 获取当前窗口内的请求数
      */
     public int getCount() {
-        long windowStart = System.nanoTime() - windowSizeMillis;
-        return requestWindows.size();
-//        int count = (int) timestamps.tailSet(windowStart).size();
-//        return count;
+        return (int) count(currentSlot());
     }
 
     /**
      * 清空所有记录（测试用）
      */
     public void reset() {
-//        timestamps.clear();
-        requestWindows.clear();
+        for (int i = 0; i < slots; i++) {
+            cells.set(i, 0);
+        }
+    }
+
+    private long currentSlot() {
+        return (timeSource.nanoTime() - origin) / slotSizeNanos;
+    }
+
+    // 统计窗口内（编号在 [slot - slots + 1, slot] 之间）的子桶计数之和
+    private long count(long slot) {
+        int epoch = (int) slot;
+        long total = 0;
+        for (int i = 0; i < slots; i++) {
+            long cell = cells.get(i);
+            int age = epoch - epochOf(cell);
+            if (age >= 0 && age < slots) {
+                total += countOf(cell);
+            }
+        }
+        return total;
+    }
+
+    private void release(int index, int epoch, int permits) {
+        while (true) {
+            long cell = cells.get(index);
+            if (epochOf(cell) != epoch) {
+                return; // 子桶已轮换，无需撤销
+            }
+            if (cells.compareAndSet(index, cell, pack(epoch, countOf(cell) - permits))) {
+                return;
+            }
+        }
+    }
+
+    private static long pack(int epoch, long count) {
+        return ((long) epoch << 32) | (count & 0xFFFFFFFFL);
+    }
+
+    private static int epochOf(long cell) {
+        return (int) (cell >>> 32);
+    }
+
+    private static long countOf(long cell) {
+        return cell & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public long getCasRetries() {
+        return casRetries.sum();
+    }
+
+    /**
+     * 子桶数组的大小，与请求量无关
+     */
+    @Override
+    public long estimatedMemoryBytes() {
+        return 64 + 16 + (long) slots * Long.BYTES;
     }
 }
@@ -0,0 +1,108 @@
+package com.UGcris.ALG.ratelimite;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 限流器快照的二进制读取器，格式见 {@link SnapshotWriter}
+ */
+final class SnapshotReader {
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+    private long windowSizeNanos;
+    private long elapsedNanos;
+
+    SnapshotReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        buffer.flip(); // 初始为空
+    }
+
+    /**
+     * 校验文件头，并根据墙上时间计算快照之后经过的时间
+     */
+    void readHeader(byte expectedKind) throws IOException {
+        require(Integer.BYTES + 2 + 2 * Long.BYTES);
+        if (buffer.getInt() != SnapshotWriter.MAGIC) {
+            throw new IOException("not a rate limiter snapshot");
+        }
+        byte version = buffer.get();
+        if (version != SnapshotWriter.VERSION) {
+            throw new IOException("unsupported snapshot version " + version);
+        }
+        byte kind = buffer.get();
+        if (kind != expectedKind) {
+            throw new IOException("snapshot was written by another limiter type: " + kind);
+        }
+        windowSizeNanos = buffer.getLong();
+        long wallMillis = buffer.getLong();
+        elapsedNanos = Math.max(0, System.currentTimeMillis() - wallMillis) * 1_000_000;
+    }
+
+    /**
+     * 快照时的窗口大小（纳秒）
+     */
+    long windowSizeNanos() {
+        return windowSizeNanos;
+    }
+
+    /**
+     * 快照写入到现在经过的纳秒数（按墙上时间计算，时钟回拨时为 0）
+     */
+    long elapsedNanos() {
+        return elapsedNanos;
+    }
+
+    long getVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            require(1);
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("malformed varint");
+    }
+
+    long getSignedVarLong() throws IOException {
+        long value = getVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * 读取下一个 key，读到结束标记时返回 null
+     */
+    String getKey() throws IOException {
+        long length = getVarLong() - 1;
+        if (length < 0) {
+            return null;
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("key too long: " + length);
+        }
+        byte[] bytes = new byte[(int) length];
+        int offset = 0;
+        while (offset < bytes.length) {
+            require(1);
+            int n = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.get(bytes, offset, n);
+            offset += n;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void require(int bytes) throws IOException {
+        while (buffer.remaining() < bytes) {
+            buffer.compact();
+            int n = channel.read(buffer);
+            buffer.flip();
+            if (n < 0) {
+                throw new EOFException("truncated snapshot");
+            }
+        }
+    }
+}
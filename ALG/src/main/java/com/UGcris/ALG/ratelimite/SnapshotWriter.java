@@ -0,0 +1,83 @@
+package com.UGcris.ALG.ratelimite;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 限流器快照的二进制写入器
+ * 数据先写入一块直接内存缓冲区，满了再整块写入通道；整数使用变长编码（每字节 7 位），
+ * 时间戳以“距快照时刻的纳秒数”保存，通常只占 3~5 字节。
+ */
+final class SnapshotWriter {
+    static final int MAGIC = 0x414C4753; // "ALGS"
+    static final byte VERSION = 1;
+    static final byte KIND_FIXED_WINDOW = 1;
+    static final byte KIND_SLIDING_LOG = 2;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+
+    SnapshotWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * 文件头：魔数、版本、限流器类型、窗口大小、快照时的墙上时间（毫秒）
+     */
+    void writeHeader(byte kind, long windowSizeNanos) throws IOException {
+        ensure(Integer.BYTES + 2 + 2 * Long.BYTES);
+        buffer.putInt(MAGIC).put(VERSION).put(kind).putLong(windowSizeNanos).putLong(System.currentTimeMillis());
+    }
+
+    void putVarLong(long value) throws IOException {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    // 可能为负的差值使用 zigzag 编码
+    void putSignedVarLong(long value) throws IOException {
+        putVarLong((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * 写入一个 key（长度 + 1 后变长编码，0 保留为结束标记）
+     */
+    void putKey(String key) throws IOException {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        putVarLong(bytes.length + 1L);
+        if (bytes.length > buffer.capacity()) {
+            flush();
+            ByteBuffer wrapped = ByteBuffer.wrap(bytes);
+            while (wrapped.hasRemaining()) {
+                channel.write(wrapped);
+            }
+            return;
+        }
+        ensure(bytes.length);
+        buffer.put(bytes);
+    }
+
+    void putEnd() throws IOException {
+        putVarLong(0);
+    }
+
+    void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.UGcris.ALG.ratelimite;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * 支持快照的限流器：把所有 key 的状态写成紧凑的二进制格式，新进程启动时读回
+ * 时间戳以“距快照时刻的时长”保存，读回时按墙上时间补上停机时长，再换算到新进程的 nanoTime 起点。
+ * 通常配合 {@link LimiterSnapshotter} 定时保存、关闭时保存、启动时恢复。
+ */
+public interface Snapshottable {
+
+    /**
+     * 写出所有未过期 key 的状态，可以与请求并发执行
+     */
+    void writeSnapshot(WritableByteChannel channel) throws IOException;
+
+    /**
+     * 读入快照，已经过期的记录被丢弃
+     * @return 恢复的 key 数
+     */
+    int readSnapshot(ReadableByteChannel channel) throws IOException;
+}
@@ -0,0 +1,17 @@
+package com.UGcris.ALG.ratelimite;
+
+/**
+ * 限流器使用的单调时钟（纳秒）
+ * 默认 {@link #SYSTEM} 直接调用 System.nanoTime()；
+ * 高吞吐场景可用 {@link CachedTimeSource} 由后台线程定时刷新，省去每次调用的时钟开销；
+ * 测试与流量回放使用 {@link ManualTimeSource} 手动推进时间，无需真实等待。
+ */
+public interface TimeSource {
+
+    TimeSource SYSTEM = System::nanoTime;
+
+    /**
+     * @return 当前时间（纳秒），只用于计算时间差
+     */
+    long nanoTime();
+}
@@ -2,12 +2,14 @@ package com.UGcris.ALG.ratelimite;
 
 import java.time.Instant;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /*
  * 令牌桶算法
  */
-public class TokenBucketAlgorithm {
+public class TokenBucketAlgorithm implements RateLimiter, MeasurableLimiter {
     // 修改日志配置
     static {
         System.setProperty("java.util.logging.SimpleFormatter.format",
@@ -18,6 +20,8 @@ public class TokenBucketAlgorithm {
     private final double refillTokensPerSecond; // 每秒补充的令牌数（速率）
     private final int capacity;                 // 桶的最大容量
     private final AtomicReference<Bucket> bucketRef;// 桶的状态引用
+    private final TimeSource timeSource;        // 时钟
+    private final LongAdder casRetries = new LongAdder();   // 决策路径上 CAS 失败重试的次数
 
     // 内部类：表示桶的状态
     private static class Bucket {
@@ -31,10 +35,15 @@ public class TokenBucketAlgorithm {
     }
 
     public TokenBucketAlgorithm(double refillTokensPerSecond, int capacity) {
+        this(refillTokensPerSecond, capacity, TimeSource.SYSTEM);
+    }
+
+    public TokenBucketAlgorithm(double refillTokensPerSecond, int capacity, TimeSource timeSource) {
         this.refillTokensPerSecond = refillTokensPerSecond;
         this.capacity = capacity;
+        this.timeSource = timeSource;
         this.bucketRef = new AtomicReference<>(
-                new Bucket(capacity, System.nanoTime()) // 初始时桶是满的
+                new Bucket(capacity, timeSource.nanoTime()) // 初始时桶是满的
         );
     }
 
@@ -56,23 +65,83 @@ public class TokenBucketAlgorithm {
         return tryConsume(numTokens);
     }
 
+    @Override
+    public boolean tryAcquire(int permits) {
+        return allow(permits);
+    }
+
+    /**
+     * 估计还需等待多久才能补足 permits 个令牌
+     */
+    @Override
+    public long waitHintNanos(int permits) {
+        if (permits > capacity) return -1;
+        Bucket bucket = bucketRef.get();
+        int missing = permits - bucket.tokens;
+        if (missing <= 0) return 0;
+        long neededNanos = (long) Math.ceil(missing * 1_000_000_000.0 / refillTokensPerSecond);
+        return Math.max(0, neededNanos - (timeSource.nanoTime() - bucket.lastRefillTime));
+    }
+
     // 尝试消耗令牌
     private boolean tryConsume(int numTokens) {
         while (true) {
             Bucket oldBucket = bucketRef.get();
             Bucket newBucket = refillAndConsume(oldBucket, numTokens);
-            logger.info("numTokens: " + numTokens);
-            logger.info("oldBucket.tokens: " + oldBucket.tokens);
-            logger.info("newBucket.tokens: " + newBucket.tokens);
+            // 热路径上只有开启 FINE 级别时才拼接日志字符串
+            if (logger.isLoggable(Level.FINE)) {
+                logger.fine("numTokens: " + numTokens
+                        + ", oldBucket.tokens: " + oldBucket.tokens
+                        + ", newBucket.tokens: " + newBucket.tokens);
+            }
+            if (newBucket == oldBucket) {
+                return false; // 令牌不足，状态未变化，无需 CAS
+            }
             if (bucketRef.compareAndSet(oldBucket, newBucket)) {
-                return newBucket.tokens >= 0;
+                return true;
+            }
+            casRetries.increment();
+        }
+    }
+
+    /**
+     * 尽量多地获取令牌，最多 maxTokens 个（分布式租约使用）
+     * @return 实际获取的令牌数，可能为 0
+     */
+    int takeUpTo(int maxTokens) {
+        while (true) {
+            Bucket oldBucket = bucketRef.get();
+            long now = timeSource.nanoTime();
+            double elapsedTimeSecs = (now - oldBucket.lastRefillTime) / 1_000_000_000.0;
+            int refillTokens = (int) (elapsedTimeSecs * refillTokensPerSecond);
+            int updatedTokens = Math.min(oldBucket.tokens + refillTokens, capacity);
+            int taken = Math.min(updatedTokens, maxTokens);
+            if (taken <= 0) {
+                return 0;
+            }
+            if (bucketRef.compareAndSet(oldBucket, new Bucket(updatedTokens - taken, now))) {
+                return taken;
+            }
+        }
+    }
+
+    /**
+     * 归还未使用的令牌，不超过桶容量（分布式租约使用）
+     */
+    void giveBack(int tokens) {
+        if (tokens <= 0) return;
+        while (true) {
+            Bucket oldBucket = bucketRef.get();
+            Bucket newBucket = new Bucket(Math.min(oldBucket.tokens + tokens, capacity), oldBucket.lastRefillTime);
+            if (bucketRef.compareAndSet(oldBucket, newBucket)) {
+                return;
             }
         }
     }
 
     // 补充令牌并尝试消耗
     private Bucket refillAndConsume(Bucket oldBucket, int numTokens) {
-        long now = System.nanoTime();
+        long now = timeSource.nanoTime();
         long elapsedTimeNanos = now - oldBucket.lastRefillTime;// 计算自上次补充令牌以来的时间（纳秒）
         double elapsedTimeSecs = elapsedTimeNanos / 1_000_000_000.0;// 转换为秒
 //        logger.info("elapsedTimeSecs: " + elapsedTimeSecs);
@@ -86,18 +155,31 @@ public class TokenBucketAlgorithm {
         if (updatedTokens >= numTokens) {
             return new Bucket(updatedTokens - numTokens, now);
         } else {
-            // 令牌不足，返回当前状态（不更新时间，避免空转影响下次计算）
-            return new Bucket(oldBucket.tokens, oldBucket.lastRefillTime);
+            // 令牌不足，返回当前状态（不更新时间，避免空转影响下次计算），不再新建对象
+            return oldBucket;
         }
     }
 
     // 可选：获取当前剩余令牌数（用于监控）
     public int getAvailableTokens() {
         Bucket bucket = bucketRef.get();
-        long now = System.nanoTime();
+        long now = timeSource.nanoTime();
         long elapsedTimeNanos = now - bucket.lastRefillTime;
         double elapsedTimeSecs = elapsedTimeNanos / 1_000_000_000.0;
         int refillTokens = (int) (elapsedTimeSecs * refillTokensPerSecond);
         return Math.min(bucket.tokens + refillTokens, capacity);
     }
+
+    @Override
+    public long getCasRetries() {
+        return casRetries.sum();
+    }
+
+    /**
+     * 对象、AtomicReference 与当前 Bucket 的固定开销
+     */
+    @Override
+    public long estimatedMemoryBytes() {
+        return 96;
+    }
 }
@@ -0,0 +1,29 @@
+package com.UGcris.ALG.ratelimite;
+
+/**
+ * 分布式限流的令牌协调者（集群全局额度的持有者）
+ * 各节点通过 {@link DistributedTokenBucket} 批量租用令牌，在本地消费，
+ * 只有本地租约用完或过期时才访问协调者。
+ * 生产环境可以基于 Redis、数据库等实现；{@link LocalTokenCoordinator} 是进程内实现，用于测试和单机部署。
+ */
+public interface TokenCoordinator {
+
+    /**
+     * 为节点租用令牌
+     * @param nodeId    节点标识
+     * @param requested 希望租用的令牌数
+     * @return 实际租到的令牌数（0 ~ requested）
+     */
+    int lease(String nodeId, int requested);
+
+    /**
+     * 归还未使用的令牌
+     */
+    void release(String nodeId, int tokens);
+
+    /**
+     * 估计还需等待多久全局额度才能提供 tokens 个令牌
+     * @return 纳秒数，-1 表示永远无法提供
+     */
+    long waitHintNanos(int tokens);
+}
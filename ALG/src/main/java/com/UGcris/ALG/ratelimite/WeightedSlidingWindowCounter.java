@@ -0,0 +1,193 @@
+package com.UGcris.ALG.ratelimite;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 滑动窗口限流器（近似，加权双窗口）
+ * 只记录上一个固定窗口和当前固定窗口的请求数，滑动窗口内的请求数估计为：
+ * 上一窗口计数 * 上一窗口仍落在滑动窗口内的比例 + 当前窗口计数。
+ * 状态为一个不可变对象（完整的窗口编号 + 两个计数），以 AtomicReference 的 CAS 整体替换：
+ * 窗口编号不截断，空闲再久也不会把旧计数误认为当前窗口；计数为 int，limit 可到每分钟数十万以上。
+ * 内存为常数，tryAcquire() 为 O(1)（每次放行分配一个 24 字节的状态对象），代价是假设上一窗口内的请求均匀分布。
+ * 需要精确计数时使用 {@link SlidingWindowCounter}。
+ */
+public class WeightedSlidingWindowCounter implements RefundableRateLimiter, MeasurableLimiter {
+    /** 支持的最大请求数 */
+    public static final int MAX_LIMIT = Integer.MAX_VALUE;
+
+    // 不可变的窗口状态
+    private static final class State {
+        final long window;        // 当前窗口编号
+        final int previousCount;  // 上一窗口计数
+        final int currentCount;   // 当前窗口计数
+
+        State(long window, int previousCount, int currentCount) {
+            this.window = window;
+            this.previousCount = previousCount;
+            this.currentCount = currentCount;
+        }
+    }
+
+    private final long windowSizeMillis;  // 窗口大小（纳秒）
+    private final int limit;              // 最大请求数
+    private final long origin;
+    private final AtomicReference<State> state = new AtomicReference<>(new State(0, 0, 0));
+    private final TimeSource timeSource;  // 时钟
+    private final LongAdder casRetries = new LongAdder();   // 决策路径上 CAS 失败重试的次数
+
+    public WeightedSlidingWindowCounter(long windowSizeMillis, int limit) {
+        this(windowSizeMillis, limit, TimeSource.SYSTEM);
+    }
+
+    public WeightedSlidingWindowCounter(long windowSizeMillis, int limit, TimeSource timeSource) {
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be in [1, " + MAX_LIMIT + "]");
+        }
+        this.windowSizeMillis = windowSizeMillis * 1_000_000;//转纳秒
+        this.limit = limit;
+        this.timeSource = timeSource;
+        this.origin = timeSource.nanoTime();
+    }
+
+    /**
+     * 尝试通过限流检查
+     * @return true 表示允许，false 表示被限流
+     */
+    @Override
+    public boolean tryAcquire() {
+        return tryAcquire(1);
+    }
+
+    /**
+     * 尝试一次通过 permits 个请求
+     */
+    @Override
+    public boolean tryAcquire(int permits) {
+        return tryAcquireAt(permits, timeSource.nanoTime());
+    }
+
+    @Override
+    public boolean tryAcquireAt(int permits, long now) {
+        if (permits <= 0) return true;
+        if (permits > limit) return false;
+        long elapsed = now - origin;
+        long window = elapsed / windowSizeMillis;
+        // 上一窗口仍落在滑动窗口内的比例
+        double weight = 1.0 - (double) (elapsed - window * windowSizeMillis) / windowSizeMillis;
+
+        while (true) {
+            State current = state.get();
+            long previousCount;
+            long currentCount;
+            if (current.window == window) {
+                previousCount = current.previousCount;
+                currentCount = current.currentCount;
+            } else if (current.window + 1 == window) {
+                previousCount = current.currentCount; // 进入下一个窗口，当前窗口变为上一窗口
+                currentCount = 0;
+            } else {
+                previousCount = 0;                    // 空闲超过一个窗口
+                currentCount = 0;
+            }
+
+            if (previousCount * weight + currentCount + permits > limit) {
+                return false;
+            }
+            if (state.compareAndSet(current, new State(window, (int) previousCount, (int) (currentCount + permits)))) {
+                return true;
+            }
+            casRetries.increment();
+        }
+    }
+
+    /**
+     * 从当前窗口计数中撤销，窗口已切换时忽略
+     */
+    @Override
+    public void refund(int permits, long now) {
+        if (permits <= 0) return;
+        long window = (now - origin) / windowSizeMillis;
+        while (true) {
+            State current = state.get();
+            if (current.window != window || current.currentCount < permits) {
+                return;
+            }
+            if (state.compareAndSet(current, new State(window, current.previousCount, current.currentCount - permits))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 还需等待多久估计请求数才能容纳 permits 个请求
+     * 当前窗口还有余量时等上一窗口的权重衰减；否则等当前窗口变为上一窗口后继续衰减
+     */
+    @Override
+    public long waitHintNanos(int permits) {
+        if (permits <= 0) return 0;
+        if (permits > limit) return -1;
+        long elapsed = timeSource.nanoTime() - origin;
+        long window = elapsed / windowSizeMillis;
+        long offset = elapsed - window * windowSizeMillis;
+        State current = state.get();
+        long previousCount;
+        long currentCount;
+        if (current.window == window) {
+            previousCount = current.previousCount;
+            currentCount = current.currentCount;
+        } else if (current.window + 1 == window) {
+            previousCount = current.currentCount;
+            currentCount = 0;
+        } else {
+            return 0;
+        }
+
+        long room = limit - permits - currentCount; // 上一窗口允许保留的加权计数
+        if (room >= 0) {
+            double weight = 1.0 - (double) offset / windowSizeMillis;
+            if (previousCount * weight <= room) return 0;
+            double fraction = 1.0 - (double) room / previousCount;
+            return Math.max(0, (long) Math.ceil(fraction * windowSizeMillis) - offset);
+        }
+        double fraction = 1.0 - (double) (limit - permits) / currentCount;
+        return windowSizeMillis - offset + (long) Math.ceil(fraction * windowSizeMillis);
+    }
+
+    /**
+     * 获取当前滑动窗口内的估计请求数
+     */
+    public int getCount() {
+        long elapsed = timeSource.nanoTime() - origin;
+        long window = elapsed / windowSizeMillis;
+        double weight = 1.0 - (double) (elapsed - window * windowSizeMillis) / windowSizeMillis;
+        State current = state.get();
+        if (current.window == window) {
+            return (int) (current.previousCount * weight + current.currentCount);
+        }
+        if (current.window + 1 == window) {
+            return (int) (current.currentCount * weight);
+        }
+        return 0;
+    }
+
+    /**
+     * 清空所有记录（测试用）
+     */
+    public void reset() {
+        state.set(new State((timeSource.nanoTime() - origin) / windowSizeMillis, 0, 0));
+    }
+
+    @Override
+    public long getCasRetries() {
+        return casRetries.sum();
+    }
+
+    /**
+     * 对象、AtomicReference 与一个状态对象的固定开销
+     */
+    @Override
+    public long estimatedMemoryBytes() {
+        return 88;
+    }
+}
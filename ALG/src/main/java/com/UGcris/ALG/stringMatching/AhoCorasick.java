@@ -4,7 +4,9 @@ package com.UGcris.ALG.stringMatching;
 import org.springframework.util.StringUtils;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 
 /**
@@ -14,8 +16,6 @@ import java.util.Queue;
  */
 public class AhoCorasick {
 
-    private final int lettersCount=26;
-
     /**
      * @Description 构造将要匹配的字串的trie树
      * @Params List<String> strList,Trie root
@@ -30,15 +30,14 @@ public class AhoCorasick {
             //对应子节点存在则不为空
             for(int i=0;i<str.length();i++){
                 char ch=str.charAt(i);
-                Trie[] next=node.getNext();
-                int j=ch-'a';
-                if(StringUtils.isEmpty(next[j])){
-                    next[j]=new Trie();
-                    next[j].setCh(ch);
-                    node.setNext(next);
+                Map<Character,Trie> next=node.getNext();
+                if(StringUtils.isEmpty(next.get(ch))){
+                    Trie child=new Trie();
+                    child.setCh(ch);
+                    next.put(ch,child);
                 }
                 //下一节点
-                node=next[j];
+                node=next.get(ch);
             }
             node.setCount(node.getCount()+1);
             node.setWord(str);
@@ -60,8 +59,9 @@ public class AhoCorasick {
 
         while(h<t){
             Trie now=list.get(h++);
-            for(int i=0;i<lettersCount;i++){
-                Trie next=now.getNext()[i];
+            for(Map.Entry<Character,Trie> entry:now.getNext().entrySet()){
+                char i=entry.getKey();
+                Trie next=entry.getValue();
                 if(!StringUtils.isEmpty(next)){
 
                     if(now==root){
@@ -69,8 +69,8 @@ public class AhoCorasick {
                     }else{
                         Trie  p=now.getFail();
                         while(!StringUtils.isEmpty(p)){
-                            if(!StringUtils.isEmpty(p.getNext()[i])){
-                                next.setFail(p.getNext()[i]);
+                            if(!StringUtils.isEmpty(p.getNext().get(i))){
+                                next.setFail(p.getNext().get(i));
                                 break;
                             }
                             p=p.getFail();
@@ -79,6 +79,9 @@ public class AhoCorasick {
                             next.setFail(root);
                         }
                     }
+                    //输出链：fail链上最近的一个关键词结尾节点
+                    Trie fail=next.getFail();
+                    next.setOutput(fail.getCount()>0?fail:fail.getOutput());
                     list.add(t++,next);
                 }
             }
@@ -86,46 +89,72 @@ public class AhoCorasick {
     }
 
 
+    /**
+     * @Description 每次调用都会重新构造trie树和fail指针，同一组关键词匹配多个文本时请使用
+     * {@link DoubleArrayAhoCorasick#builder()} 构造一次后共享
+     * @Params List<String> strList,String str
+     * @Return String[][]
+     * @deprecated 结果矩阵为 O(n²) 内存，长文本会内存溢出，请使用
+     * {@link DoubleArrayAhoCorasick#search(CharSequence, MatchHandler)} / {@link DoubleArrayAhoCorasick#findAll(CharSequence)}
+     */
+    @Deprecated
     public String[][] acSearch(List<String> strList,String str){
-        String[][] result=new String[str.length()][str.length()];
+        String[][] result=new String[str.length()][str.length()+1];
         Trie root=new Trie();
         buildTrie( strList,root);
         buildFailPoint(root);
         Trie node=root;
         for(int i=0;i<str.length();i++){
-            while(node!=root && StringUtils.isEmpty(node.getNext()[str.charAt(i)-'a'])){
+            char ch=str.charAt(i);
+            //没有对应子节点的字符（包括任何关键词都不含的字符）沿fail链回退，最终回到根节点
+            while(node!=root && StringUtils.isEmpty(node.getNext().get(ch))){
                 node=node.getFail();
             }
-            if(!StringUtils.isEmpty(node.getNext()[str.charAt(i)-'a'])){
-                node=node.getNext()[str.charAt(i)-'a'];
+            if(!StringUtils.isEmpty(node.getNext().get(ch))){
+                node=node.getNext().get(ch);
             }
-            if(node.getCount()>0){
-                String word=node.getWord();
+            //沿输出链报告以i结尾的所有关键词，当前节点不变
+            for(Trie out=node.getCount()>0?node:node.getOutput();out!=null;out=out.getOutput()){
+                String word=out.getWord();
                 result[i-word.length()+1][i+1]=word;
-                node=node.getFail();
             }
         }
         return result;
     }
+
+    /**
+     * @Description 编译为双数组形式，编译结果可重复用于多个文本，关键词可以包含任意字符
+     * @Params List<String> strList
+     * @Return DoubleArrayAhoCorasick
+     */
+    public DoubleArrayAhoCorasick compile(List<String> strList){
+        return DoubleArrayAhoCorasick.builder().addAll(strList).build();
+    }
     /**
      * trie树
      */
     class Trie{
-        private final int lettersCount=26;
        /**
         * 匹配完全一个单词加1
         */
        int count;
        Trie fail;
+       /**
+        * fail链上最近的关键词结尾节点，没有则为空
+        */
+       Trie output;
        String word;
-       Trie[] next;
+       /**
+        * 子节点，按字符索引，关键词和文本可以包含任意字符
+        */
+       Map<Character,Trie> next;
        char ch;
 
        Trie(){
             count=0;
             fail=null;
             word="";
-           next=new Trie[lettersCount];
+           next=new HashMap<Character,Trie>();
        }
 
         public int getCount() {
@@ -144,6 +173,14 @@ public class AhoCorasick {
             this.fail = fail;
         }
 
+        public Trie getOutput() {
+            return output;
+        }
+
+        public void setOutput(Trie output) {
+            this.output = output;
+        }
+
         public String getWord() {
             return word;
         }
@@ -152,11 +189,11 @@ public class AhoCorasick {
             this.word = word;
         }
 
-        public Trie[] getNext() {
+        public Map<Character,Trie> getNext() {
             return next;
         }
 
-        public void setNext(Trie[] next) {
+        public void setNext(Map<Character,Trie> next) {
             this.next = next;
         }
         public char getCh() {
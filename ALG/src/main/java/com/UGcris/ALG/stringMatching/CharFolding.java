@@ -0,0 +1,50 @@
+package com.UGcris.ALG.stringMatching;
+
+/**
+ * @Description 匹配前的逐字符归一化：只做一对一的字符映射，文本长度不变，命中的下标即原文下标
+ */
+final class CharFolding {
+
+    private static final char FULL_WIDTH_FIRST = '\uFF01';  // ！
+    private static final char FULL_WIDTH_LAST = '\uFF5E';   // ～
+    private static final int FULL_WIDTH_OFFSET = 0xFEE0;    // 全角 ASCII 与半角的差
+    private static final char IDEOGRAPHIC_SPACE = '\u3000';
+
+    private final boolean ignoreCase;
+    private final boolean foldWidth;
+
+    CharFolding(boolean ignoreCase, boolean foldWidth) {
+        this.ignoreCase = ignoreCase;
+        this.foldWidth = foldWidth;
+    }
+
+    boolean isIdentity() {
+        return !ignoreCase && !foldWidth;
+    }
+
+    /**
+     * 全角 ASCII 转为半角（ＡＢＣ１２３ → ABC123，全角空格 → 空格），再统一大小写
+     */
+    char fold(char ch) {
+        if (foldWidth) {
+            if (ch >= FULL_WIDTH_FIRST && ch <= FULL_WIDTH_LAST) {
+                ch = (char) (ch - FULL_WIDTH_OFFSET);
+            } else if (ch == IDEOGRAPHIC_SPACE) {
+                ch = ' ';
+            }
+        }
+        // 先转大写再转小写，ſ、K（开尔文符号）等与 s、k 归为同一字符
+        return ignoreCase ? Character.toLowerCase(Character.toUpperCase(ch)) : ch;
+    }
+
+    String fold(String str) {
+        if (isIdentity()) {
+            return str;
+        }
+        char[] chars = str.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = fold(chars[i]);
+        }
+        return new String(chars);
+    }
+}
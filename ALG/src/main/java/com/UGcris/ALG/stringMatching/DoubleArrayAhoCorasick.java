@@ -0,0 +1,498 @@
+package com.UGcris.ALG.stringMatching;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * @Description AC自动机的双数组（Double-Array Trie）形式，支持任意字符（中文、数字、大小写、标点）
+ * 关键词中出现的字符按出现次数从多到少编码为 1..K（字符表外的字符编码为 0，遇到即回到根），
+ * 状态 s 经字符 c 转移到 t = base[s] + code(c)，当且仅当 check[t] == s；fail 与输出也以状态下标保存。
+ * 子节点再稀疏也只占用与子节点数相同的槽位，任何节点的转移都是一次数组访问，常用字符编码小，低层的稠密节点排列紧凑；
+ * 字符到编码的映射按高 8 位分页，只为关键词用到的页分配 256 个 int，ASCII 与常用汉字各只占少数几页。
+ * 可选忽略大小写、全角转半角，归一化为一对一的字符映射并在构造时并入编码表，命中的下标即原文下标，匹配时没有额外开销。
+ * 每个状态保存输出链（fail 链上最近的关键词结尾状态），一次线性扫描报告所有重叠的命中，命中后不跳转状态；
+ * 也可选 {@link MatchKind#LEFTMOST_LONGEST} / {@link MatchKind#LEFTMOST_FIRST} 只报告互不重叠的命中。
+ * 关键词只含 a~z 时 {@link MatchKind#STANDARD} 的结果与 {@link AhoCorasick#acSearch(List, String)} 相同，但命中以 (start, end, patternId) 流式交给
+ * {@link MatchHandler} 或收集为 int 三元组，不再分配 n×n 的结果矩阵，长文本的内存只与命中数有关。
+ * 构造后不再修改（所有数组只在构造时写入），可以在所有请求线程之间共享，重复用于任意多个文本：
+ * <pre>
+ * DoubleArrayAhoCorasick matcher = DoubleArrayAhoCorasick.builder().ignoreCase().addAll(blocklist).build();
+ * </pre>
+ */
+public final class DoubleArrayAhoCorasick {
+
+    private static final int ROOT = 0;
+    private static final int FREE = -1;             // check 中的空闲槽位
+    private static final int PAGE_BITS = 8;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    private final int[][] codePages;                // 字符高 8 位 -> 低 8 位 -> 编码，null 页表示整页都不在字符表中
+    private final int[] base;
+    private final int[] check;                      // 父状态，FREE 表示空闲
+    private final int[] fail;
+    private final int[] output;                     // 以该状态结尾的关键词编号，-1 表示没有
+    private final int[] outputLink;                 // fail 链上最近的 output >= 0 的状态，-1 表示没有
+    private final int[] depth;                      // 状态对应的前缀长度
+    private final String[] words;
+    private final int stateCount;
+    private final MatchKind matchKind;
+
+    private DoubleArrayAhoCorasick(int[][] codePages, int[] base, int[] check, int[] fail, int[] output,
+                                   String[] words, int stateCount, MatchKind matchKind) {
+        this.codePages = codePages;
+        this.base = base;
+        this.check = check;
+        this.fail = fail;
+        this.output = output;
+        this.outputLink = new int[base.length];
+        this.depth = new int[base.length];
+        this.words = words;
+        this.stateCount = stateCount;
+        this.matchKind = matchKind;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 收集关键词，{@link #build()} 时才构造
+     */
+    public static final class Builder {
+        private final List<String> words = new ArrayList<>();
+        private boolean ignoreCase;
+        private boolean foldWidth;
+        private MatchKind matchKind = MatchKind.STANDARD;
+
+        private Builder() {
+        }
+
+        public Builder add(String word) {
+            if (word == null || word.isEmpty()) {
+                throw new IllegalArgumentException("keyword must not be empty");
+            }
+            words.add(word);
+            return this;
+        }
+
+        public Builder addAll(Collection<String> words) {
+            for (String word : words) {
+                add(word);
+            }
+            return this;
+        }
+
+        /**
+         * 忽略大小写（含非 ASCII 字母，如 Ä/ä）
+         */
+        public Builder ignoreCase() {
+            this.ignoreCase = true;
+            return this;
+        }
+
+        /**
+         * 全角 ASCII 视为半角（ＡＢＣ１２３ 与 ABC123 相同），全角空格视为空格
+         */
+        public Builder foldWidth() {
+            this.foldWidth = true;
+            return this;
+        }
+
+        /**
+         * 命中语义，默认 {@link MatchKind#STANDARD} 报告所有重叠的命中
+         */
+        public Builder matchKind(MatchKind matchKind) {
+            if (matchKind == null) {
+                throw new IllegalArgumentException("matchKind must not be null");
+            }
+            this.matchKind = matchKind;
+            return this;
+        }
+
+        public DoubleArrayAhoCorasick build() {
+            return compile(words, new CharFolding(ignoreCase, foldWidth), matchKind);
+        }
+    }
+
+    /**
+     * 把关键词按编码序列排序后按层构造双数组：同一层的节点对应有序关键词的一个区间，
+     * 区间内按下一个字符分组即为子节点，为每个节点找一个能放下所有子节点的 base；最后按层计算 fail
+     */
+    private static DoubleArrayAhoCorasick compile(List<String> words, CharFolding folding, MatchKind matchKind) {
+        int n = words.size();
+        String[] folded = new String[n];
+        int[] frequency = new int[Character.MAX_VALUE + 1];
+        for (int i = 0; i < n; i++) {
+            folded[i] = folding.fold(words.get(i));
+            for (int j = 0; j < folded[i].length(); j++) {
+                frequency[folded[i].charAt(j)]++;
+            }
+        }
+        int[] codeOf = alphabet(frequency);
+        int alphabetSize = 0;
+        for (int code : codeOf) {
+            alphabetSize = Math.max(alphabetSize, code);
+        }
+
+        int[][] encoded = new int[n][];
+        Integer[] sorted = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            encoded[i] = new int[folded[i].length()];
+            for (int j = 0; j < encoded[i].length; j++) {
+                encoded[i][j] = codeOf[folded[i].charAt(j)];
+            }
+            sorted[i] = i;
+        }
+        // 稳定排序：相同的关键词保持添加顺序，区间里第一个即编号最小的
+        Arrays.sort(sorted, (a, b) -> compare(encoded[a], encoded[b]));
+
+        ArrayBuilder builder = new ArrayBuilder();
+        builder.check[ROOT] = ROOT;  // 根没有父状态，transition() 排除了转移到 0
+        int[] order = new int[64];
+        int stateCount = 1;
+        Deque<int[]> queue = new ArrayDeque<>();
+        queue.add(new int[]{ROOT, 0, n, 0});  // 状态，关键词区间 [lo, hi)，深度
+
+        int[] codes = new int[alphabetSize + 1];
+        int[] bounds = new int[alphabetSize + 2];
+        while (!queue.isEmpty()) {
+            int[] node = queue.poll();
+            int state = node[0], i = node[1], hi = node[2], depth = node[3];
+            // 较短的排在前面，恰好在此结束的关键词位于区间开头
+            if (i < hi && encoded[sorted[i]].length == depth) {
+                builder.output[state] = sorted[i];
+            }
+            while (i < hi && encoded[sorted[i]].length == depth) {
+                i++;
+            }
+            int count = 0;
+            while (i < hi) {
+                int code = encoded[sorted[i]][depth];
+                codes[count] = code;
+                bounds[count++] = i;
+                while (i < hi && encoded[sorted[i]][depth] == code) {
+                    i++;
+                }
+            }
+            bounds[count] = hi;
+            if (count == 0) {
+                continue;
+            }
+            int b = builder.findBase(codes, count);
+            builder.base[state] = b;
+            for (int k = 0; k < count; k++) {
+                int child = b + codes[k];
+                builder.occupy(child, state);
+                if (stateCount == order.length) {
+                    order = Arrays.copyOf(order, order.length * 2);
+                }
+                order[stateCount++] = child;
+                queue.add(new int[]{child, bounds[k], bounds[k + 1], depth + 1});
+            }
+        }
+
+        int size = builder.maxIndex + 1;
+        DoubleArrayAhoCorasick dat = new DoubleArrayAhoCorasick(codePages(codeOf, folding),
+                Arrays.copyOf(builder.base, size), Arrays.copyOf(builder.check, size), new int[size],
+                Arrays.copyOf(builder.output, size), words.toArray(new String[0]), stateCount, matchKind);
+        dat.buildFail(order, stateCount);
+        return dat;
+    }
+
+    // 按出现次数从多到少分配编码 1..K，未出现的字符为 0
+    private static int[] alphabet(int[] frequency) {
+        List<Integer> chars = new ArrayList<>();
+        for (int ch = 0; ch < frequency.length; ch++) {
+            if (frequency[ch] > 0) {
+                chars.add(ch);
+            }
+        }
+        chars.sort((a, b) -> Integer.compare(frequency[b], frequency[a]));
+        int[] codeOf = new int[frequency.length];
+        for (int i = 0; i < chars.size(); i++) {
+            codeOf[chars.get(i)] = i + 1;
+        }
+        return codeOf;
+    }
+
+    // 编码表分页，归一化并入编码表：所有归一化后落在字符表中的字符取同一编码
+    private static int[][] codePages(int[] codeOf, CharFolding folding) {
+        int[][] pages = new int[PAGE_SIZE][];
+        for (int ch = 0; ch <= Character.MAX_VALUE; ch++) {
+            int code = folding.isIdentity() ? codeOf[ch] : codeOf[folding.fold((char) ch)];
+            if (code > 0) {
+                int[] page = pages[ch >>> PAGE_BITS];
+                if (page == null) {
+                    page = pages[ch >>> PAGE_BITS] = new int[PAGE_SIZE];
+                }
+                page[ch & (PAGE_SIZE - 1)] = code;
+            }
+        }
+        return pages;
+    }
+
+    private static int compare(int[] a, int[] b) {
+        int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            if (a[i] != b[i]) {
+                return Integer.compare(a[i], b[i]);
+            }
+        }
+        return Integer.compare(a.length, b.length);
+    }
+
+    // 按层计算 fail：父状态的 fail 已经算好，沿 fail 链找第一个有同一转移的状态；fail 更浅，其输出链也已算好
+    private void buildFail(int[] order, int count) {
+        Arrays.fill(outputLink, -1);
+        for (int k = 1; k < count; k++) {
+            int state = order[k];
+            int parent = check[state];
+            depth[state] = depth[parent] + 1;
+            if (parent == ROOT) {
+                fail[state] = ROOT;
+                continue;
+            }
+            int code = state - base[parent];
+            int f = fail[parent];
+            int next;
+            while ((next = transition(f, code)) < 0 && f != ROOT) {
+                f = fail[f];
+            }
+            fail[state] = next >= 0 ? next : ROOT;
+            outputLink[state] = output[fail[state]] >= 0 ? fail[state] : outputLink[fail[state]];
+        }
+    }
+
+    /**
+     * 按构造时选定的 {@link MatchKind} 依次把每个命中交给 handler，handler 返回 false 时立即停止
+     * 不在任何关键词中出现的字符直接回到根
+     * @return 是否匹配到了文本末尾（未被 handler 中止）
+     */
+    public boolean search(CharSequence text, MatchHandler handler) {
+        return matchKind == MatchKind.STANDARD ? searchAll(text, handler) : searchLeftmost(text, handler);
+    }
+
+    // 每个位置沿输出链报告以此结尾的所有关键词，状态不变，下一个字符从当前状态继续
+    private boolean searchAll(CharSequence text, MatchHandler handler) {
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            state = next(state, text.charAt(i));
+            for (int s = output[state] >= 0 ? state : outputLink[state]; s >= 0; s = outputLink[s]) {
+                if (!handler.onMatch(i + 1 - depth[s], i + 1, output[s])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 暂存起点最靠左的候选命中，直到当前状态（最长的未完成前缀）的起点已在候选起点之后，
+     * 即不会再有起点更靠左或同起点更优的命中时才报告；报告后回到根，从命中结尾重新扫描，保证互不重叠。
+     * 回退的字符数不超过最长关键词的长度
+     */
+    private boolean searchLeftmost(CharSequence text, MatchHandler handler) {
+        boolean longest = matchKind == MatchKind.LEFTMOST_LONGEST;
+        int state = ROOT;
+        int start = -1, end = -1, id = -1;  // 候选命中，id < 0 表示没有
+        // i == text.length() 时到达末尾，报告剩余的候选后仍要从其结尾重新扫描
+        for (int i = 0; i <= text.length(); i++) {
+            boolean atEnd = i == text.length();
+            if (!atEnd) {
+                state = next(state, text.charAt(i));
+                for (int s = output[state] >= 0 ? state : outputLink[state]; s >= 0; s = outputLink[s]) {
+                    int from = i + 1 - depth[s];
+                    // 同一起点后出现的一定更长
+                    if (id < 0 || from < start || from == start && (longest || output[s] < id)) {
+                        start = from;
+                        end = i + 1;
+                        id = output[s];
+                    }
+                }
+            }
+            if (id >= 0 && (atEnd || i + 1 - depth[state] > start)) {
+                if (!handler.onMatch(start, end, id)) {
+                    return false;
+                }
+                i = end - 1;
+                state = ROOT;
+                id = -1;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 所有命中（按 {@link MatchKind}），按结束位置排列，每个命中占三个元素：起始下标、结束下标（不含）、关键词编号
+     */
+    public int[] findAll(CharSequence text) {
+        Collector collector = new Collector();
+        search(text, collector);
+        return Arrays.copyOf(collector.hits, collector.size);
+    }
+
+    /**
+     * 是否包含任一关键词，命中第一个即返回（用于过滤），与 {@link MatchKind} 无关
+     */
+    public boolean containsAny(CharSequence text) {
+        return !searchAll(text, (start, end, patternId) -> false);
+    }
+
+    /**
+     * 编号对应的关键词
+     */
+    public String getWord(int patternId) {
+        return words[patternId];
+    }
+
+    /**
+     * 构造时添加的关键词数（含重复）
+     */
+    public int patternCount() {
+        return words.length;
+    }
+
+    /**
+     * 状态数（即 trie 节点数）
+     */
+    public int size() {
+        return stateCount;
+    }
+
+    /**
+     * 双数组与编码表占用的内存（字节），不含关键词字符串本身
+     */
+    public long estimatedMemoryBytes() {
+        long pages = 0;
+        for (int[] page : codePages) {
+            if (page != null) {
+                pages++;
+            }
+        }
+        return (long) base.length * Integer.BYTES * 6 + (long) words.length * 8
+                + (long) codePages.length * 8 + pages * PAGE_SIZE * Integer.BYTES;
+    }
+
+    // 字符的编码，0 表示不在字符表中
+    private int code(char ch) {
+        int[] page = codePages[ch >>> PAGE_BITS];
+        return page == null ? 0 : page[ch & (PAGE_SIZE - 1)];
+    }
+
+    // 读入一个字符后的状态：沿 fail 链找到有该转移的状态，字符不在字符表中时回到根
+    private int next(int state, char ch) {
+        int code = code(ch);
+        if (code == 0) {
+            return ROOT;
+        }
+        int t;
+        while ((t = transition(state, code)) < 0 && state != ROOT) {
+            state = fail[state];
+        }
+        return t >= 0 ? t : ROOT;
+    }
+
+    // 状态 s 经编码 code 的转移，不存在返回 -1
+    private int transition(int state, int code) {
+        int t = base[state] + code;
+        return t < check.length && check[t] == state && t != ROOT ? t : -1;
+    }
+
+    // 把命中收集为 (start, end, patternId) 三元组
+    private static final class Collector implements MatchHandler {
+        int[] hits = new int[48];
+        int size;
+
+        @Override
+        public boolean onMatch(int start, int end, int patternId) {
+            if (size + 3 > hits.length) {
+                hits = Arrays.copyOf(hits, hits.length * 2);
+            }
+            hits[size++] = start;
+            hits[size++] = end;
+            hits[size++] = patternId;
+            return true;
+        }
+    }
+
+    // 构造时可增长的数组，空闲槽位串成双向链表，找 base 时只检查空闲槽位
+    private static final class ArrayBuilder {
+        int[] base = new int[0];
+        int[] check = new int[0];
+        int[] output = new int[0];
+        int[] nextFree = new int[0];
+        int[] prevFree = new int[0];
+        int freeHead = -1;
+        int freeTail = -1;
+        int maxIndex;
+
+        ArrayBuilder() {
+            ensure(1023);
+            unlink(ROOT);
+        }
+
+        // 依次以每个空闲槽位放置第一个子节点，直到所有子节点都能放下
+        int findBase(int[] codes, int count) {
+            if (freeHead < 0) {
+                ensure(check.length);
+            }
+            for (int f = freeHead; ; f = nextFree[f]) {
+                int b = f - codes[0];
+                if (b >= 1) {
+                    ensure(b + codes[count - 1]);
+                    boolean fits = true;
+                    for (int k = 1; k < count; k++) {
+                        if (check[b + codes[k]] != FREE) {
+                            fits = false;
+                            break;
+                        }
+                    }
+                    if (fits) {
+                        maxIndex = Math.max(maxIndex, b + codes[count - 1]);
+                        return b;
+                    }
+                }
+                if (nextFree[f] < 0) {
+                    ensure(check.length); // 链表末尾，扩容后继续
+                }
+            }
+        }
+
+        void occupy(int index, int parent) {
+            check[index] = parent;
+            unlink(index);
+        }
+
+        private void unlink(int index) {
+            int prev = prevFree[index];
+            int next = nextFree[index];
+            if (prev < 0) freeHead = next; else nextFree[prev] = next;
+            if (next < 0) freeTail = prev; else prevFree[next] = prev;
+        }
+
+        void ensure(int index) {
+            if (index < check.length) {
+                return;
+            }
+            int old = check.length;
+            int size = Math.max(old * 2, index + 1);
+            base = Arrays.copyOf(base, size);
+            check = Arrays.copyOf(check, size);
+            output = Arrays.copyOf(output, size);
+            nextFree = Arrays.copyOf(nextFree, size);
+            prevFree = Arrays.copyOf(prevFree, size);
+            for (int i = old; i < size; i++) {
+                check[i] = FREE;
+                output[i] = -1;
+                prevFree[i] = i == old ? freeTail : i - 1;
+                nextFree[i] = i + 1 < size ? i + 1 : -1;
+            }
+            if (freeTail < 0) freeHead = old; else nextFree[freeTail] = old;
+            freeTail = size - 1;
+        }
+    }
+}
@@ -4,7 +4,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * @Description KMP算法——用于单模匹配。
+ * @Description KMP算法——用于单模匹配。逐字符比较，任意字符（中文、数字、标点）均可匹配，
+ * 可选忽略大小写、全角转半角（一对一的字符映射，返回的下标即原文下标）
  * @Author UGcris
  * @Date 2018/9/7
  */
@@ -27,7 +28,7 @@ public class KMP {
         int j=0;
         for(int i=1;i<str.length();){
             while(j>0 && str.charAt(i)!=str.charAt(j))
-                j=next[i];
+                j=next[j];
             if(str.charAt(i)==str.charAt(j)) j++;
             next[++i]=j;
         }
@@ -42,13 +43,26 @@ public class KMP {
      * @Aate 2018/9/7
      */
     public List<Integer> search(String str , String matchedStr){
+        return search(str,matchedStr,false,false);
+    }
+
+    /**
+     * @Description 归一化后匹配：模式串整体归一化，文本逐字符归一化后比较，不复制文本
+     * @Params str,matchedStr,ignoreCase 忽略大小写,foldWidth 全角视为半角
+     * @Return List<Ineger>
+     */
+    public List<Integer> search(String str , String matchedStr , boolean ignoreCase , boolean foldWidth){
+        CharFolding folding=new CharFolding(ignoreCase,foldWidth);
+        matchedStr=folding.fold(matchedStr);
+        if(matchedStr.isEmpty()) return new ArrayList<Integer>();
         int[] next=getNext(matchedStr);
         int j=0;
         List<Integer> list=new ArrayList<Integer>();
         for(int i=0;i<str.length();i++){
-            while(j>0 && str.charAt(i) != matchedStr.charAt(j) )
+            char ch=folding.fold(str.charAt(i));
+            while(j>0 && ch != matchedStr.charAt(j) )
                 j=next[j];
-            if(str.charAt(i) == matchedStr.charAt(j))
+            if(ch == matchedStr.charAt(j))
                 j++;
             if(j==matchedStr.length()){
                 list.add(i-j+1);
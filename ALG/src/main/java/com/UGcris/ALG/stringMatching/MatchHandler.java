@@ -0,0 +1,16 @@
+package com.UGcris.ALG.stringMatching;
+
+/**
+ * @Description 流式接收多模匹配的结果，匹配一个文本的内存只与命中数有关
+ */
+@FunctionalInterface
+public interface MatchHandler {
+
+    /**
+     * @param start     命中的起始下标（含）
+     * @param end       命中的结束下标（不含）
+     * @param patternId 关键词编号，即构造时的添加顺序（重复的关键词取第一次出现的编号）
+     * @return false 表示停止匹配（如只需要知道是否命中）
+     */
+    boolean onMatch(int start, int end, int patternId);
+}
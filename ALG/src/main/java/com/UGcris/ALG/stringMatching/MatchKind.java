@@ -0,0 +1,22 @@
+package com.UGcris.ALG.stringMatching;
+
+/**
+ * @Description 多模匹配的命中语义
+ */
+public enum MatchKind {
+
+    /**
+     * 所有命中，包括相互重叠、结束于同一位置的命中（按结束位置排列，同一位置先长后短）
+     */
+    STANDARD,
+
+    /**
+     * 互不重叠的命中：从左到右取起点最靠左的命中，同一起点取最长的关键词（脱敏替换时整个词被替换）
+     */
+    LEFTMOST_LONGEST,
+
+    /**
+     * 互不重叠的命中：起点最靠左，同一起点取最先添加的关键词（与正则表达式 a|ab 的分支优先级相同）
+     */
+    LEFTMOST_FIRST
+}
@@ -0,0 +1,215 @@
+package com.UGcris.ALG;
+
+import com.UGcris.ALG.ratelimite.AdaptiveConcurrencyLimiter;
+import com.UGcris.ALG.ratelimite.ManualTimeSource;
+import com.UGcris.ALG.ratelimite.PackedTokenBucket;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveConcurrencyLimiterTest {
+    private static final long MS = 1_000_000;
+    private static final long WORK_NANOS = 10 * MS;     // 每个请求在空闲后端上的耗时
+    private static final long TIMEOUT_NANOS = 100 * MS; // 客户端超时，超时的请求不计入有效吞吐
+
+    /**
+     * 被模拟的前端准入策略
+     */
+    private interface Admission {
+        /** 放行返回开始时间，拒绝返回 {@link AdaptiveConcurrencyLimiter#REJECTED} */
+        long admit();
+
+        void complete(long start, boolean timedOut);
+    }
+
+    private static final class Request {
+        final long start;
+        final long admittedAt;
+        long remaining;
+
+        Request(long start, long admittedAt) {
+            this.start = start;
+            this.admittedAt = admittedAt;
+            this.remaining = WORK_NANOS;
+        }
+    }
+
+    /**
+     * 按 1ms 步长模拟的后端：workers 个处理单元按处理器共享方式服务所有在途请求，
+     * 在途数超过 workers 时每个请求都变慢；超时的请求被客户端放弃。
+     * 负载分三段：0~5s 1500/s（容量 2000/s），5~10s 3000/s（过载），10~20s 1500/s 但后端容量减半为 1000/s。
+     * @return 每段的有效吞吐（超时前完成的请求数）
+     */
+    private static long[] simulate(ManualTimeSource clock, Admission admission) {
+        List<Request> inflight = new ArrayList<>();
+        long[] goodput = new long[3];
+        double arrivals = 0;
+        for (int ms = 0; ms < 20_000; ms++) {
+            int phase = ms < 5_000 ? 0 : ms < 10_000 ? 1 : 2;
+            int workers = phase == 2 ? 10 : 20;
+            arrivals += phase == 1 ? 3.0 : 1.5;
+            for (; arrivals >= 1; arrivals--) {
+                long start = admission.admit();
+                if (start != AdaptiveConcurrencyLimiter.REJECTED) {
+                    inflight.add(new Request(start, ms));
+                }
+            }
+
+            clock.advance(1, TimeUnit.MILLISECONDS);
+            long share = inflight.size() <= workers ? MS : MS * workers / inflight.size();
+            for (Iterator<Request> it = inflight.iterator(); it.hasNext(); ) {
+                Request request = it.next();
+                request.remaining -= share;
+                if (request.remaining <= 0) {
+                    it.remove();
+                    admission.complete(request.start, false);
+                    goodput[phase]++;
+                } else if ((ms + 1 - request.admittedAt) * MS >= TIMEOUT_NANOS) {
+                    it.remove();
+                    admission.complete(request.start, true);
+                }
+            }
+        }
+        return goodput;
+    }
+
+    /**
+     * 测试：后端容量下降时固定速率的令牌桶把后端压垮（请求全部超时），自适应限流器收缩并发上限，保持有效吞吐
+     */
+    @Test
+    public void testHigherGoodputThanFixedBucket() {
+        ManualTimeSource fixedClock = new ManualTimeSource();
+        PackedTokenBucket bucket = new PackedTokenBucket(1800, 20, fixedClock); // 按原始容量 2000/s 配置
+        long[] fixed = simulate(fixedClock, new Admission() {
+            @Override
+            public long admit() {
+                return bucket.tryAcquire() ? fixedClock.nanoTime() : AdaptiveConcurrencyLimiter.REJECTED;
+            }
+
+            @Override
+            public void complete(long start, boolean timedOut) {
+            }
+        });
+
+        ManualTimeSource adaptiveClock = new ManualTimeSource();
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 1000, 100, adaptiveClock);
+        long[] adaptive = simulate(adaptiveClock, new Admission() {
+            @Override
+            public long admit() {
+                return limiter.tryAcquire();
+            }
+
+            @Override
+            public void complete(long start, boolean timedOut) {
+                if (timedOut) {
+                    limiter.onDropped(start);
+                } else {
+                    limiter.onSuccess(start);
+                }
+            }
+        });
+
+        long fixedTotal = fixed[0] + fixed[1] + fixed[2];
+        long adaptiveTotal = adaptive[0] + adaptive[1] + adaptive[2];
+        System.out.println("goodput fixed=" + Arrays.toString(fixed)
+                + " adaptive=" + Arrays.toString(adaptive) + " final limit=" + limiter.getLimit());
+        assertTrue(adaptiveTotal > fixedTotal * 1.2);
+        assertTrue(adaptive[0] > 7_000);      // 未过载时不误伤（5s * 1500/s）
+        assertTrue(adaptive[1] > 8_000);      // 过载时接近容量（5s * 2000/s）
+        assertTrue(adaptive[2] > 8_000);      // 容量减半后接近新容量（10s * 1000/s）
+        assertTrue(fixed[2] < 2_000);         // 固定速率下后端被压垮
+    }
+
+    /**
+     * 测试：在途请求数不超过上限，释放后名额可复用
+     */
+    @Test
+    public void testLimitsInflight() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(3, 1, 10, 100, new ManualTimeSource());
+        long a = limiter.tryAcquire();
+        long b = limiter.tryAcquire();
+        long c = limiter.tryAcquire();
+        assertNotEquals(AdaptiveConcurrencyLimiter.REJECTED, c);
+        assertEquals(AdaptiveConcurrencyLimiter.REJECTED, limiter.tryAcquire());
+        assertEquals(3, limiter.getInflight());
+
+        limiter.onSuccess(a);
+        limiter.onIgnore(b);
+        assertEquals(1, limiter.getInflight());
+        assertNotEquals(AdaptiveConcurrencyLimiter.REJECTED, limiter.tryAcquire());
+    }
+
+    /**
+     * 测试：耗时稳定时上限逐步增加，超时时乘性减，耗时明显上升时收缩
+     */
+    @Test
+    public void testLimitAdjustment() {
+        ManualTimeSource clock = new ManualTimeSource();
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 1, 200, 100, clock);
+        runWindows(clock, limiter, 20, 10);
+        int grown = limiter.getLimit();
+        assertTrue("limit should grow, was " + grown, grown > 30);
+
+        limiter.onDropped(limiter.tryAcquire());
+        assertEquals((int) (grown * 0.9), limiter.getLimit(), 1);
+
+        int beforeSlowdown = limiter.getLimit();
+        runWindows(clock, limiter, 20, 40); // 耗时上升为 4 倍
+        assertTrue(limiter.getLimit() < beforeSlowdown * 0.5);
+    }
+
+    // 运行若干个窗口，每个窗口在途数保持在上限，所有请求耗时 rttMillis
+    private static void runWindows(ManualTimeSource clock, AdaptiveConcurrencyLimiter limiter, int windows, long rttMillis) {
+        for (int w = 0; w < windows; w++) {
+            List<Long> starts = new ArrayList<>();
+            long start;
+            while ((start = limiter.tryAcquire()) != AdaptiveConcurrencyLimiter.REJECTED) {
+                starts.add(start);
+            }
+            clock.advance(Math.max(rttMillis, 100), TimeUnit.MILLISECONDS);
+            for (long s : starts) {
+                limiter.onSuccess(s + (Math.max(rttMillis, 100) - rttMillis) * MS);
+            }
+        }
+    }
+
+    /**
+     * 测试：多线程并发获取时在途数从不超过上限
+     */
+    @Test
+    public void testConcurrentInflightNeverExceedsLimit() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(5, 5, 5, 100, new ManualTimeSource());
+        int threads = 8;
+        AtomicInteger current = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    long start = limiter.tryAcquire();
+                    if (start != AdaptiveConcurrencyLimiter.REJECTED) {
+                        peak.accumulateAndGet(current.incrementAndGet(), Math::max);
+                        current.decrementAndGet();
+                        limiter.onSuccess(start);
+                    }
+                }
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertTrue(peak.get() <= 5);
+        assertEquals(0, limiter.getInflight());
+    }
+}
@@ -0,0 +1,55 @@
+package com.UGcris.ALG;
+
+import com.UGcris.ALG.ratelimite.CachedTimeSource;
+import com.UGcris.ALG.ratelimite.PackedTokenBucket;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class CachedTimeSourceTest {
+
+    /**
+     * 测试：缓存时钟随后台线程推进，误差不超过刷新周期
+     */
+    @Test
+    public void testAdvancesWithTicker() throws InterruptedException {
+        try (CachedTimeSource clock = new CachedTimeSource(1, TimeUnit.MILLISECONDS)) {
+            long start = clock.nanoTime();
+            Thread.sleep(50);
+            long elapsed = clock.nanoTime() - start;
+            assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(40));
+        }
+    }
+
+    /**
+     * 测试：close() 之后时钟停止推进
+     */
+    @Test
+    public void testCloseStopsTicker() throws InterruptedException {
+        CachedTimeSource clock = new CachedTimeSource(1, TimeUnit.MILLISECONDS);
+        clock.close();
+        Thread.sleep(20);
+        long stopped = clock.nanoTime();
+        Thread.sleep(20);
+        assertEquals(stopped, clock.nanoTime());
+    }
+
+    /**
+     * 测试：限流器可以直接使用缓存时钟
+     */
+    @Test
+    public void testLimiterWithCachedClock() {
+        try (CachedTimeSource clock = new CachedTimeSource(1, TimeUnit.MILLISECONDS)) {
+            PackedTokenBucket bucket = new PackedTokenBucket(1, 5, clock);
+            assertTrue(bucket.allow(5));
+            assertFalse(bucket.allow());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidResolution() {
+        new CachedTimeSource(0, TimeUnit.MILLISECONDS);
+    }
+}
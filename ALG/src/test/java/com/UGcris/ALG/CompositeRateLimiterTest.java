@@ -0,0 +1,142 @@
+package com.UGcris.ALG;
+
+import com.UGcris.ALG.ratelimite.CompositeRateLimiter;
+import com.UGcris.ALG.ratelimite.FixedWindowRateLimiter;
+import com.UGcris.ALG.ratelimite.KeyedTokenBucketLimiter;
+import com.UGcris.ALG.ratelimite.LeakyBucketAlgorithm;
+import com.UGcris.ALG.ratelimite.ManualTimeSource;
+import com.UGcris.ALG.ratelimite.PackedTokenBucket;
+import com.UGcris.ALG.ratelimite.RefundableKeyedRateLimiter;
+import com.UGcris.ALG.ratelimite.RefundableRateLimiter;
+import com.UGcris.ALG.ratelimite.SlidingWindowLogLimiter;
+import com.UGcris.ALG.ratelimite.SlidingWindowYHCounter;
+import com.UGcris.ALG.ratelimite.WeightedSlidingWindowCounter;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class CompositeRateLimiterTest {
+    private ManualTimeSource clock; // 手动推进时间，测试无需真实等待
+
+    @Before
+    public void setUp() {
+        clock = new ManualTimeSource();
+    }
+
+    private static String tenantOf(String key) {
+        return key.substring(0, key.indexOf('/'));
+    }
+
+    /**
+     * 测试：每用户 2 次、每租户 3 次、全局 5 次，被后面的层级拒绝时归还前面层级的额度
+     */
+    @Test
+    public void testLevelsAndRollback() {
+        FixedWindowRateLimiter perUser = new FixedWindowRateLimiter(2, 1000, clock);
+        CompositeRateLimiter limiter = new CompositeRateLimiter(clock,
+                CompositeRateLimiter.level("user", perUser),
+                CompositeRateLimiter.level("tenant", CompositeRateLimiterTest::tenantOf,
+                        new FixedWindowRateLimiter(3, 1000, clock)),
+                CompositeRateLimiter.level("global", new PackedTokenBucket(0.001, 5, clock)));
+
+        assertTrue(limiter.tryAcquire("t1/u1"));
+        assertTrue(limiter.tryAcquire("t1/u1"));
+        assertEquals(0, limiter.tryAcquireOrReject("t1/u1", 1));   // 用户超限
+        assertTrue(limiter.tryAcquire("t1/u2"));
+        assertEquals(1, limiter.tryAcquireOrReject("t1/u2", 1));   // 租户超限
+        assertEquals("tenant", limiter.levelName(1));
+        assertTrue(limiter.tryAcquire("t2/u3"));
+        assertTrue(limiter.tryAcquire("t2/u3"));
+        assertEquals(2, limiter.tryAcquireOrReject("t2/u4", 1));   // 全局超限
+
+        // 被拒绝时归还：u2 只被计了 1 次，u4 没有被计数
+        assertTrue(perUser.tryAcquire("t1/u2"));
+        assertFalse(perUser.tryAcquire("t1/u2"));
+        assertTrue(perUser.tryAcquire("t2/u4", 2));
+    }
+
+    /**
+     * 测试：所有可归还的限流器，获取后归还即恢复原额度
+     */
+    @Test
+    public void testRefundRestoresQuota() {
+        List<RefundableRateLimiter> limiters = new ArrayList<>();
+        limiters.add(new PackedTokenBucket(1, 3, clock));
+        limiters.add(new LeakyBucketAlgorithm(3, 1.0, clock));
+        limiters.add(new SlidingWindowYHCounter(1000, 3, 10, clock));
+        limiters.add(new WeightedSlidingWindowCounter(1000, 3, clock));
+        for (RefundableRateLimiter limiter : limiters) {
+            String name = limiter.getClass().getSimpleName();
+            long now = clock.nanoTime();
+            assertTrue(name, limiter.tryAcquireAt(2, now));
+            limiter.refund(2, now);
+            assertTrue(name, limiter.tryAcquireAt(3, now));
+            assertFalse(name, limiter.tryAcquireAt(1, now));
+            clock.advance(10, TimeUnit.SECONDS);
+        }
+
+        List<RefundableKeyedRateLimiter> keyed = new ArrayList<>();
+        keyed.add(new KeyedTokenBucketLimiter(1, 3, 64, clock));
+        keyed.add(new FixedWindowRateLimiter(3, 1000, clock));
+        keyed.add(new SlidingWindowLogLimiter(1000, 3, clock));
+        for (RefundableKeyedRateLimiter limiter : keyed) {
+            String name = limiter.getClass().getSimpleName();
+            long now = clock.nanoTime();
+            assertTrue(name, limiter.tryAcquireAt("k", 2, now));
+            limiter.refund("k", 2, now);
+            assertTrue(name, limiter.tryAcquireAt("k", 3, now));
+            assertFalse(name, limiter.tryAcquireAt("k", 1, now));
+            clock.advance(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testWaitHintIsLongestLevel() {
+        CompositeRateLimiter limiter = new CompositeRateLimiter(clock,
+                CompositeRateLimiter.level("user", new KeyedTokenBucketLimiter(10, 1, 64, clock)),
+                CompositeRateLimiter.level("global", new PackedTokenBucket(1, 1, clock)));
+        assertTrue(limiter.tryAcquire("u"));
+        assertEquals(TimeUnit.SECONDS.toNanos(1), limiter.waitHintNanos("u", 1));
+        assertEquals(-1, limiter.waitHintNanos("u", 2));
+    }
+
+    /**
+     * 测试：多线程多用户并发，全局层级不超限且每个用户不超限
+     */
+    @Test
+    public void testConcurrentNeverExceedsAnyLevel() throws InterruptedException {
+        FixedWindowRateLimiter perUser = new FixedWindowRateLimiter(30, 60_000);
+        CompositeRateLimiter limiter = new CompositeRateLimiter(
+                CompositeRateLimiter.level("user", perUser),
+                CompositeRateLimiter.level("global", new SlidingWindowYHCounter(60_000, 100, 10)));
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            String user = "user-" + (t % 4);
+            executor.submit(() -> {
+                try {
+                    for (int i = 0; i < 200; i++) {
+                        if (limiter.tryAcquire(user)) allowed.incrementAndGet();
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await();
+        executor.shutdown();
+        assertTrue(allowed.get() <= 100);
+        assertTrue(allowed.get() >= 90); // 归还窗口内的短暂误拒
+    }
+}
@@ -0,0 +1,128 @@
+package com.UGcris.ALG;
+
+import com.UGcris.ALG.ratelimite.DistributedTokenBucket;
+import com.UGcris.ALG.ratelimite.LocalTokenCoordinator;
+import com.UGcris.ALG.ratelimite.ManualTimeSource;
+import com.UGcris.ALG.ratelimite.TokenBucketAlgorithm;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class DistributedTokenBucketTest {
+    private ManualTimeSource clock; // 手动推进时间，测试无需真实等待
+    private LocalTokenCoordinator coordinator;
+
+    @Before
+    public void setUp() {
+        clock = new ManualTimeSource();
+        // 全局：容量 1000，每秒补充 1000 个
+        coordinator = new LocalTokenCoordinator(new TokenBucketAlgorithm(1000, 1000, clock));
+    }
+
+    private DistributedTokenBucket node(String id) {
+        return new DistributedTokenBucket(coordinator, id, 1, 500, 100, 1000, clock);
+    }
+
+    /**
+     * 测试：多个节点合计放行数不超过全局额度
+     */
+    @Test
+    public void testNodesShareGlobalLimit() {
+        DistributedTokenBucket a = node("a");
+        DistributedTokenBucket b = node("b");
+        int allowed = 0;
+        for (int i = 0; i < 2000; i++) {
+            if (a.allow()) allowed++;
+            if (b.allow()) allowed++;
+        }
+        assertEquals(1000, allowed);
+    }
+
+    /**
+     * 测试：租约大小随观测速率增长，访问协调者的次数远小于请求数
+     */
+    @Test
+    public void testLeaseSizeAdaptsToRate() {
+        DistributedTokenBucket busy = node("busy");
+        DistributedTokenBucket quiet = node("quiet");
+        int requests = 0;
+        for (int ms = 0; ms < 2000; ms++) {
+            for (int i = 0; i < 4; i++) {   // busy：每毫秒 4 个请求，超过全局速率
+                busy.allow();
+                requests++;
+            }
+            if (ms % 100 == 0) {            // quiet：每 100ms 1 个请求
+                assertTrue(quiet.allow());
+                requests++;
+            }
+            clock.advance(1, TimeUnit.MILLISECONDS);
+        }
+        assertTrue("busy lease " + busy.getLeaseSize(), busy.getLeaseSize() > 50);
+        assertTrue("quiet lease " + quiet.getLeaseSize(), quiet.getLeaseSize() <= 2);
+        assertTrue("leases " + coordinator.getLeaseCount(), coordinator.getLeaseCount() * 10 < requests);
+    }
+
+    /**
+     * 测试：租约过期后未使用的令牌归还给协调者
+     */
+    @Test
+    public void testExpiredLeaseReturnsTokens() {
+        DistributedTokenBucket a = new DistributedTokenBucket(coordinator, "a", 100, 500, 100, 1000, clock);
+        assertTrue(a.allow());
+        assertEquals(99, a.getLocalTokens());
+        clock.advance(1001, TimeUnit.MILLISECONDS);
+        assertTrue(a.allow());
+        assertEquals(99, coordinator.getReleasedTokens());
+        a.close();
+        assertEquals(0, a.getLocalTokens());
+    }
+
+    /**
+     * 测试：全局额度耗尽时本地退避，不再逐个请求访问协调者
+     */
+    @Test
+    public void testBacksOffWhenCoordinatorExhausted() {
+        DistributedTokenBucket a = node("a");
+        while (a.allow()) {
+            // 耗尽全局额度
+        }
+        long leases = coordinator.getLeaseCount();
+        for (int i = 0; i < 1000; i++) {
+            assertFalse(a.allow());
+        }
+        assertEquals(leases, coordinator.getLeaseCount());
+        assertTrue(a.waitHintNanos(1) > 0);
+        clock.advance(a.waitHintNanos(1), TimeUnit.NANOSECONDS);
+        assertTrue(a.allow());
+    }
+
+    @Test
+    public void testConcurrentRequestsOnOneNode() throws InterruptedException {
+        DistributedTokenBucket a = node("a");
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                try {
+                    for (int i = 0; i < 500; i++) {
+                        if (a.allow()) allowed.incrementAndGet();
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await();
+        executor.shutdown();
+        assertEquals(1000, allowed.get());
+    }
+}
@@ -0,0 +1,367 @@
+package com.UGcris.ALG;
+
+import com.UGcris.ALG.stringMatching.AhoCorasick;
+import com.UGcris.ALG.stringMatching.DoubleArrayAhoCorasick;
+import com.UGcris.ALG.stringMatching.MatchKind;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class DoubleArrayAhoCorasickTest {
+
+    /**
+     * 测试：编译后的双数组与原 trie 树的匹配结果一致
+     */
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testSameResultAsTrie() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            List<String> words = new ArrayList<>();
+            for (int i = 0; i < 1 + random.nextInt(20); i++) {
+                words.add(randomWord(random, 1 + random.nextInt(5), 5));
+            }
+            String text = randomWord(random, 1 + random.nextInt(200), 5);
+
+            AhoCorasick ac = new AhoCorasick();
+            String[][] expected = ac.acSearch(words, text);
+            DoubleArrayAhoCorasick dat = ac.compile(words);
+            String[][] actual = new String[text.length()][text.length() + 1];
+            int[] hits = dat.findAll(text);
+            for (int k = 0; k < hits.length; k += 3) {
+                assertEquals(hits[k + 1] - hits[k], dat.getWord(hits[k + 2]).length());
+                actual[hits[k]][hits[k + 1]] = dat.getWord(hits[k + 2]);
+            }
+            for (int i = 0; i < text.length(); i++) {
+                assertArrayEquals(words + " / " + text, expected[i], actual[i]);
+            }
+        }
+    }
+
+    /**
+     * 测试：原 trie 树的关键词和文本包含大写字母、数字、汉字时不越界，按原样区分大小写
+     */
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testTrieAcceptsMixedCaseAndChinese() {
+        List<String> words = Arrays.asList("He", "she", "中国", "国人", "A1", "he");
+        String text = "She和He说：中国人A1";
+        AhoCorasick ac = new AhoCorasick();
+        String[][] result = ac.acSearch(words, text);
+        assertEquals("he", result[1][3]);
+        assertEquals("He", result[4][6]);
+        assertEquals("中国", result[8][10]);
+        assertEquals("国人", result[9][11]);
+        assertEquals("A1", result[11][13]);
+        int found = 0;
+        for (String[] row : result) {
+            for (String word : row) {
+                if (word != null) {
+                    found++;
+                }
+            }
+        }
+        assertEquals(5, found); // "She" 与 "she" 大小写不同，不匹配
+        assertEquals(found, ac.compile(words).findAll(text).length / 3);
+    }
+
+    /**
+     * 测试：示例关键词的匹配位置
+     */
+    @Test
+    public void testSearch() {
+        DoubleArrayAhoCorasick dat = new AhoCorasick().compile(Arrays.asList("he", "she", "his", "hers"));
+        // 编号为添加顺序：he=0, she=1, his=2, hers=3；同一位置结尾的 she、he 都报告，先长后短
+        assertArrayEquals(new int[]{1, 4, 2, 3, 6, 1, 4, 6, 0, 4, 8, 3}, dat.findAll("ahishers"));
+        assertEquals(4, dat.patternCount());
+        assertEquals(10, dat.size()); // 根 + h,he,her,hers,hi,his + s,sh,she
+    }
+
+    /**
+     * 测试：不在 a~z 内的字符不会越界，视为不匹配
+     */
+    @Test
+    public void testCharactersOutsideAlphabet() {
+        DoubleArrayAhoCorasick dat = new AhoCorasick().compile(Arrays.asList("ab", "bc"));
+        assertArrayEquals(new int[]{7, 9, 1}, dat.findAll("a b,AB-bc"));
+    }
+
+    /**
+     * 测试：10 万个关键词时状态紧凑排列，每个状态的内存远小于 trie 节点
+     */
+    @Test
+    public void testCompactForLargeDictionary() {
+        Random random = new Random(7);
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            words.add(randomWord(random, 4 + random.nextInt(8), 26));
+        }
+        DoubleArrayAhoCorasick dat = new AhoCorasick().compile(words);
+        long bytesPerState = dat.estimatedMemoryBytes() / dat.size();
+        assertTrue("bytes per state " + bytesPerState, bytesPerState < 40);
+    }
+
+    /**
+     * 测试：builder 构造一次，与每次重新构造的结果一致
+     */
+    @Test
+    public void testBuilder() {
+        DoubleArrayAhoCorasick matcher = DoubleArrayAhoCorasick.builder()
+                .add("he").addAll(Arrays.asList("she", "his", "hers")).build();
+        assertArrayEquals(new int[]{1, 4, 1, 2, 4, 0, 2, 6, 3}, matcher.findAll("ushers"));
+    }
+
+    /**
+     * 测试：经输出链报告 fail 链上的短关键词，且命中后不跳转状态，后面的命中不丢失
+     */
+    @Test
+    public void testOverlappingMatches() {
+        DoubleArrayAhoCorasick matcher = DoubleArrayAhoCorasick.builder()
+                .addAll(Arrays.asList("abcd", "bc", "c", "cde")).build();
+        // abcd 路径上的 bc、c 不在同一个节点，只能经输出链找到；命中 abcd 后 cde 仍然命中
+        assertArrayEquals(new int[]{1, 3, 1, 2, 3, 2, 0, 4, 0, 2, 5, 3}, matcher.findAll("abcde"));
+    }
+
+    /**
+     * 测试：三种命中语义与逐位置暴力匹配一致
+     */
+    @Test
+    public void testSameResultAsBruteForce() {
+        Random random = new Random(17);
+        for (MatchKind kind : MatchKind.values()) {
+            for (int round = 0; round < 300; round++) {
+                List<String> words = new ArrayList<>();
+                for (int i = 0; i < 1 + random.nextInt(12); i++) {
+                    words.add(randomWord(random, 1 + random.nextInt(5), 3));
+                }
+                String text = randomWord(random, random.nextInt(120), 3);
+                DoubleArrayAhoCorasick matcher = DoubleArrayAhoCorasick.builder().matchKind(kind).addAll(words).build();
+                assertArrayEquals(kind + " " + words + " / " + text, bruteForce(words, text, kind), matcher.findAll(text));
+            }
+        }
+    }
+
+    /**
+     * 测试：最左最长取同一起点最长的词，最左优先取同一起点最先添加的词，命中互不重叠
+     */
+    @Test
+    public void testLeftmost() {
+        List<String> words = Arrays.asList("sam", "samwise", "wise", "mwi");
+        DoubleArrayAhoCorasick longest = DoubleArrayAhoCorasick.builder()
+                .matchKind(MatchKind.LEFTMOST_LONGEST).addAll(words).build();
+        DoubleArrayAhoCorasick first = DoubleArrayAhoCorasick.builder()
+                .matchKind(MatchKind.LEFTMOST_FIRST).addAll(words).build();
+        DoubleArrayAhoCorasick standard = DoubleArrayAhoCorasick.builder().addAll(words).build();
+        assertArrayEquals(new int[]{1, 8, 1}, longest.findAll("xsamwisex"));
+        assertArrayEquals(new int[]{1, 4, 0, 4, 8, 2}, first.findAll("xsamwisex"));
+        assertEquals(12, standard.findAll("xsamwisex").length);
+        // 较长的候选未完成时不提前报告，失败后回到候选结尾继续
+        assertArrayEquals(new int[]{0, 3, 0, 5, 8, 3}, longest.findAll("samwxmwi"));
+        assertTrue(longest.containsAny("wise"));
+    }
+
+    /**
+     * 测试：handler 返回 false 时立即停止；containsAny 命中第一个即返回
+     */
+    @Test
+    public void testStopEarly() {
+        DoubleArrayAhoCorasick matcher = DoubleArrayAhoCorasick.builder().addAll(Arrays.asList("ab", "cd")).build();
+        List<Integer> ends = new ArrayList<>();
+        assertFalse(matcher.search("xxabxxcdxxab", (start, end, patternId) -> {
+            ends.add(end);
+            return false;
+        }));
+        assertEquals(Arrays.asList(4), ends);
+        assertTrue(matcher.search("xxabxxcd", (start, end, patternId) -> true));
+        assertTrue(matcher.containsAny("xxxxcd"));
+        assertFalse(matcher.containsAny("xxxxxx"));
+        assertFalse(matcher.containsAny(""));
+    }
+
+    /**
+     * 测试：长文本（1MB）的结果只与命中数有关，原矩阵需要 n² 个引用
+     */
+    @Test
+    public void testLargeText() {
+        DoubleArrayAhoCorasick matcher = DoubleArrayAhoCorasick.builder().add("needle").build();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1 << 20; i += 1024) {
+            char[] block = new char[1018];
+            Arrays.fill(block, 'x');
+            sb.append(block).append("needle");
+        }
+        int[] hits = matcher.findAll(sb);
+        assertEquals(3 * 1024, hits.length);
+        assertEquals(1018, hits[0]);
+        assertEquals((1 << 20) - 6, hits[hits.length - 3]);
+        assertEquals(1 << 20, hits[hits.length - 2]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuilderRejectsEmptyKeyword() {
+        DoubleArrayAhoCorasick.builder().add("");
+    }
+
+    /**
+     * 测试：同一个编译结果在多个线程中并发匹配，结果与单线程一致
+     */
+    @Test
+    public void testSharedAcrossThreads() throws Exception {
+        Random random = new Random(3);
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            words.add(randomWord(random, 2 + random.nextInt(4), 6));
+        }
+        DoubleArrayAhoCorasick matcher = DoubleArrayAhoCorasick.builder().addAll(words).build();
+        List<String> texts = new ArrayList<>();
+        List<int[]> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            String text = randomWord(random, 100, 6);
+            texts.add(text);
+            expected.add(matcher.findAll(text));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                for (int round = 0; round < 20; round++) {
+                    for (int i = 0; i < texts.size(); i++) {
+                        if (!Arrays.equals(expected.get(i), matcher.findAll(texts.get(i)))) {
+                            return false;
+                        }
+                    }
+                }
+                return true;
+            }));
+        }
+        for (Future<Boolean> future : futures) {
+            assertTrue(future.get());
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * 测试：中文、数字、大写、空格与标点组成的关键词
+     */
+    @Test
+    public void testUnicode() {
+        DoubleArrayAhoCorasick matcher = DoubleArrayAhoCorasick.builder()
+                .addAll(Arrays.asList("天气", "天安门", "A-1024", "New York")).build();
+        assertArrayEquals(new int[]{2, 4, 0, 7, 15, 3}, matcher.findAll("今天天气好，去New York"));
+        assertArrayEquals(new int[]{3, 9, 2}, matcher.findAll("订单：A-1024"));
+        assertFalse(matcher.containsAny("a-1024 new york"));
+        // 代理对按两个 char 匹配，下标为 char 下标
+        DoubleArrayAhoCorasick emoji = DoubleArrayAhoCorasick.builder().add("\uD83D\uDE00笑").build();
+        assertArrayEquals(new int[]{1, 4, 0}, emoji.findAll("哈\uD83D\uDE00笑"));
+    }
+
+    /**
+     * 测试：忽略大小写、全角转半角，命中的下标为原文下标，getWord 返回原关键词
+     */
+    @Test
+    public void testFolding() {
+        DoubleArrayAhoCorasick matcher = DoubleArrayAhoCorasick.builder()
+                .ignoreCase().foldWidth().addAll(Arrays.asList("VIP", "qq群")).build();
+        assertArrayEquals(new int[]{0, 3, 0, 4, 7, 0, 8, 11, 1}, matcher.findAll("vip ＶＩｐ ＱＱ群"));
+        assertEquals("qq群", matcher.getWord(1));
+
+        DoubleArrayAhoCorasick caseOnly = DoubleArrayAhoCorasick.builder().ignoreCase().add("straße").build();
+        assertTrue(caseOnly.containsAny("STRAßE"));
+        assertFalse(caseOnly.containsAny("ＳＴＲＡßＥ"));
+        assertFalse(DoubleArrayAhoCorasick.builder().add("vip").build().containsAny("VIP"));
+    }
+
+    /**
+     * 测试：10 万个中文关键词（常用汉字）构造后紧凑排列，匹配与 indexOf 一致
+     */
+    @Test
+    public void testLargeChineseDictionary() {
+        Random random = new Random(5);
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            words.add(randomChinese(random, 2 + random.nextInt(4)));
+        }
+        DoubleArrayAhoCorasick matcher = DoubleArrayAhoCorasick.builder().addAll(words).build();
+        long bytesPerState = matcher.estimatedMemoryBytes() / matcher.size();
+        assertTrue("bytes per state " + bytesPerState, bytesPerState < 40);
+
+        String text = randomChinese(random, 10_000);
+        int[] hits = matcher.findAll(text);
+        for (int k = 0; k < hits.length; k += 3) {
+            assertEquals(matcher.getWord(hits[k + 2]), text.substring(hits[k], hits[k + 1]));
+        }
+        for (int k = 0; k < 100; k++) {
+            String word = words.get(random.nextInt(words.size()));
+            assertTrue(matcher.containsAny("，" + word + "。"));
+        }
+    }
+
+    // 前 3000 个常用汉字范围内的随机字（一 起）
+    private static String randomChinese(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) (0x4E00 + random.nextInt(3000)));
+        }
+        return sb.toString();
+    }
+
+    // 逐位置比较：所有命中按结束位置、先长后短；最左语义从上一个命中的结尾开始找最靠左的起点
+    private static int[] bruteForce(List<String> words, String text, MatchKind kind) {
+        List<Integer> hits = new ArrayList<>();
+        if (kind == MatchKind.STANDARD) {
+            for (int end = 1; end <= text.length(); end++) {
+                for (int length = end; length >= 1; length--) {
+                    int id = words.indexOf(text.substring(end - length, end));
+                    if (id >= 0) {
+                        hits.addAll(Arrays.asList(end - length, end, id));
+                    }
+                }
+            }
+        } else {
+            int pos = 0;
+            while (pos < text.length()) {
+                int best = -1;
+                int start = pos;
+                for (; start < text.length() && best < 0; start++) {
+                    for (int id = 0; id < words.size(); id++) {
+                        String word = words.get(id);
+                        if (text.startsWith(word, start) && (best < 0 || (kind == MatchKind.LEFTMOST_LONGEST
+                                ? word.length() > words.get(best).length() : false))) {
+                            best = id;
+                        }
+                    }
+                }
+                if (best < 0) {
+                    break;
+                }
+                start--;
+                // 同长的重复关键词取第一次出现的编号
+                best = words.indexOf(words.get(best));
+                hits.addAll(Arrays.asList(start, start + words.get(best).length(), best));
+                pos = start + words.get(best).length();
+            }
+        }
+        int[] result = new int[hits.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = hits.get(i);
+        }
+        return result;
+    }
+
+    private static String randomWord(Random random, int length, int letters) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + random.nextInt(letters)));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,325 @@
+package com.UGcris.ALG;
+
+import com.UGcris.ALG.ratelimite.FairRateLimiter;
+import com.UGcris.ALG.ratelimite.ManualTimeSource;
+import com.UGcris.ALG.ratelimite.PackedTokenBucket;
+import com.UGcris.ALG.ratelimite.RateLimiter;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+public class FairRateLimiterTest {
+
+    /**
+     * 统计同时进入 tryAcquire 的线程数的底层限流器包装
+     */
+    private static final class ContentionProbe implements RateLimiter {
+        final RateLimiter target;
+        final AtomicInteger concurrent = new AtomicInteger();
+        final AtomicInteger peak = new AtomicInteger();
+
+        ContentionProbe(RateLimiter target) {
+            this.target = target;
+        }
+
+        @Override
+        public boolean tryAcquire(int permits) {
+            peak.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            try {
+                Thread.yield(); // 放大并发窗口
+                return target.tryAcquire(permits);
+            } finally {
+                concurrent.decrementAndGet();
+            }
+        }
+
+        @Override
+        public long waitHintNanos(int permits) {
+            return target.waitHintNanos(permits);
+        }
+    }
+
+    // 轮询等待条件成立（最多 5 秒），只用于等其他线程排队或拿到许可，不依赖具体耗时
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    // 依次启动等待线程，确认前一个已经排队后再启动下一个
+    private static List<Thread> startWaiters(FairRateLimiter limiter, int count, List<Integer> order) throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int id = i;
+            Thread thread = new Thread(() -> {
+                try {
+                    limiter.acquire();
+                    order.add(id);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+            int queued = i + 1;
+            awaitCondition(() -> limiter.getQueueLength() >= queued);
+        }
+        return threads;
+    }
+
+    /**
+     * 测试：等待者按到达顺序获得许可
+     */
+    @Test
+    public void testFifoOrder() throws InterruptedException {
+        ManualTimeSource clock = new ManualTimeSource();
+        FairRateLimiter limiter = new FairRateLimiter(new PackedTokenBucket(50, 1, clock), clock); // 20ms 一个令牌
+        assertTrue(limiter.tryAcquire());
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        List<Thread> threads = startWaiters(limiter, 8, order);
+        for (int i = 0; i < 8; i++) {
+            assertEquals(i, order.size()); // 时钟不动就没有新令牌
+            clock.advance(20, TimeUnit.MILLISECONDS);
+            int granted = i + 1;
+            awaitCondition(() -> order.size() >= granted);
+        }
+        for (Thread thread : threads) {
+            thread.join(5_000);
+        }
+        assertEquals(8, order.size());
+        for (int i = 0; i < 8; i++) {
+            assertEquals(i, (int) order.get(i));
+        }
+        assertEquals(0, limiter.getQueueLength());
+    }
+
+    /**
+     * 测试：有人排队时非阻塞获取不能插队
+     */
+    @Test
+    public void testNoBargingWhileQueued() throws InterruptedException {
+        ManualTimeSource clock = new ManualTimeSource();
+        FairRateLimiter limiter = new FairRateLimiter(new PackedTokenBucket(20, 1, clock), clock); // 50ms 一个令牌
+        assertTrue(limiter.tryAcquire());
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        List<Thread> threads = startWaiters(limiter, 1, order);
+        clock.advance(50, TimeUnit.MILLISECONDS); // 令牌已补充，但属于排队的线程
+        assertFalse(limiter.tryAcquire());
+        threads.get(0).join(5_000);
+        assertEquals(1, order.size());
+    }
+
+    /**
+     * 测试：大量线程等待时，同时访问底层限流器的线程数不随等待者增加
+     */
+    @Test
+    public void testBoundedContention() throws InterruptedException {
+        ContentionProbe probe = new ContentionProbe(new PackedTokenBucket(200, 1)); // 5ms 一个令牌
+        FairRateLimiter limiter = new FairRateLimiter(probe);
+        assertTrue(limiter.tryAcquire());
+        List<Thread> threads = new ArrayList<>();
+        AtomicInteger acquired = new AtomicInteger();
+        for (int i = 0; i < 64; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    limiter.acquire();
+                    acquired.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        // 所有线程都已排队（或已获得许可）后开始统计，此后只有队首会访问底层限流器
+        awaitCondition(() -> limiter.getQueueLength() + acquired.get() >= 64);
+        probe.peak.set(0);
+        for (Thread thread : threads) {
+            thread.join(10_000);
+        }
+        assertEquals(64, acquired.get());
+        assertTrue("peak " + probe.peak.get(), probe.peak.get() <= 1);
+        assertEquals(0, limiter.getQueueLength());
+    }
+
+    /**
+     * 测试：排在中间的等待者超时或被中断离开后，后面的等待者不受影响
+     */
+    @Test
+    public void testTimeoutAndInterruptLeaveQueue() throws InterruptedException {
+        ManualTimeSource clock = new ManualTimeSource();
+        FairRateLimiter limiter = new FairRateLimiter(new PackedTokenBucket(10, 1, clock), clock); // 100ms 一个令牌
+        assertTrue(limiter.tryAcquire());
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        List<Thread> first = startWaiters(limiter, 1, order);
+
+        AtomicBoolean timedOutResult = new AtomicBoolean(true);
+        Thread timedOut = new Thread(() -> {
+            try {
+                timedOutResult.set(limiter.tryAcquire(1, 20, TimeUnit.MILLISECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        timedOut.start();
+        awaitCondition(() -> limiter.getQueueLength() >= 2);
+        clock.advance(20, TimeUnit.MILLISECONDS); // 越过截止时间，但还没有新令牌
+        timedOut.join(5_000);
+        assertFalse(timedOut.isAlive());
+        assertFalse(timedOutResult.get());
+
+        List<Thread> rest = startWaiters(limiter, 2, order);
+        rest.get(0).interrupt();
+        rest.get(0).join(5_000);
+        clock.advance(80, TimeUnit.MILLISECONDS);
+        first.get(0).join(5_000);
+        clock.advance(100, TimeUnit.MILLISECONDS);
+        rest.get(1).join(5_000);
+        assertEquals(2, order.size());
+        assertEquals(0, limiter.getQueueLength());
+        assertFalse(rest.get(1).isAlive());
+    }
+
+    /**
+     * 测试：异步与阻塞等待者交替到达，仍按到达顺序获得许可
+     */
+    @Test
+    public void testAsyncAndBlockingWaitersShareFifoOrder() throws Exception {
+        ManualTimeSource clock = new ManualTimeSource();
+        FairRateLimiter limiter = new FairRateLimiter(new PackedTokenBucket(50, 1, clock), clock); // 20ms 一个令牌
+        assertTrue(limiter.tryAcquire());
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            int id = i;
+            if (i % 2 == 0) {
+                Thread thread = new Thread(() -> {
+                    try {
+                        limiter.acquire();
+                        order.add(id);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            } else {
+                futures.add(limiter.acquireAsync().thenRun(() -> order.add(id)));
+            }
+            int queued = i + 1;
+            awaitCondition(() -> limiter.getQueueLength() >= queued);
+        }
+        for (int i = 0; i < 8; i++) {
+            clock.advance(20, TimeUnit.MILLISECONDS);
+            int granted = i + 1;
+            awaitCondition(() -> order.size() >= granted);
+        }
+        for (Thread thread : threads) {
+            thread.join(5_000);
+        }
+        for (CompletableFuture<Void> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7), order);
+        assertEquals(0, limiter.getQueueLength());
+    }
+
+    /**
+     * 测试：阻塞等待者持续排队时，异步获取不会饿死
+     */
+    @Test
+    public void testAsyncNotStarvedByBlockingLoad() throws Exception {
+        FairRateLimiter limiter = new FairRateLimiter(new PackedTokenBucket(200, 1)); // 5ms 一个令牌
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    while (running.get()) {
+                        limiter.acquire();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        awaitCondition(() -> limiter.getQueueLength() >= 3);
+        limiter.acquireAsync().get(2, TimeUnit.SECONDS); // 超时抛出 TimeoutException
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join(5_000);
+        }
+    }
+
+    /**
+     * 测试：取消排队中的异步获取后离开队列，后面的等待者不受影响
+     */
+    @Test
+    public void testCancelledAsyncLeavesQueue() throws Exception {
+        ManualTimeSource clock = new ManualTimeSource();
+        FairRateLimiter limiter = new FairRateLimiter(new PackedTokenBucket(20, 1, clock), clock); // 50ms 一个令牌
+        assertTrue(limiter.tryAcquire());
+        CompletableFuture<Void> first = limiter.acquireAsync();
+        CompletableFuture<Void> second = limiter.acquireAsync();
+        assertEquals(2, limiter.getQueueLength());
+        first.cancel(false);
+        clock.advance(50, TimeUnit.MILLISECONDS);
+        second.get(5, TimeUnit.SECONDS);
+        assertEquals(0, limiter.getQueueLength());
+    }
+
+    /**
+     * 测试：带超时的等待按注入的时钟计算截止时间，时钟越过截止时间后排队者立即放弃
+     */
+    @Test
+    public void testTimedWaitUsesTimeSource() throws InterruptedException {
+        ManualTimeSource clock = new ManualTimeSource();
+        FairRateLimiter limiter = new FairRateLimiter(new PackedTokenBucket(10, 1, clock), clock); // 100ms 一个令牌
+        assertTrue(limiter.tryAcquire());
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        List<Thread> first = startWaiters(limiter, 1, order);
+        AtomicBoolean result = new AtomicBoolean(true);
+        Thread timed = new Thread(() -> {
+            try {
+                result.set(limiter.tryAcquire(1, 10, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        timed.start();
+        awaitCondition(() -> limiter.getQueueLength() >= 2);
+
+        clock.advance(11, TimeUnit.SECONDS); // 只补充一个令牌，且已越过截止时间
+        first.get(0).join(5_000);
+        timed.join(5_000);
+        assertFalse(timed.isAlive());
+        assertFalse(result.get());
+        assertEquals(1, order.size());
+        assertEquals(0, limiter.getQueueLength());
+    }
+
+    /**
+     * 测试：permits 超过上限时立即失败
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testAcquireMoreThanCapacity() throws InterruptedException {
+        FairRateLimiter limiter = new FairRateLimiter(new PackedTokenBucket(10, 1));
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire(5, 1, TimeUnit.SECONDS));
+        limiter.acquire(5);
+    }
+}
@@ -1,48 +1,55 @@
 package com.UGcris.ALG;
 import com.UGcris.ALG.ratelimite.FixedWindowRateLimiter;
+import com.UGcris.ALG.ratelimite.ManualTimeSource;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 
-class FixedWindowRateLimiterTest {
+public class FixedWindowRateLimiterTest {
     private FixedWindowRateLimiter rateLimiter;
+    private ManualTimeSource clock; // 手动推进时间，测试无需真实等待
     private static final String TEST_KEY = "testKey";
     private static final int MAX_REQUESTS = 5;
     private static final long WINDOW_SIZE_MS = 1000; // 1 second
 
     @Before
-    void setUp() {
-        rateLimiter = new FixedWindowRateLimiter(MAX_REQUESTS, WINDOW_SIZE_MS);
+    public void setUp() {
+        clock = new ManualTimeSource();
+        rateLimiter = new FixedWindowRateLimiter(MAX_REQUESTS, WINDOW_SIZE_MS, clock);
     }
 
     @After
-    void tearDown() {
+    public void tearDown() {
         rateLimiter.shutdown();
     }
 
     @Test
-    void allowRequest_withNullKey_shouldReturnFalse() {
+    public void allowRequest_withNullKey_shouldReturnFalse() {
         assertFalse(rateLimiter.allowRequest(null));
     }
 
     @Test
-    void allowRequest_withEmptyKey_shouldReturnFalse() {
+    public void allowRequest_withEmptyKey_shouldReturnFalse() {
         assertFalse(rateLimiter.allowRequest(""));
     }
 
     @Test
-    void allowRequest_withValidKey_shouldAllowRequestsWithinLimit() {
+    public void allowRequest_withValidKey_shouldAllowRequestsWithinLimit() {
         for (int i = 0; i < MAX_REQUESTS; i++) {
             assertTrue(rateLimiter.allowRequest(TEST_KEY));
         }
     }
 
     @Test
-    void allowRequest_withValidKey_shouldDenyRequestsBeyondLimit() {
+    public void allowRequest_withValidKey_shouldDenyRequestsBeyondLimit() {
         // Exhaust the limit
         for (int i = 0; i < MAX_REQUESTS; i++) {
             rateLimiter.allowRequest(TEST_KEY);
@@ -53,21 +60,21 @@ class FixedWindowRateLimiterTest {
     }
 
     @Test
-    void allowRequest_afterWindowReset_shouldAllowRequestsAgain() throws InterruptedException {
+    public void allowRequest_afterWindowReset_shouldAllowRequestsAgain() throws InterruptedException {
         // Exhaust the limit
         for (int i = 0; i < MAX_REQUESTS; i++) {
             rateLimiter.allowRequest(TEST_KEY);
         }
 
         // Wait for window reset
-        TimeUnit.MILLISECONDS.sleep(WINDOW_SIZE_MS + 100);
+        clock.advance(WINDOW_SIZE_MS + 100, TimeUnit.MILLISECONDS);
 
         // Should allow requests again
         assertTrue(rateLimiter.allowRequest(TEST_KEY));
     }
 
     @Test
-    void allowRequest_withDifferentKeys_shouldTrackSeparately() {
+    public void allowRequest_withDifferentKeys_shouldTrackSeparately() {
         String key1 = "key1";
         String key2 = "key2";
 
@@ -79,4 +86,30 @@ class FixedWindowRateLimiterTest {
         // Key2 should still have full quota
         assertTrue(rateLimiter.allowRequest(key2));
     }
+
+    @Test
+    public void allowRequest_concurrentSameKey_shouldNeverExceedLimit() throws InterruptedException {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                try {
+                    for (int i = 0; i < 1000; i++) {
+                        if (rateLimiter.allowRequest(TEST_KEY)) {
+                            allowed.incrementAndGet();
+                        }
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await();
+        executor.shutdown();
+
+        // 时间静止在同一个窗口内，只能放行 MAX_REQUESTS 次
+        assertEquals(MAX_REQUESTS, allowed.get());
+    }
 }
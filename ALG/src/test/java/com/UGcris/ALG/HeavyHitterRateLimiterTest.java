@@ -0,0 +1,124 @@
+package com.UGcris.ALG;
+
+import com.UGcris.ALG.ratelimite.CountMinSketch;
+import com.UGcris.ALG.ratelimite.HeavyHitterRateLimiter;
+import com.UGcris.ALG.ratelimite.ManualTimeSource;
+import com.UGcris.ALG.ratelimite.SlidingWindowLogLimiter;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class HeavyHitterRateLimiterTest {
+    private ManualTimeSource clock; // 手动推进时间，测试无需真实等待
+
+    @Before
+    public void setUp() {
+        clock = new ManualTimeSource();
+    }
+
+    /**
+     * 测试：Count-Min Sketch 的估计值不小于真实值，且偏差在理论范围内
+     */
+    @Test
+    public void testSketchNeverUnderestimates() {
+        CountMinSketch sketch = new CountMinSketch(4, 1 << 12);
+        for (int i = 0; i < 100_000; i++) {
+            sketch.add("ip-" + i, 1);
+        }
+        sketch.add("hot", 500);
+        assertTrue(sketch.estimate("hot") >= 500);
+        int overestimated = 0;
+        for (int i = 0; i < 100_000; i++) {
+            int estimate = sketch.estimate("ip-" + i);
+            assertTrue(estimate >= 1);
+            if (estimate > 1 + Math.E * 100_500 / (1 << 12)) {
+                overestimated++;
+            }
+        }
+        assertTrue("overestimated " + overestimated, overestimated < 100_000 * 0.02); // 约 e^-4
+        sketch.clear();
+        assertEquals(0, sketch.estimate("hot"));
+    }
+
+    /**
+     * 测试：长尾 key 全部放行且不分配精确状态，重度用户被提升并限制在 limit 以内
+     */
+    @Test
+    public void testLongTailAndHeavyHitters() {
+        HeavyHitterRateLimiter limiter = new HeavyHitterRateLimiter(60_000, 100, 64, 1 << 14, clock);
+        int heavyAllowed = 0;
+        for (int i = 0; i < 200_000; i++) {
+            assertTrue(limiter.tryAcquire("ip-" + i));
+            if (i % 100 == 0) {
+                if (limiter.tryAcquire("attacker")) heavyAllowed++; // 2000 次请求
+            }
+        }
+        assertTrue("allowed " + heavyAllowed, heavyAllowed <= 100 && heavyAllowed >= 50);
+        assertTrue(limiter.isHeavyHitter("attacker"));
+        assertFalse(limiter.tryAcquire("attacker"));
+        assertTrue(limiter.waitHintNanos("attacker", 1) > 0);
+        assertTrue("keys " + limiter.getKeyCount(), limiter.getKeyCount() < 64);
+    }
+
+    /**
+     * 测试：与为每个 key 保存精确窗口相比，内存降低一个数量级以上
+     */
+    @Test
+    public void testMemoryAgainstExactLimiter() {
+        HeavyHitterRateLimiter sketched = new HeavyHitterRateLimiter(60_000, 100, 64, 1 << 14, clock);
+        SlidingWindowLogLimiter exact = new SlidingWindowLogLimiter(60_000, 100, clock);
+        for (int i = 0; i < 200_000; i++) {
+            String key = "ip-" + i;
+            sketched.tryAcquire(key);
+            exact.tryAcquire(key);
+        }
+        assertEquals(200_000, exact.getKeyCount());
+        assertTrue(sketched.estimatedMemoryBytes() * 20 < exact.estimatedMemoryBytes());
+    }
+
+    /**
+     * 测试：窗口轮换后上一窗口的计数按剩余比例衰减，整个窗口没有请求的重度用户被降级
+     */
+    @Test
+    public void testWindowRotationAndDemotion() {
+        HeavyHitterRateLimiter limiter = new HeavyHitterRateLimiter(1000, 10, 16, 1 << 10, clock);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire("user"));
+        }
+        assertFalse(limiter.tryAcquire("user"));
+        assertTrue(limiter.isHeavyHitter("user"));
+
+        clock.advance(1500, TimeUnit.MILLISECONDS); // 上一窗口剩余一半权重
+        assertTrue(limiter.estimate("user") >= 5 && limiter.estimate("user") <= 7);
+
+        clock.advance(1000, TimeUnit.MILLISECONDS); // 整个窗口没有请求
+        assertEquals(0, limiter.estimate("user"));
+        assertFalse(limiter.isHeavyHitter("user"));
+        assertTrue(limiter.tryAcquire("user"));
+    }
+
+    /**
+     * 测试：精确级已满时淘汰命中最少的 key
+     */
+    @Test
+    public void testEvictsLeastActiveHeavyHitter() {
+        HeavyHitterRateLimiter limiter = new HeavyHitterRateLimiter(60_000, 4, 2, 1 << 10, clock);
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("a");
+            limiter.tryAcquire("b");
+        }
+        limiter.tryAcquire("b");
+        assertTrue(limiter.isHeavyHitter("a") && limiter.isHeavyHitter("b"));
+
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("c");
+        }
+        assertTrue(limiter.isHeavyHitter("c"));
+        assertFalse(limiter.isHeavyHitter("a")); // a 本窗口命中最少
+        assertTrue(limiter.isHeavyHitter("b"));
+        assertEquals(2, limiter.getKeyCount());
+    }
+}
@@ -0,0 +1,62 @@
+package com.UGcris.ALG;
+
+import com.UGcris.ALG.stringMatching.KMP;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class KMPTest {
+
+    /**
+     * 测试：与逐位比较的结果一致（含自身有重复前后缀的模式串）
+     */
+    @Test
+    public void testSameResultAsNaive() {
+        Random random = new Random(11);
+        KMP kmp = new KMP();
+        for (int round = 0; round < 500; round++) {
+            String pattern = randomWord(random, 1 + random.nextInt(8));
+            String text = randomWord(random, random.nextInt(300));
+            List<Integer> expected = new ArrayList<>();
+            for (int i = text.indexOf(pattern); i >= 0; i = text.indexOf(pattern, i + 1)) {
+                expected.add(i);
+            }
+            assertEquals(pattern + " / " + text, expected, kmp.search(text, pattern));
+        }
+    }
+
+    /**
+     * 测试：中文、数字、标点可以匹配
+     */
+    @Test
+    public void testUnicode() {
+        KMP kmp = new KMP();
+        assertEquals(Arrays.asList(2, 9), kmp.search("今天天气很好，明天天气也好", "天气"));
+        assertEquals(Arrays.asList(4), kmp.search("订单号：A-1024", "A-1024"));
+    }
+
+    /**
+     * 测试：忽略大小写、全角转半角，下标为原文下标
+     */
+    @Test
+    public void testFolding() {
+        KMP kmp = new KMP();
+        assertEquals(Arrays.asList(3, 10), kmp.search("买入 VIP，赠送 vip 会员", "Vip", true, false));
+        assertEquals(Arrays.asList(3), kmp.search("联系 ＱＱ１２３", "qq123", true, true));
+        assertEquals(Collections.emptyList(), kmp.search("联系 ＱＱ１２３", "qq123", true, false));
+    }
+
+    private static String randomWord(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + random.nextInt(2)));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,125 @@
+package com.UGcris.ALG;
+
+import com.UGcris.ALG.ratelimite.FixedWindowRateLimiter;
+import com.UGcris.ALG.ratelimite.KeyExpirySweeper;
+import com.UGcris.ALG.ratelimite.ManualTimeSource;
+import com.UGcris.ALG.ratelimite.SlidingWindowLogLimiter;
+import com.UGcris.ALG.ratelimite.SlidingWindowRingLogLimiter;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class KeyExpirySweeperTest {
+    private static final long MS = 1_000_000L;
+
+    private final ManualTimeSource clock = new ManualTimeSource(); // 手动推进时间，测试无需真实等待
+
+    /**
+     * 测试：只回收到期的 key，未到期的 key 保留
+     */
+    @Test
+    public void testOnlyExpiredKeysAreReclaimed() {
+        Map<String, Long> expireAt = new ConcurrentHashMap<>();
+        KeyExpirySweeper sweeper = new KeyExpirySweeper(
+                (key, now) -> expireAt.get(key) <= now && expireAt.remove(key) != null
+                        ? KeyExpirySweeper.REMOVED : expireAt.getOrDefault(key, KeyExpirySweeper.ABSENT),
+                clock, MS, 64, 1024);
+
+        long now = clock.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            long at = now + (i < 50 ? 5 : 500) * MS;
+            expireAt.put("k" + i, at);
+            sweeper.schedule("k" + i, at);
+        }
+
+        assertEquals(50, sweeper.sweep(now + 10 * MS));
+        assertEquals(50, expireAt.size());
+        assertEquals(50, sweeper.getLastSweepReclaimed());
+        assertEquals(50, sweeper.sweep(now + 600 * MS));
+        assertEquals(100, sweeper.getTotalReclaimed());
+    }
+
+    /**
+     * 测试：单次清理受预算限制，剩余的 key 在后续清理中处理
+     */
+    @Test
+    public void testSweepIsTimeSliced() {
+        Map<String, Long> keys = new ConcurrentHashMap<>();
+        KeyExpirySweeper sweeper = new KeyExpirySweeper(
+                (key, now) -> keys.remove(key) != null ? KeyExpirySweeper.REMOVED : KeyExpirySweeper.ABSENT,
+                clock, MS, 8, 10);
+        long now = clock.nanoTime();
+        for (int i = 0; i < 25; i++) {
+            keys.put("k" + i, now);
+            sweeper.schedule("k" + i, now + MS);
+        }
+        long later = now + 2 * MS;
+        assertEquals(10, sweeper.maybeSweep(later));
+        assertEquals(10, sweeper.maybeSweep(later));
+        assertEquals(5, sweeper.maybeSweep(later));
+        assertTrue(keys.isEmpty());
+    }
+
+    @Test
+    public void testSlidingWindowLogLimiterReclaimsIdleKeys() {
+        SlidingWindowLogLimiter limiter = new SlidingWindowLogLimiter(50, 5, clock);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(limiter.tryLog("ip-" + i));
+        }
+        assertEquals(1000, limiter.getKeyCount());
+
+        clock.advance(150, TimeUnit.MILLISECONDS);
+        assertEquals(1000, limiter.sweepExpiredKeys());
+        assertEquals(0, limiter.getKeyCount());
+        assertTrue(limiter.tryLog("ip-0"));
+    }
+
+    @Test
+    public void testSlidingWindowLogLimiterKeepsActiveKeys() {
+        SlidingWindowLogLimiter limiter = new SlidingWindowLogLimiter(200, 5, clock);
+        limiter.tryLog("idle");
+        clock.advance(150, TimeUnit.MILLISECONDS);
+        limiter.tryLog("active");
+        clock.advance(100, TimeUnit.MILLISECONDS);
+        limiter.sweepExpiredKeys();
+        assertEquals(0, limiter.getRequestCount("idle"));
+        assertEquals(1, limiter.getRequestCount("active"));
+        assertEquals(1, limiter.getKeyCount());
+    }
+
+    @Test
+    public void testSlidingWindowRingLogLimiterReclaimsIdleKeys() {
+        SlidingWindowRingLogLimiter limiter = new SlidingWindowRingLogLimiter(50, 5, clock);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(limiter.tryLog("ip-" + i));
+        }
+        clock.advance(150, TimeUnit.MILLISECONDS);
+        assertEquals(1000, limiter.sweepExpiredKeys());
+        assertEquals(0, limiter.getKeyCount());
+        assertTrue(limiter.tryLog("ip-0"));
+        assertEquals(1, limiter.getRequestCount("ip-0"));
+    }
+
+    @Test
+    public void testFixedWindowRateLimiterReclaimsIdleKeys() {
+        FixedWindowRateLimiter limiter = new FixedWindowRateLimiter(2, 50, clock);
+        try {
+            for (int i = 0; i < 1000; i++) {
+                assertTrue(limiter.allowRequest("ip-" + i));
+            }
+            assertTrue(limiter.allowRequest("ip-0"));
+            assertFalse(limiter.allowRequest("ip-0"));
+            clock.advance(300, TimeUnit.MILLISECONDS);
+            limiter.sweepExpiredKeys();
+            assertEquals(1000, limiter.getTotalReclaimed());
+            assertEquals(0, limiter.getKeyCount());
+            assertTrue(limiter.allowRequest("ip-0"));
+        } finally {
+            limiter.shutdown();
+        }
+    }
+}
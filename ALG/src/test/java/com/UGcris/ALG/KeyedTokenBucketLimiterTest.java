@@ -0,0 +1,126 @@
+package com.UGcris.ALG;
+
+import com.UGcris.ALG.ratelimite.KeyedTokenBucketLimiter;
+import com.UGcris.ALG.ratelimite.ManualTimeSource;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class KeyedTokenBucketLimiterTest {
+    private KeyedTokenBucketLimiter limiter;
+    private ManualTimeSource clock; // 手动推进时间，测试无需真实等待
+    private static final int CAPACITY = 5;
+
+    @Before
+    public void setUp() {
+        clock = new ManualTimeSource();
+        limiter = new KeyedTokenBucketLimiter(1, CAPACITY, 1024, clock); // 每秒补充1个
+    }
+
+    @Test
+    public void testWithinLimit_Allowed() {
+        for (int i = 0; i < CAPACITY; i++) {
+            assertTrue(limiter.allow("ip1"));
+        }
+        assertFalse(limiter.allow("ip1"));
+        assertEquals(0, limiter.getAvailableTokens("ip1"));
+    }
+
+    @Test
+    public void testMultipleKeys_Independent() {
+        assertTrue(limiter.allow("ip1", CAPACITY));
+        assertFalse(limiter.allow("ip1"));
+        assertTrue(limiter.allow("ip2", CAPACITY));
+        assertEquals(CAPACITY, limiter.getAvailableTokens("never-seen"));
+    }
+
+    @Test
+    public void testRefill() {
+        assertTrue(limiter.allow("k", CAPACITY));
+        assertFalse(limiter.allow("k"));
+        clock.advance(2, TimeUnit.SECONDS);
+        assertEquals(2, limiter.getAvailableTokens("k"));
+        assertTrue(limiter.allow("k", 2));
+        assertFalse(limiter.allow("k"));
+    }
+
+    @Test
+    public void testMemoryIsBounded() {
+        long memory = limiter.estimatedMemoryBytes();
+        for (int i = 0; i < 100_000; i++) {
+            limiter.allow("user-" + i);
+        }
+        assertEquals(memory, limiter.estimatedMemoryBytes());
+        assertTrue(limiter.size() <= limiter.maxKeys());
+    }
+
+    @Test
+    public void testIdleBucketsAreEvicted() {
+        for (int i = 0; i < 10; i++) {
+            limiter.allow("user-" + i);
+        }
+        assertEquals(10, limiter.size());
+        assertEquals(0, limiter.evictIdle()); // 尚未补满
+        clock.advance(1, TimeUnit.SECONDS); // 补满
+        assertEquals(10, limiter.evictIdle());
+        assertEquals(0, limiter.size());
+    }
+
+    /**
+     * 测试：key 数超过槽位数时互相淘汰，被淘汰与新来的 key 都继承未补满的桶，不会每次拿到一个满桶
+     */
+    @Test
+    public void testEvictionDoesNotRefill() {
+        KeyedTokenBucketLimiter small = new KeyedTokenBucketLimiter(1, CAPACITY, 8, clock); // 只有 1 组 8 个槽位
+        int allowed = 0;
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 4 * small.maxKeys(); i++) {
+                if (small.allow("user-" + i)) {
+                    allowed++;
+                }
+            }
+        }
+        // 只有最初占用空槽的 8 个 key 从满桶开始
+        assertEquals(CAPACITY * small.maxKeys(), allowed);
+
+        clock.advance(1, TimeUnit.SECONDS); // 每个槽位补充 1 个
+        allowed = 0;
+        for (int i = 0; i < 4 * small.maxKeys(); i++) {
+            if (small.allow("user-" + i)) {
+                allowed++;
+            }
+        }
+        assertEquals(small.maxKeys(), allowed);
+    }
+
+    @Test
+    public void testConcurrentAccessNeverOverspends() throws InterruptedException {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                try {
+                    for (int i = 0; i < 1000; i++) {
+                        if (limiter.allow("hot-key")) {
+                            allowed.incrementAndGet();
+                        }
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await();
+        executor.shutdown();
+        assertEquals(CAPACITY, allowed.get());
+    }
+}
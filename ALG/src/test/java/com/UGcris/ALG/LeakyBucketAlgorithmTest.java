@@ -1,6 +1,7 @@
 package com.UGcris.ALG;
 
 import com.UGcris.ALG.ratelimite.LeakyBucketAlgorithm;
+import com.UGcris.ALG.ratelimite.ManualTimeSource;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -14,21 +15,23 @@ import static org.junit.Assert.*;
 
 public class LeakyBucketAlgorithmTest {
     private LeakyBucketAlgorithm leakyBucket;
+    private ManualTimeSource clock; // 手动推进时间，测试无需真实等待
     private final int CAPACITY = 10;
-    private final  int LEAK_RATE_PER_MS = 1; // 每秒漏100个
+    private final int LEAK_RATE_PER_SECOND = 100; // 每秒漏100个
 
     @Before
-    void setUp() {
-        leakyBucket = new LeakyBucketAlgorithm(CAPACITY, LEAK_RATE_PER_MS);
+    public void setUp() {
+        clock = new ManualTimeSource();
+        leakyBucket = new LeakyBucketAlgorithm(CAPACITY, LEAK_RATE_PER_SECOND, clock);
     }
 
     @Test
-    void testAllow_whenBucketNotFull_shouldReturnTrue() {
+    public void testAllow_whenBucketNotFull_shouldReturnTrue() {
         assertTrue(leakyBucket.allow());
     }
 
     @Test
-    void testAllow_whenBucketFull_shouldReturnFalse() {
+    public void testAllow_whenBucketFull_shouldReturnFalse() {
         // Fill the bucket to capacity
         for (int i = 0; i < CAPACITY; i++) {
             leakyBucket.allow();
@@ -37,44 +40,44 @@ public class LeakyBucketAlgorithmTest {
     }
 
     @Test
-    void testAllow_afterLeakage_shouldAllowMoreRequests() throws InterruptedException {
+    public void testAllow_afterLeakage_shouldAllowMoreRequests() throws InterruptedException {
         // Fill the bucket
         for (int i = 0; i < CAPACITY; i++) {
             leakyBucket.allow();
         }
 
         // Wait for some water to leak
-        Thread.sleep(100); // Should leak 10 units (0.1 * 100ms)
+        clock.advance(100, TimeUnit.MILLISECONDS); // Should leak 10 units (0.1 * 100ms)
 
         // Should now allow at least one more request
         assertTrue(leakyBucket.allow());
     }
 
     @Test
-    void testAllowRequestWhenTokensAvailable() {
+    public void testAllowRequestWhenTokensAvailable() {
         assertTrue(leakyBucket.allow(5)); // 初始有10个令牌，消耗5个
     }
 
     @Test
-    void testDenyRequestWhenTokensInsufficient() {
+    public void testDenyRequestWhenTokensInsufficient() {
         assertFalse(leakyBucket.allow(15)); // 请求超过容量
     }
 
     @Test
-    void testTokenRefillOverTime() throws InterruptedException {
+    public void testTokenRefillOverTime() throws InterruptedException {
         leakyBucket.allow(10); // 清空令牌桶
-        Thread.sleep(10000); // 等待2秒
+        clock.advance(10, TimeUnit.SECONDS); // 等待10秒
         assertTrue(leakyBucket.allow(2)); // 应补充2个令牌
     }
 
     @Test
-    void testEdgeCaseZeroTokens() {
+    public void testEdgeCaseZeroTokens() {
         assertTrue(leakyBucket.allow(10)); // 刚好用完
         assertFalse(leakyBucket.allow(1)); // 立即请求应失败
     }
 
     @Test
-    void testConcurrentAccess() throws InterruptedException {
+    public void testConcurrentAccess() throws InterruptedException {
 
         // 使用CountDownLatch确保并发执行
         CountDownLatch latch = new CountDownLatch(2);
@@ -101,7 +104,7 @@ public class LeakyBucketAlgorithmTest {
     }
 
     @Test
-    void testConcurrentAccessExceedingCapacity() throws InterruptedException {
+    public void testConcurrentAccessExceedingCapacity() throws InterruptedException {
         CountDownLatch latch = new CountDownLatch(3);
         ExecutorService executor = Executors.newFixedThreadPool(3);
 
@@ -126,7 +129,7 @@ public class LeakyBucketAlgorithmTest {
     }
 
     @Test
-    void testConcurrentAccessWithRefill() throws InterruptedException {
+    public void testConcurrentAccessWithRefill() throws InterruptedException {
         CountDownLatch latch = new CountDownLatch(4);
         ExecutorService executor = Executors.newFixedThreadPool(4);
 
@@ -142,7 +145,7 @@ public class LeakyBucketAlgorithmTest {
         });
 
         // 等待补充令牌
-        Thread.sleep(1000);
+        clock.advance(1, TimeUnit.SECONDS);
 
         // 补充后两个请求
         executor.submit(() -> {
@@ -158,4 +161,37 @@ public class LeakyBucketAlgorithmTest {
         latch.await(2, TimeUnit.SECONDS);
         executor.shutdown();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testFractionalLeakRate() throws InterruptedException {
+        LeakyBucketAlgorithm slow = new LeakyBucketAlgorithm(5, 50.0, clock); // 每20ms漏一个
+        assertTrue(slow.allow(5));
+        assertFalse(slow.allow());
+        clock.advance(60, TimeUnit.MILLISECONDS);
+        assertEquals(2, slow.getCurrentWater()); // 漏出3个
+        clock.advance(40, TimeUnit.MILLISECONDS); // 共漏出5个
+        assertEquals(0, slow.getCurrentWater());
+        assertTrue(slow.allow(5));
+    }
+
+    @Test
+    public void testRateBelowOnePerSecond() {
+        LeakyBucketAlgorithm slow = new LeakyBucketAlgorithm(2, 0.5); // 每2秒漏一个
+        assertTrue(slow.allow(2));
+        assertEquals(2, slow.getCurrentWater());
+        assertFalse(slow.allow());
+    }
+
+    @Test
+    public void testTryReserveReturnsQueueDelay() {
+        LeakyBucketAlgorithm queue = new LeakyBucketAlgorithm(3, 10.0, clock); // 每100ms漏一个
+        assertEquals(0, queue.tryReserve(1));
+        assertEquals(100_000_000L, queue.tryReserve(1));
+        assertEquals(200_000_000L, queue.tryReserve(1));
+        assertEquals(-1, queue.tryReserve(1)); // 桶满
+        clock.advance(50, TimeUnit.MILLISECONDS);
+        assertEquals(-1, queue.tryReserve(1)); // 还未漏出一个
+        clock.advance(50, TimeUnit.MILLISECONDS);
+        assertEquals(200_000_000L, queue.tryReserve(1));
+    }
+}
@@ -0,0 +1,152 @@
+package com.UGcris.ALG;
+
+import com.UGcris.ALG.ratelimite.FixedWindowRateLimiter;
+import com.UGcris.ALG.ratelimite.InstrumentedKeyedRateLimiter;
+import com.UGcris.ALG.ratelimite.InstrumentedRateLimiter;
+import com.UGcris.ALG.ratelimite.LatencyHistogram;
+import com.UGcris.ALG.ratelimite.LimiterMetricsRegistry;
+import com.UGcris.ALG.ratelimite.LimiterMetricsSnapshot;
+import com.UGcris.ALG.ratelimite.ManualTimeSource;
+import com.UGcris.ALG.ratelimite.PackedTokenBucket;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class LimiterMetricsTest {
+
+    /**
+     * 测试：直方图百分位的相对误差不超过一个子桶（1/16）
+     */
+    @Test
+    public void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        for (long v = 1; v <= 100_000; v++) {
+            histogram.record(v * 100); // 100ns ~ 10ms 均匀分布
+        }
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(10_000_000, histogram.getMax());
+        assertWithin(5_000_000, histogram.getValueAtPercentile(50));
+        assertWithin(9_900_000, histogram.getValueAtPercentile(99));
+        assertWithin(9_990_000, histogram.getValueAtPercentile(99.9));
+        assertEquals(10_000_000, histogram.getValueAtPercentile(100));
+
+        histogram.reset();
+        histogram.record(7);
+        histogram.record(Long.MAX_VALUE); // 超出范围的值计入最后一个桶
+        assertEquals(7, histogram.getValueAtPercentile(50));
+        assertEquals(Long.MAX_VALUE, histogram.getMax());
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue("expected ~" + expected + " but was " + actual,
+                actual >= expected && actual <= expected + expected / 16);
+    }
+
+    /**
+     * 测试：多线程并发记录不丢失计数
+     */
+    @Test
+    public void testHistogramConcurrentRecord() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    histogram.record(i);
+                }
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals(threads * 100_000L, histogram.getCount());
+        assertEquals(99_999, histogram.getMax());
+    }
+
+    /**
+     * 测试：注册后的包装统计放行/拒绝次数、key 数与内存估计
+     */
+    @Test
+    public void testRegistrySnapshot() {
+        ManualTimeSource clock = new ManualTimeSource();
+        LimiterMetricsRegistry registry = new LimiterMetricsRegistry();
+        InstrumentedKeyedRateLimiter login = registry.register("login",
+                new FixedWindowRateLimiter(2, 1000, clock));
+        InstrumentedRateLimiter global = registry.register("global", new PackedTokenBucket(1.0, 3, clock));
+
+        for (int i = 0; i < 5; i++) {
+            login.tryAcquire("a");
+            login.tryAcquire("b");
+            global.tryAcquire();
+        }
+
+        LimiterMetricsSnapshot loginMetrics = registry.snapshot("login");
+        assertEquals(4, loginMetrics.getAllowed());
+        assertEquals(6, loginMetrics.getRejected());
+        assertEquals(2, loginMetrics.getKeyCount());
+        assertTrue(loginMetrics.getEstimatedMemoryBytes() > 0);
+        assertEquals(10, loginMetrics.getLatencySamples());
+        assertEquals("FixedWindowRateLimiter", loginMetrics.getType());
+
+        List<LimiterMetricsSnapshot> all = registry.snapshot();
+        assertEquals(2, all.size());
+        assertEquals("global", all.get(0).getName()); // 按名称排序
+        assertEquals(3, all.get(0).getAllowed());
+        assertEquals(2, all.get(0).getRejected());
+        assertEquals(1, all.get(0).getKeyCount());
+        assertNull(registry.snapshot("missing"));
+    }
+
+    /**
+     * 测试：按采样率记录耗时，计数仍然完整
+     */
+    @Test
+    public void testLatencySampling() {
+        InstrumentedRateLimiter limiter = new InstrumentedRateLimiter("sampled",
+                new PackedTokenBucket(1.0, 1_000_000, new ManualTimeSource()), 16);
+        for (int i = 0; i < 160_000; i++) {
+            limiter.tryAcquire();
+        }
+        LimiterMetricsSnapshot metrics = limiter.snapshot();
+        assertEquals(160_000, metrics.getAllowed());
+        assertTrue(metrics.getLatencySamples() > 5_000 && metrics.getLatencySamples() < 15_000);
+    }
+
+    /**
+     * 测试：多线程争用同一个 key 时，放行数正确且 CAS 重试被统计（重试次数取决于调度，只检查非负）
+     */
+    @Test
+    public void testCasRetriesUnderContention() throws InterruptedException {
+        LimiterMetricsRegistry registry = new LimiterMetricsRegistry(8);
+        InstrumentedKeyedRateLimiter limiter = registry.register("hot",
+                new FixedWindowRateLimiter(50_000, 60_000, new ManualTimeSource()));
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    limiter.tryAcquire("hot");
+                }
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        LimiterMetricsSnapshot metrics = registry.snapshot("hot");
+        assertEquals(50_000, metrics.getAllowed());
+        assertEquals(30_000, metrics.getRejected());
+        assertTrue(metrics.getCasRetries() >= 0);
+        assertEquals(1, metrics.getKeyCount());
+    }
+}
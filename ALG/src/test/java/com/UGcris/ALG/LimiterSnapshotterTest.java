@@ -0,0 +1,203 @@
+package com.UGcris.ALG;
+
+import com.UGcris.ALG.ratelimite.FixedWindowRateLimiter;
+import com.UGcris.ALG.ratelimite.LimiterSnapshotter;
+import com.UGcris.ALG.ratelimite.ManualTimeSource;
+import com.UGcris.ALG.ratelimite.SlidingWindowLogLimiter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class LimiterSnapshotterTest {
+    private Path dir;
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("snapshot");
+        file = dir.resolve("limiter.snap");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(dir.resolve("limiter.snap.tmp"));
+        Files.deleteIfExists(dir);
+    }
+
+    /**
+     * 测试：固定窗口计数恢复到新进程（时钟起点不同），并在原窗口边界失效
+     */
+    @Test
+    public void testFixedWindowRestoreRebasesWindow() throws IOException {
+        ManualTimeSource oldClock = new ManualTimeSource(123_456_789L);
+        FixedWindowRateLimiter before = new FixedWindowRateLimiter(3, 1000, oldClock);
+        oldClock.advance(400, TimeUnit.MILLISECONDS); // 原窗口还剩 600ms
+        for (int i = 0; i < 3; i++) {
+            assertTrue(before.allowRequest("abuser"));
+        }
+        assertTrue(before.allowRequest("normal"));
+        new LimiterSnapshotter(before, file).save();
+
+        ManualTimeSource newClock = new ManualTimeSource(987_654_321_000L);
+        FixedWindowRateLimiter after = new FixedWindowRateLimiter(3, 1000, newClock);
+        assertEquals(2, new LimiterSnapshotter(after, file).restore());
+        assertFalse(after.allowRequest("abuser"));
+        assertTrue(after.allowRequest("normal"));
+        assertTrue(after.allowRequest("normal"));
+        assertFalse(after.allowRequest("normal"));
+
+        newClock.advance(500, TimeUnit.MILLISECONDS);
+        assertFalse(after.allowRequest("abuser"));
+        newClock.advance(150, TimeUnit.MILLISECONDS); // 原窗口已结束
+        assertTrue(after.allowRequest("abuser"));
+    }
+
+    /**
+     * 测试：滑动窗口日志的时间戳恢复到新进程，逐条滑出窗口
+     */
+    @Test
+    public void testSlidingLogRestoreRebasesTimestamps() throws IOException {
+        ManualTimeSource oldClock = new ManualTimeSource(5_000_000_000L);
+        SlidingWindowLogLimiter before = new SlidingWindowLogLimiter(1000, 3, oldClock);
+        assertTrue(before.tryLog("ip"));
+        oldClock.advance(300, TimeUnit.MILLISECONDS);
+        assertTrue(before.tryLog("ip", 2));
+        oldClock.advance(100, TimeUnit.MILLISECONDS);
+        new LimiterSnapshotter(before, file).save();
+
+        ManualTimeSource newClock = new ManualTimeSource(-42_000_000_000L);
+        SlidingWindowLogLimiter after = new SlidingWindowLogLimiter(1000, 3, newClock);
+        assertEquals(1, new LimiterSnapshotter(after, file).restore());
+        assertEquals(3, after.getRequestCount("ip"));
+        assertFalse(after.tryLog("ip"));
+
+        newClock.advance(650, TimeUnit.MILLISECONDS); // 第一条（900ms 前）已滑出
+        assertEquals(2, after.getRequestCount("ip"));
+        assertTrue(after.tryLog("ip"));
+        assertFalse(after.tryLog("ip"));
+    }
+
+    /**
+     * 测试：停机期间已过期的记录不会恢复
+     */
+    @Test
+    public void testExpiredEntriesAreDropped() throws IOException {
+        ManualTimeSource clock = new ManualTimeSource();
+        SlidingWindowLogLimiter before = new SlidingWindowLogLimiter(1000, 3, clock);
+        before.tryLog("old");
+        clock.advance(2, TimeUnit.SECONDS);
+        before.tryLog("new");
+        new LimiterSnapshotter(before, file).save();
+
+        SlidingWindowLogLimiter after = new SlidingWindowLogLimiter(1000, 3, new ManualTimeSource());
+        assertEquals(1, new LimiterSnapshotter(after, file).restore());
+        assertEquals(1, after.getKeyCount());
+        assertEquals(1, after.getRequestCount("new"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testWrongLimiterTypeRejected() throws IOException {
+        new LimiterSnapshotter(new FixedWindowRateLimiter(3, 1000), file).save();
+        new LimiterSnapshotter(new SlidingWindowLogLimiter(1000, 3), file).restore();
+    }
+
+    /**
+     * 测试：快照中的计数超出当前上限时拒绝恢复，而不是截断成任意 int
+     */
+    @Test(expected = IOException.class)
+    public void testFixedWindowCountOutOfRangeRejected() throws IOException {
+        ManualTimeSource clock = new ManualTimeSource();
+        FixedWindowRateLimiter before = new FixedWindowRateLimiter(10, 1000, clock);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(before.allowRequest("user"));
+        }
+        new LimiterSnapshotter(before, file).save();
+        new LimiterSnapshotter(new FixedWindowRateLimiter(3, 1000, clock), file).restore();
+    }
+
+    @Test(expected = IOException.class)
+    public void testSlidingLogWindowSizeMismatchRejected() throws IOException {
+        new LimiterSnapshotter(new SlidingWindowLogLimiter(1000, 3), file).save();
+        new LimiterSnapshotter(new SlidingWindowLogLimiter(2000, 3), file).restore();
+    }
+
+    /**
+     * 测试：恢复时已存在的 key 保留运行中的记录，不把较早的时间戳追加到较新的记录之后
+     */
+    @Test
+    public void testSlidingLogRestoreKeepsExistingKeys() throws IOException {
+        ManualTimeSource clock = new ManualTimeSource();
+        SlidingWindowLogLimiter before = new SlidingWindowLogLimiter(1000, 3, clock);
+        assertTrue(before.tryLog("live", 2));
+        assertTrue(before.tryLog("restored"));
+        new LimiterSnapshotter(before, file).save();
+
+        clock.advance(600, TimeUnit.MILLISECONDS);
+        SlidingWindowLogLimiter after = new SlidingWindowLogLimiter(1000, 3, clock);
+        assertTrue(after.tryLog("live"));
+        assertEquals(1, new LimiterSnapshotter(after, file).restore());
+        assertEquals(1, after.getRequestCount("live"));
+        assertEquals(1, after.getRequestCount("restored"));
+
+        clock.advance(500, TimeUnit.MILLISECONDS); // 快照中的记录已滑出，live 的记录仍在窗口内
+        assertEquals(1, after.getRequestCount("live"));
+        assertTrue(after.tryLog("live", 2));
+        assertFalse(after.tryLog("live"));
+    }
+
+    @Test
+    public void testMissingFileRestoresNothing() throws IOException {
+        assertEquals(0, new LimiterSnapshotter(new FixedWindowRateLimiter(3, 1000), file).restore());
+    }
+
+    /**
+     * 测试：定时保存，close() 时保存最后一次
+     */
+    @Test
+    public void testPeriodicSaveAndClose() throws Exception {
+        FixedWindowRateLimiter limiter = new FixedWindowRateLimiter(3, 60_000);
+        LimiterSnapshotter snapshotter = new LimiterSnapshotter(limiter, file);
+        snapshotter.start(10, TimeUnit.MILLISECONDS);
+        limiter.allowRequest("a");
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!Files.exists(file) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(Files.exists(file));
+        limiter.allowRequest("b");
+        snapshotter.close();
+
+        FixedWindowRateLimiter restored = new FixedWindowRateLimiter(3, 60_000);
+        assertEquals(2, new LimiterSnapshotter(restored, file).restore());
+    }
+
+    /**
+     * 测试：大量 key 的保存与恢复
+     */
+    @Test
+    public void testManyKeys() throws IOException {
+        int keys = 200_000;
+        ManualTimeSource clock = new ManualTimeSource();
+        FixedWindowRateLimiter before = new FixedWindowRateLimiter(10, 60_000, clock);
+        for (int i = 0; i < keys; i++) {
+            before.allowRequest("user-" + i);
+        }
+        long start = System.nanoTime();
+        new LimiterSnapshotter(before, file).save();
+        long saved = System.nanoTime();
+        FixedWindowRateLimiter after = new FixedWindowRateLimiter(10, 60_000, new ManualTimeSource());
+        assertEquals(keys, new LimiterSnapshotter(after, file).restore());
+        long restored = System.nanoTime();
+        System.out.println(keys + " 个 key：保存 " + (saved - start) / 1_000_000 + "ms，恢复 "
+                + (restored - saved) / 1_000_000 + "ms，文件 " + Files.size(file) / 1024 + "KB");
+        assertEquals(keys, after.getKeyCount());
+    }
+}
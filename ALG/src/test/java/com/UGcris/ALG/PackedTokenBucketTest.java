@@ -0,0 +1,90 @@
+package com.UGcris.ALG;
+
+import com.UGcris.ALG.ratelimite.ManualTimeSource;
+import com.UGcris.ALG.ratelimite.PackedTokenBucket;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class PackedTokenBucketTest {
+    private PackedTokenBucket tokenBucket;
+    private ManualTimeSource clock; // 手动推进时间，测试无需真实等待
+
+    @Before
+    public void setUp() {
+        clock = new ManualTimeSource();
+        tokenBucket = new PackedTokenBucket(10, 10, clock); // 容量=10, 每秒填充10个令牌
+    }
+
+    @Test
+    public void testAllowRequestWhenTokensAvailable() {
+        assertTrue(tokenBucket.allow(5));
+        assertEquals(5, tokenBucket.getAvailableTokens());
+    }
+
+    @Test
+    public void testDenyRequestWhenTokensInsufficient() {
+        assertFalse(tokenBucket.allow(15)); // 请求超过容量
+        assertEquals(10, tokenBucket.getAvailableTokens()); // 拒绝不消耗令牌
+    }
+
+    @Test
+    public void testEdgeCaseZeroTokens() {
+        assertTrue(tokenBucket.allow(10)); // 刚好用完
+        assertFalse(tokenBucket.allow()); // 立即请求应失败
+    }
+
+    @Test
+    public void testTokenRefillOverTime() {
+        assertTrue(tokenBucket.allow(10));
+        clock.advance(250, TimeUnit.MILLISECONDS); // 每秒10个，250ms 补充2个
+        assertEquals(2, tokenBucket.getAvailableTokens());
+        assertTrue(tokenBucket.allow(2));
+        assertFalse(tokenBucket.allow());
+        clock.advance(1, TimeUnit.HOURS);
+        assertEquals(10, tokenBucket.getAvailableTokens()); // 最多补满
+    }
+
+    @Test
+    public void testFractionalRate() {
+        PackedTokenBucket slow = new PackedTokenBucket(0.5, 1, clock); // 每2秒1个令牌
+        assertTrue(slow.allow());
+        assertFalse(slow.allow());
+        clock.advance(1999, TimeUnit.MILLISECONDS);
+        assertFalse(slow.allow());
+        clock.advance(1, TimeUnit.MILLISECONDS);
+        assertTrue(slow.allow());
+    }
+
+    @Test
+    public void testConcurrentAccessNeverOverspends() throws InterruptedException {
+        PackedTokenBucket bucket = new PackedTokenBucket(1, 100, clock); // 时间静止，不补充
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                try {
+                    for (int i = 0; i < 1000; i++) {
+                        if (bucket.allow()) {
+                            allowed.incrementAndGet();
+                        }
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await();
+        executor.shutdown();
+        assertEquals(100, allowed.get());
+    }
+}
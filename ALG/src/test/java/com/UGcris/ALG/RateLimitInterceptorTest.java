@@ -0,0 +1,116 @@
+package com.UGcris.ALG;
+
+import com.UGcris.ALG.WEB.config.RateLimitConfig;
+import com.UGcris.ALG.WEB.config.RateLimitProperties;
+import com.UGcris.ALG.WEB.interceptor.KeyExtractor;
+import com.UGcris.ALG.WEB.interceptor.RateLimitInterceptor;
+import com.UGcris.ALG.ratelimite.FixedWindowRateLimiter;
+import org.junit.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class RateLimitInterceptorTest {
+
+    private static MockHttpServletRequest request(String ip) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/flesh");
+        request.setRemoteAddr(ip);
+        return request;
+    }
+
+    /**
+     * 测试：超过额度返回 429 和 Retry-After，不同 IP 互不影响
+     */
+    @Test
+    public void testRejectsWith429AndRetryAfter() {
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(
+                new FixedWindowRateLimiter(2, 60_000), KeyExtractor.parse("ip"));
+
+        assertTrue(interceptor.preHandle(request("1.1.1.1"), new MockHttpServletResponse(), null));
+        assertTrue(interceptor.preHandle(request("1.1.1.1"), new MockHttpServletResponse(), null));
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(request("1.1.1.1"), rejected, null));
+        assertEquals(429, rejected.getStatus());
+        long retryAfter = Long.parseLong(rejected.getHeader("Retry-After"));
+        assertTrue(retryAfter >= 1 && retryAfter <= 60);
+
+        assertTrue(interceptor.preHandle(request("2.2.2.2"), new MockHttpServletResponse(), null));
+    }
+
+    @Test
+    public void testHeaderAndPathVariableKeys() {
+        MockHttpServletRequest request = request("1.1.1.1");
+        request.addHeader("X-Api-Key", "abc");
+        Map<String, String> variables = Collections.singletonMap("id", "42");
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, variables);
+
+        assertEquals("h:abc", KeyExtractor.parse("header:X-Api-Key").extract(request));
+        assertEquals("p:42", KeyExtractor.parse("path:id").extract(request));
+        assertEquals(KeyExtractor.GLOBAL_KEY, KeyExtractor.parse("global").extract(request));
+        // 缺失时退回到 IP
+        assertEquals("ip:1.1.1.1", KeyExtractor.parse("header:X-Other").extract(request));
+        assertEquals("ip:1.1.1.1", KeyExtractor.parse("path:name").extract(request));
+    }
+
+    /**
+     * 测试：请求头取值等于另一个客户端的 IP（或带 ip: 前缀）时，不会占用该客户端退回到 IP 的额度
+     */
+    @Test
+    public void testHeaderCannotSpendAnotherClientsIpQuota() {
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(
+                new FixedWindowRateLimiter(1, 60_000), KeyExtractor.parse("header:X-Api-Key"));
+        for (String spoofed : new String[]{"10.0.0.5", "ip:10.0.0.5"}) {
+            MockHttpServletRequest attacker = request("6.6.6.6");
+            attacker.addHeader("X-Api-Key", spoofed);
+            interceptor.preHandle(attacker, new MockHttpServletResponse(), null);
+            interceptor.preHandle(attacker, new MockHttpServletResponse(), null);
+        }
+        // 没有请求头、来自 10.0.0.5 的请求仍有自己的额度
+        assertTrue(interceptor.preHandle(request("10.0.0.5"), new MockHttpServletResponse(), null));
+        assertFalse(interceptor.preHandle(request("10.0.0.5"), new MockHttpServletResponse(), null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownKeyRejected() {
+        KeyExtractor.parse("cookie:sid");
+    }
+
+    /**
+     * 测试：application.properties 格式的配置可以绑定并创建拦截器
+     */
+    @Test
+    public void testBindPoliciesFromProperties() {
+        Map<String, String> source = new HashMap<>();
+        source.put("ratelimit.policies[0].path", "/flesh");
+        source.put("ratelimit.policies[0].algorithm", "token-bucket");
+        source.put("ratelimit.policies[0].key", "ip");
+        source.put("ratelimit.policies[0].limit", "1");
+        source.put("ratelimit.policies[0].rate", "0.5");
+        source.put("ratelimit.policies[1].path", "/users/{id}");
+        source.put("ratelimit.policies[1].algorithm", "sliding-window");
+        source.put("ratelimit.policies[1].key", "path:id");
+        source.put("ratelimit.policies[1].limit", "5");
+        source.put("ratelimit.policies[1].window-millis", "2000");
+
+        RateLimitProperties properties = new Binder(new MapConfigurationPropertySource(source))
+                .bind("ratelimit", RateLimitProperties.class).get();
+        assertEquals(2, properties.getPolicies().size());
+        assertEquals(RateLimitProperties.Algorithm.SLIDING_WINDOW, properties.getPolicies().get(1).getAlgorithm());
+        assertEquals(2000, properties.getPolicies().get(1).getWindowMillis());
+
+        RateLimitInterceptor interceptor = RateLimitConfig.createInterceptor(properties.getPolicies().get(0));
+        assertTrue(interceptor.preHandle(request("1.1.1.1"), new MockHttpServletResponse(), null));
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(request("1.1.1.1"), rejected, null));
+        assertEquals("2", rejected.getHeader("Retry-After")); // 0.5 个/秒，2 秒后补满一个
+    }
+}
@@ -0,0 +1,183 @@
+package com.UGcris.ALG;
+
+import com.UGcris.ALG.ratelimite.FixedWindowRateLimiter;
+import com.UGcris.ALG.ratelimite.KeyedRateLimiter;
+import com.UGcris.ALG.ratelimite.KeyedTokenBucketLimiter;
+import com.UGcris.ALG.ratelimite.LeakyBucketAlgorithm;
+import com.UGcris.ALG.ratelimite.ManualTimeSource;
+import com.UGcris.ALG.ratelimite.PackedTokenBucket;
+import com.UGcris.ALG.ratelimite.RateLimiter;
+import com.UGcris.ALG.ratelimite.SlidingWindowCounter;
+import com.UGcris.ALG.ratelimite.SlidingWindowLogLimiter;
+import com.UGcris.ALG.ratelimite.SlidingWindowRingLogLimiter;
+import com.UGcris.ALG.ratelimite.SlidingWindowYHCounter;
+import com.UGcris.ALG.ratelimite.TokenBucketAlgorithm;
+import com.UGcris.ALG.ratelimite.WeightedSlidingWindowCounter;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class RateLimiterTest {
+    private static final long MS = 1_000_000L;
+
+    /**
+     * 测试：等待提示与真正可以放行的时间一致（手动时钟）
+     */
+    @Test
+    public void testWaitHintMatchesRefill() {
+        ManualTimeSource clock = new ManualTimeSource();
+        List<RateLimiter> limiters = new ArrayList<>();
+        limiters.add(new PackedTokenBucket(10, 2, clock));          // 100ms 一个令牌
+        limiters.add(new TokenBucketAlgorithm(10, 2, clock));
+        limiters.add(new LeakyBucketAlgorithm(2, 10.0, clock));     // 100ms 漏一个
+        limiters.add(new SlidingWindowCounter(100, 2, clock));      // 窗口 100ms
+        limiters.add(new SlidingWindowYHCounter(100, 2, 10, clock));
+        limiters.add(new WeightedSlidingWindowCounter(100, 2, clock));
+
+        for (RateLimiter limiter : limiters) {
+            String name = limiter.getClass().getSimpleName();
+            assertEquals(name, 0, limiter.waitHintNanos(2));
+            assertTrue(name, limiter.tryAcquire(2));
+            assertFalse(name, limiter.tryAcquire());
+
+            long hint = limiter.waitHintNanos(1);
+            assertTrue(name + " hint " + hint, hint > 0 && hint <= 200 * MS);
+            clock.advance(hint - 1, TimeUnit.NANOSECONDS);
+            assertFalse(name, limiter.tryAcquire()); // 提示不会过早
+            clock.advance(1, TimeUnit.NANOSECONDS);
+            assertEquals(name, 0, limiter.waitHintNanos(1));
+            assertTrue(name, limiter.tryAcquire());
+
+            assertEquals(name, -1, limiter.waitHintNanos(3)); // 超过上限
+            clock.advance(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testKeyedWaitHintMatchesRefill() {
+        ManualTimeSource clock = new ManualTimeSource();
+        List<KeyedRateLimiter> limiters = new ArrayList<>();
+        limiters.add(new FixedWindowRateLimiter(2, 100, clock));
+        limiters.add(new SlidingWindowLogLimiter(100, 2, clock));
+        limiters.add(new SlidingWindowRingLogLimiter(100, 2, clock));
+        limiters.add(new KeyedTokenBucketLimiter(10, 2, 64, clock));
+
+        for (KeyedRateLimiter limiter : limiters) {
+            String name = limiter.getClass().getSimpleName();
+            assertEquals(name, 0, limiter.waitHintNanos("k", 2));
+            assertTrue(name, limiter.tryAcquire("k", 2));
+            assertFalse(name, limiter.tryAcquire("k"));
+            assertTrue(name, limiter.tryAcquire("other")); // key 之间互不影响
+
+            long hint = limiter.waitHintNanos("k", 1);
+            assertTrue(name + " hint " + hint, hint > 0 && hint <= 200 * MS);
+            clock.advance(hint - 1, TimeUnit.NANOSECONDS);
+            assertFalse(name, limiter.tryAcquire("k"));
+            clock.advance(1, TimeUnit.NANOSECONDS);
+            assertTrue(name, limiter.tryAcquire("k"));
+
+            assertEquals(name, -1, limiter.waitHintNanos("k", 3));
+            assertFalse(name, limiter.tryAcquire("k", 3));
+            clock.advance(1, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 测试：acquire 阻塞到令牌补充后返回
+     */
+    @Test
+    public void testAcquireBlocksUntilRefill() throws InterruptedException {
+        RateLimiter limiter = new PackedTokenBucket(100, 1); // 10ms 一个令牌
+        assertTrue(limiter.tryAcquire());
+        long start = System.nanoTime();
+        limiter.acquire();
+        long elapsed = System.nanoTime() - start;
+        assertTrue("waited " + elapsed, elapsed >= 5 * MS);
+    }
+
+    /**
+     * 测试：等待提示超过超时时间时立即返回 false
+     */
+    @Test
+    public void testTimedAcquireFailsFast() throws InterruptedException {
+        RateLimiter limiter = new PackedTokenBucket(1, 1); // 1 秒一个令牌
+        assertTrue(limiter.tryAcquire());
+        long start = System.nanoTime();
+        assertFalse(limiter.tryAcquire(1, 10, TimeUnit.MILLISECONDS));
+        assertTrue(System.nanoTime() - start < 5 * MS);
+
+        RateLimiter fast = new PackedTokenBucket(100, 1);
+        assertTrue(fast.tryAcquire());
+        assertTrue(fast.tryAcquire(1, 1, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAcquireMoreThanCapacity() throws InterruptedException {
+        new LeakyBucketAlgorithm(5, 1.0).acquire(6);
+    }
+
+    @Test
+    public void testAcquireIsInterruptible() throws InterruptedException {
+        RateLimiter limiter = new PackedTokenBucket(0.01, 1); // 100 秒一个令牌
+        assertTrue(limiter.tryAcquire());
+        AtomicBoolean interrupted = new AtomicBoolean();
+        Thread waiter = new Thread(() -> {
+            try {
+                limiter.acquire();
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+        });
+        waiter.start();
+        Thread.sleep(20);
+        waiter.interrupt();
+        waiter.join(1000);
+        assertTrue(interrupted.get());
+    }
+
+    /**
+     * 测试：异步获取平滑突发请求，全部按速率完成
+     */
+    @Test
+    public void testAcquireAsyncSmoothsBurst() throws Exception {
+        RateLimiter limiter = new PackedTokenBucket(200, 1); // 5ms 一个令牌
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            futures.add(limiter.acquireAsync());
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+        long elapsed = System.nanoTime() - start;
+        assertTrue("elapsed " + elapsed, elapsed >= 19 * 5 * MS * 8 / 10);
+    }
+
+    @Test
+    public void testAcquireAsyncRejectsOversizedRequest() throws InterruptedException {
+        CompletableFuture<Void> future = new PackedTokenBucket(1, 2).acquireAsync(3);
+        try {
+            future.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    /**
+     * 测试：按 key 阻塞获取，等到下一个窗口
+     */
+    @Test
+    public void testKeyedAcquire() throws Exception {
+        FixedWindowRateLimiter limiter = new FixedWindowRateLimiter(1, 20);
+        limiter.acquire("ip", 1);
+        assertFalse(limiter.tryAcquire("ip"));
+        assertTrue(limiter.tryAcquire("ip", 1, 1, TimeUnit.SECONDS));
+        limiter.acquireAsync("ip", 1).get(1, TimeUnit.SECONDS);
+    }
+}
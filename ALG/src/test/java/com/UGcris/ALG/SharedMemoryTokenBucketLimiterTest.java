@@ -0,0 +1,147 @@
+package com.UGcris.ALG;
+
+import com.UGcris.ALG.ratelimite.ManualTimeSource;
+import com.UGcris.ALG.ratelimite.SharedMemoryTokenBucketLimiter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SharedMemoryTokenBucketLimiterTest {
+    private static final int CAPACITY = 50;
+
+    private Path file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = Files.createTempFile("ratelimit", ".bin");
+        Files.delete(file); // 由限流器创建
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * 测试：两个实例（相当于两个进程）映射同一文件，共享同一份额度
+     */
+    @Test
+    public void testInstancesShareQuota() throws Exception {
+        ManualTimeSource clock = new ManualTimeSource(TimeUnit.DAYS.toNanos(1));
+        try (SharedMemoryTokenBucketLimiter a = new SharedMemoryTokenBucketLimiter(file, 10, CAPACITY, 1024, clock);
+             SharedMemoryTokenBucketLimiter b = new SharedMemoryTokenBucketLimiter(file, 10, CAPACITY, 1024, clock)) {
+            assertTrue(a.allow("ip", 30));
+            assertEquals(20, b.getAvailableTokens("ip"));
+            assertTrue(b.allow("ip", 20));
+            assertFalse(a.allow("ip"));
+            assertEquals(100_000_000, a.waitHintNanos("ip", 1));
+
+            clock.advance(100, TimeUnit.MILLISECONDS);
+            assertTrue(b.allow("ip"));
+            assertFalse(a.allow("ip"));
+            assertTrue(a.allow("other", CAPACITY)); // key 之间互不影响
+        }
+    }
+
+    /**
+     * 测试：关闭后重新打开，状态仍然保留
+     */
+    @Test
+    public void testStateSurvivesReopen() throws Exception {
+        ManualTimeSource clock = new ManualTimeSource(TimeUnit.DAYS.toNanos(1));
+        try (SharedMemoryTokenBucketLimiter limiter = new SharedMemoryTokenBucketLimiter(file, 1, CAPACITY, 1024, clock)) {
+            assertTrue(limiter.allow("user", CAPACITY));
+        }
+        try (SharedMemoryTokenBucketLimiter limiter = new SharedMemoryTokenBucketLimiter(file, 1, CAPACITY, 1024, clock)) {
+            assertFalse(limiter.allow("user"));
+            assertEquals(CAPACITY, limiter.getAvailableTokens("new-user"));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testMismatchedSettingsRejected() throws Exception {
+        new SharedMemoryTokenBucketLimiter(file, 1, CAPACITY, 1024).close();
+        new SharedMemoryTokenBucketLimiter(file, 1, CAPACITY + 1, 1024).close();
+    }
+
+    /**
+     * 测试：多线程并发获取不超过容量（时间几乎不补充）
+     */
+    @Test
+    public void testConcurrentThreadsNeverOverAdmit() throws Exception {
+        try (SharedMemoryTokenBucketLimiter limiter = new SharedMemoryTokenBucketLimiter(file, 0.001, CAPACITY, 64)) {
+            int threads = 8;
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            AtomicInteger allowed = new AtomicInteger();
+            CountDownLatch latch = new CountDownLatch(threads);
+            for (int t = 0; t < threads; t++) {
+                executor.submit(() -> {
+                    try {
+                        for (int i = 0; i < 100; i++) {
+                            if (limiter.allow("hot")) allowed.incrementAndGet();
+                        }
+                    } finally {
+                        latch.countDown();
+                    }
+                });
+            }
+            latch.await();
+            executor.shutdown();
+            assertEquals(CAPACITY, allowed.get());
+        }
+    }
+
+    /**
+     * 测试：多个 JVM 进程共享额度，合计放行数等于容量
+     */
+    @Test
+    public void testSeparateProcessesShareQuota() throws Exception {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        List<Process> processes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            processes.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    SharedMemoryTokenBucketLimiterTest.class.getName(), file.toString())
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start());
+        }
+        int total = 0;
+        for (Process process : processes) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                total += Integer.parseInt(reader.readLine().trim());
+            }
+            assertTrue(process.waitFor(30, TimeUnit.SECONDS));
+            assertEquals(0, process.exitValue());
+        }
+        assertEquals(CAPACITY, total);
+    }
+
+    /**
+     * 子进程入口：对共享文件尝试 100 次，输出放行数
+     */
+    public static void main(String[] args) throws Exception {
+        try (SharedMemoryTokenBucketLimiter limiter = new SharedMemoryTokenBucketLimiter(
+                new File(args[0]).toPath(), 0.001, CAPACITY, 64)) {
+            int allowed = 0;
+            for (int i = 0; i < 100; i++) {
+                if (limiter.allow("hot")) allowed++;
+            }
+            System.out.println(allowed);
+        }
+    }
+}
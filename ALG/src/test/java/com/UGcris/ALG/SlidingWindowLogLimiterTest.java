@@ -1,11 +1,16 @@
 package com.UGcris.ALG;
+import com.UGcris.ALG.ratelimite.ManualTimeSource;
 import com.UGcris.ALG.ratelimite.SlidingWindowLogLimiter;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
@@ -42,7 +47,9 @@ public class SlidingWindowLogLimiterTest {
     }
 
     @Test
-    public void testSlidingWindow_TimePasses_AllowedAgain() throws InterruptedException {
+    public void testSlidingWindow_TimePasses_AllowedAgain() {
+        ManualTimeSource clock = new ManualTimeSource();
+        SlidingWindowLogLimiter limiter = new SlidingWindowLogLimiter(WINDOW_SIZE_MILLIS, LIMIT, clock);
         // 发送 5 次
         for (int i = 0; i < LIMIT; i++) {
             assertTrue(limiter.tryLog("user1"));
@@ -51,8 +58,8 @@ public class SlidingWindowLogLimiterTest {
         // 此时第 6 次会被拒绝
         assertFalse(limiter.tryLog("user1"));
 
-        // 等待 1.1 秒，窗口滑动
-        Thread.sleep(1100);
+        // 1.1 秒后，窗口滑动
+        clock.advance(1100, TimeUnit.MILLISECONDS);
 
         // 再次尝试，应该允许（旧请求已过期）
         assertTrue("窗口滑动后应允许新请求", limiter.tryLog("user1"));
@@ -114,6 +121,51 @@ public class SlidingWindowLogLimiterTest {
         assertTrue("并发场景下请求数应在合理范围内", count >= LIMIT && count <= 15);
     }
 
+    /**
+     * 测试：清理器移除空闲 key 的同时有请求到达，放行的记录不会丢失，放行数不超过上限
+     * 手动时钟在每轮之间停止，同一轮内所有请求的时间相同
+     */
+    @Test
+    public void testSweepRaceDoesNotLoseRecords() throws Exception {
+        ManualTimeSource clock = new ManualTimeSource();
+        SlidingWindowLogLimiter racy = new SlidingWindowLogLimiter(1000, LIMIT, clock);
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        try {
+            for (int round = 0; round < 200; round++) {
+                clock.advance(2, TimeUnit.SECONDS); // 上一轮的记录全部过期，key 可被移除
+                CountDownLatch start = new CountDownLatch(1);
+                AtomicInteger allowed = new AtomicInteger();
+                List<Future<?>> futures = new ArrayList<>();
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 20; i++) {
+                        racy.sweepExpiredKeys();
+                    }
+                    return null;
+                }));
+                for (int t = 0; t < 4; t++) {
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        for (int i = 0; i < 10; i++) {
+                            if (racy.tryLog("k")) {
+                                allowed.incrementAndGet();
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+                assertEquals(LIMIT, allowed.get());
+                assertEquals(LIMIT, racy.getRequestCount("k"));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     @Test
     public void testRapidRequestsInOneSecond() throws InterruptedException {
         String key = "rapid-ip";
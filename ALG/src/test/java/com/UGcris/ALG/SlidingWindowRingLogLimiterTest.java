@@ -0,0 +1,136 @@
+package com.UGcris.ALG;
+import com.UGcris.ALG.ratelimite.ManualTimeSource;
+import com.UGcris.ALG.ratelimite.SlidingWindowRingLogLimiter;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SlidingWindowRingLogLimiterTest {
+    private SlidingWindowRingLogLimiter limiter;
+    private final long WINDOW_SIZE_MILLIS = 1000; // 1秒窗口（便于测试）
+    private final int LIMIT = 5; // 最多5次
+
+    @Before
+    public void setUp() {
+        // 窗口大小：1000ms（1秒），最多允许 5 次
+        limiter = new SlidingWindowRingLogLimiter(WINDOW_SIZE_MILLIS, LIMIT);
+    }
+
+    @Test
+    public void testWithinLimit_Allowed() {
+        // 在 1 秒内发送 5 次，应该全部允许
+        for (int i = 0; i < LIMIT; i++) {
+            assertTrue("第 " + (i + 1) + " 次请求应被允许", limiter.tryLog("test-ip"));
+        }
+        assertEquals(LIMIT, limiter.getRequestCount("test-ip"));
+    }
+
+    @Test
+    public void testExceedLimit_Blocked() {
+        // 前 5 次允许
+        for (int i = 0; i < LIMIT; i++) {
+            assertTrue(limiter.tryLog("test-ip"));
+        }
+
+        // 第 6 次应被拒绝
+        assertFalse("超过限制的请求应被拒绝", limiter.tryLog("test-ip"));
+    }
+
+    @Test
+    public void testSlidingWindow_TimePasses_AllowedAgain() {
+        ManualTimeSource clock = new ManualTimeSource();
+        SlidingWindowRingLogLimiter limiter = new SlidingWindowRingLogLimiter(WINDOW_SIZE_MILLIS, LIMIT, clock);
+        // 发送 5 次
+        for (int i = 0; i < LIMIT; i++) {
+            assertTrue(limiter.tryLog("user1"));
+        }
+
+        // 此时第 6 次会被拒绝
+        assertFalse(limiter.tryLog("user1"));
+
+        // 1.1 秒后，窗口滑动
+        clock.advance(1100, TimeUnit.MILLISECONDS);
+
+        // 再次尝试，应该允许（旧请求已过期）
+        assertTrue("窗口滑动后应允许新请求", limiter.tryLog("user1"));
+    }
+
+    @Test
+    public void testMultipleKeys_Independent() {
+        // 不同 key 应独立计数
+        for (int i = 0; i < LIMIT; i++) {
+            assertTrue(limiter.tryLog("ip1"));
+            assertTrue(limiter.tryLog("ip2"));
+        }
+
+        // ip1 和 ip2 都达到上限
+        assertFalse(limiter.tryLog("ip1"));
+        assertFalse(limiter.tryLog("ip2"));
+    }
+
+    @Test
+    public void testHighConcurrency_NeverExceedsLimit() throws InterruptedException {
+        int threadCount = 8;
+        String key = "concurrent-ip";
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        AtomicInteger allowedCount = new AtomicInteger(0);
+        CountDownLatch latch = new CountDownLatch(threadCount);
+
+        for (int i = 0; i < threadCount; i++) {
+            executor.submit(() -> {
+                try {
+                    for (int j = 0; j < 1000; j++) {
+                        if (limiter.tryLog(key)) {
+                            allowedCount.incrementAndGet();
+                        }
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await();
+        executor.shutdown();
+
+        // 窗口 1 秒内的紧密循环，只能放行 LIMIT 次
+        assertEquals(LIMIT, allowedCount.get());
+        assertEquals(LIMIT, limiter.getRequestCount(key));
+    }
+
+    @Test
+    public void testReset() {
+        for (int i = 0; i < LIMIT; i++) {
+            assertTrue(limiter.tryLog("user1"));
+        }
+        assertFalse(limiter.tryLog("user1"));
+        limiter.reset("user1");
+        assertEquals(0, limiter.getRequestCount("user1"));
+        assertTrue(limiter.tryLog("user1"));
+    }
+
+    @Test
+    public void testRapidRequestsInOneSecond() throws InterruptedException {
+        String key = "rapid-ip";
+        int allowed = 0;
+
+        long start = System.currentTimeMillis();
+        while (System.currentTimeMillis() - start < 950) { // 在 1 秒内快速请求
+            if (limiter.tryLog(key)) {
+                allowed++;
+            }
+            // 极小延迟，模拟高频请求
+            Thread.sleep(1);
+        }
+
+        // 应接近 5 次（可能 4~6 次，因时间精度）
+        assertTrue("1秒内应接近 maxRequests 次", allowed >= 4 && allowed <= 6);
+    }
+}
@@ -1,5 +1,6 @@
 package com.UGcris.ALG;
 
+import com.UGcris.ALG.ratelimite.ManualTimeSource;
 import com.UGcris.ALG.ratelimite.SlidingWindowYHCounter;
 import org.junit.Before;
 import org.junit.Test;
@@ -7,18 +8,21 @@ import org.junit.Test;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 
 public class SlidingWindowYHCounterTest {
     private SlidingWindowYHCounter counter;
+    private ManualTimeSource clock; // 手动推进时间，测试无需真实等待
     private final long WINDOW_SIZE_MILLIS = 1000; // 1秒窗口（便于测试）
     private final int LIMIT = 3; // 最多3次
 
     @Before
     public void setUp() {
-        counter = new SlidingWindowYHCounter(WINDOW_SIZE_MILLIS, LIMIT);
+        clock = new ManualTimeSource();
+        counter = new SlidingWindowYHCounter(WINDOW_SIZE_MILLIS, LIMIT, 10, clock);
     }
 
     /**
@@ -62,7 +66,7 @@ public class SlidingWindowYHCounterTest {
         assertEquals(LIMIT, counter.getCount());
 
         // 等待窗口过期（大于1秒）
-        Thread.sleep(WINDOW_SIZE_MILLIS + 100);
+        clock.advance(WINDOW_SIZE_MILLIS + 100, TimeUnit.MILLISECONDS);
 
         // 第二波：再发3次
         for (int i = 0; i < LIMIT; i++) {
@@ -85,11 +89,11 @@ public class SlidingWindowYHCounterTest {
         assertEquals(LIMIT, counter.getCount());
 
         // t+500ms: 窗口还剩500ms，此时第4次请求仍应拒绝
-        Thread.sleep(500);
+        clock.advance(500, TimeUnit.MILLISECONDS);
         assertFalse("窗口未滑出，第4次应被拒绝", counter.tryAcquire());
 
         // t+1100ms: 窗口已完全滑出，应可重新开始
-        Thread.sleep(600); // 总共等待1100ms
+        clock.advance(600, TimeUnit.MILLISECONDS); // 总共等待1100ms
         assertTrue("窗口已滑出，应允许新请求", counter.tryAcquire());
         assertEquals(1, counter.getCount());
     }
@@ -159,4 +163,34 @@ public class SlidingWindowYHCounterTest {
         counter.reset();
         assertEquals(0, counter.getCount());
     }
+
+    /**
+     * 测试：高并发下放行数恰好等于上限，计数与放行数一致
+     */
+    @Test
+    public void testConcurrentRequests_ExactLimit() throws InterruptedException {
+        SlidingWindowYHCounter big = new SlidingWindowYHCounter(60_000, 1000, 100);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        AtomicInteger allowedCount = new AtomicInteger(0);
+        CountDownLatch latch = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                try {
+                    for (int i = 0; i < 10_000; i++) {
+                        if (big.tryAcquire()) {
+                            allowedCount.incrementAndGet();
+                        }
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await();
+        executor.shutdown();
+
+        assertEquals(1000, allowedCount.get());
+        assertEquals(1000, big.getCount());
+    }
 }
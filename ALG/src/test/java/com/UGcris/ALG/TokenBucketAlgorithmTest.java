@@ -1,5 +1,6 @@
 package com.UGcris.ALG;
 
+import com.UGcris.ALG.ratelimite.ManualTimeSource;
 import com.UGcris.ALG.ratelimite.TokenBucketAlgorithm;
 import org.junit.Before;
 import org.junit.Test;
@@ -12,40 +13,42 @@ import java.util.concurrent.TimeUnit;
 import static org.junit.Assert.*;
 
 
-class TokenBucketAlgorithmTest {
+public class TokenBucketAlgorithmTest {
     private TokenBucketAlgorithm tokenBucket;
+    private ManualTimeSource clock; // 手动推进时间，测试无需真实等待
 
     @Before
-    void setUp() {
+    public void setUp() {
         // 假设构造函数接收容量和填充速率参数
-        tokenBucket = new TokenBucketAlgorithm(5, 10); // 容量=10, 每秒填充1个令牌
+        clock = new ManualTimeSource();
+        tokenBucket = new TokenBucketAlgorithm(5, 10, clock); // 容量=10, 每秒填充5个令牌
     }
 
     @Test
-    void testAllowRequestWhenTokensAvailable() {
+    public void testAllowRequestWhenTokensAvailable() {
         assertTrue(tokenBucket.allow(5)); // 初始有10个令牌，消耗5个
     }
 
     @Test
-    void testDenyRequestWhenTokensInsufficient() {
+    public void testDenyRequestWhenTokensInsufficient() {
         assertFalse(tokenBucket.allow(15)); // 请求超过容量
     }
 
     @Test
-    void testTokenRefillOverTime() throws InterruptedException {
+    public void testTokenRefillOverTime() throws InterruptedException {
         tokenBucket.allow(10); // 清空令牌桶
-        Thread.sleep(10000); // 等待2秒
+        clock.advance(10, TimeUnit.SECONDS); // 等待10秒
         assertTrue(tokenBucket.allow(2)); // 应补充2个令牌
     }
 
     @Test
-    void testEdgeCaseZeroTokens() {
+    public void testEdgeCaseZeroTokens() {
         assertTrue(tokenBucket.allow(10)); // 刚好用完
         assertFalse(tokenBucket.allow(1)); // 立即请求应失败
     }
 
     @Test
-    void testConcurrentAccess() throws InterruptedException {
+    public void testConcurrentAccess() throws InterruptedException {
 
         // 使用CountDownLatch确保并发执行
         CountDownLatch latch = new CountDownLatch(2);
@@ -72,7 +75,7 @@ class TokenBucketAlgorithmTest {
     }
 
     @Test
-    void testConcurrentAccessExceedingCapacity() throws InterruptedException {
+    public void testConcurrentAccessExceedingCapacity() throws InterruptedException {
         CountDownLatch latch = new CountDownLatch(3);
         ExecutorService executor = Executors.newFixedThreadPool(3);
 
@@ -97,7 +100,7 @@ class TokenBucketAlgorithmTest {
     }
 
     @Test
-    void testConcurrentAccessWithRefill() throws InterruptedException {
+    public void testConcurrentAccessWithRefill() throws InterruptedException {
         CountDownLatch latch = new CountDownLatch(4);
         ExecutorService executor = Executors.newFixedThreadPool(4);
 
@@ -113,7 +116,7 @@ class TokenBucketAlgorithmTest {
         });
 
         // 等待补充令牌
-        Thread.sleep(1000);
+        clock.advance(1, TimeUnit.SECONDS);
 
         // 补充后两个请求
         executor.submit(() -> {
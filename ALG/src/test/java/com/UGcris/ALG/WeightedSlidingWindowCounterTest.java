@@ -0,0 +1,190 @@
+package com.UGcris.ALG;
+
+import com.UGcris.ALG.ratelimite.ManualTimeSource;
+import com.UGcris.ALG.ratelimite.SlidingWindowCounter;
+import com.UGcris.ALG.ratelimite.WeightedSlidingWindowCounter;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntUnaryOperator;
+
+import static org.junit.Assert.*;
+
+public class WeightedSlidingWindowCounterTest {
+    private WeightedSlidingWindowCounter counter;
+    private final long WINDOW_SIZE_MILLIS = 1000; // 1秒窗口（便于测试）
+    private final int LIMIT = 3; // 最多3次
+
+    /**
+     * 与精确滑动窗口相比，允许的放行总数相对误差（按接口的精度要求调整）
+     */
+    private static final double ACCURACY_TOLERANCE = 0.15;
+
+    @Before
+    public void setUp() {
+        counter = new WeightedSlidingWindowCounter(WINDOW_SIZE_MILLIS, LIMIT);
+    }
+
+    /**
+     * 测试：在窗口内发送 LIMIT 次请求，应全部通过，之后被拒绝
+     */
+    @Test
+    public void testWithinLimit_ThenRejected() {
+        for (int i = 0; i < LIMIT; i++) {
+            assertTrue("第 " + (i + 1) + " 次请求应被允许", counter.tryAcquire());
+        }
+        assertFalse(counter.tryAcquire());
+        assertEquals(LIMIT, counter.getCount());
+    }
+
+    /**
+     * 测试：空闲超过两个窗口后计数清零
+     */
+    @Test
+    public void testIdleWindowsForgotten() {
+        ManualTimeSource clock = new ManualTimeSource();
+        WeightedSlidingWindowCounter fast = new WeightedSlidingWindowCounter(50, LIMIT, clock);
+        for (int i = 0; i < LIMIT; i++) {
+            assertTrue(fast.tryAcquire());
+        }
+        clock.advance(120, TimeUnit.MILLISECONDS);
+        assertEquals(0, fast.getCount());
+        for (int i = 0; i < LIMIT; i++) {
+            assertTrue(fast.tryAcquire());
+        }
+    }
+
+    /**
+     * 测试：空闲恰好 65536 个窗口（及多一个窗口）后，旧计数不会被当作当前或上一窗口
+     */
+    @Test
+    public void testLongIdleDoesNotWrap() {
+        ManualTimeSource clock = new ManualTimeSource();
+        WeightedSlidingWindowCounter fast = new WeightedSlidingWindowCounter(50, LIMIT, clock);
+        for (long idle : new long[]{65536, 65537}) {
+            for (int i = 0; i < LIMIT; i++) {
+                assertTrue(fast.tryAcquire());
+            }
+            clock.advance(idle * 50, TimeUnit.MILLISECONDS);
+            assertEquals(0, fast.getCount());
+            assertEquals(0, fast.waitHintNanos(LIMIT));
+            assertTrue(fast.tryAcquire(LIMIT));
+            clock.advance(120, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Test
+    public void testReset() {
+        for (int i = 0; i < LIMIT; i++) {
+            counter.tryAcquire();
+        }
+        counter.reset();
+        assertEquals(0, counter.getCount());
+        assertTrue(counter.tryAcquire());
+    }
+
+    /**
+     * 测试：多线程并发请求不会超过上限
+     */
+    @Test
+    public void testConcurrentRequests() throws InterruptedException {
+        WeightedSlidingWindowCounter big = new WeightedSlidingWindowCounter(60_000, 100);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        AtomicInteger allowedCount = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                try {
+                    for (int i = 0; i < 1000; i++) {
+                        if (big.tryAcquire()) {
+                            allowedCount.incrementAndGet();
+                        }
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await();
+        executor.shutdown();
+        assertEquals(100, allowedCount.get());
+    }
+
+    /**
+     * 测试：limit 为 10 万（每分钟）时恰好放行到上限
+     */
+    @Test
+    public void testLargeLimit() {
+        ManualTimeSource clock = new ManualTimeSource();
+        WeightedSlidingWindowCounter large = new WeightedSlidingWindowCounter(60_000, 100_000, clock);
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(large.tryAcquire());
+        }
+        assertFalse(large.tryAcquire());
+        assertEquals(100_000, large.getCount());
+        clock.advance(60, TimeUnit.SECONDS); // 上一窗口权重为 1，仍然满额
+        assertFalse(large.tryAcquire());
+        clock.advance(30, TimeUnit.SECONDS); // 上一窗口权重衰减到一半
+        assertTrue(large.tryAcquire(50_000));
+        assertFalse(large.tryAcquire());
+    }
+
+    /**
+     * 精度对比的一种配置：窗口、上限、每毫秒的请求数（按毫秒序号给出）与允许的相对误差
+     */
+    private static final class AccuracySetting {
+        final String name;
+        final long window;
+        final int limit;
+        final IntUnaryOperator requestsAt;
+        final double tolerance;
+
+        AccuracySetting(String name, long window, int limit, IntUnaryOperator requestsAt, double tolerance) {
+            this.name = name;
+            this.window = window;
+            this.limit = limit;
+            this.requestsAt = requestsAt;
+            this.tolerance = tolerance;
+        }
+    }
+
+    /**
+     * 测试：同一请求流下与精确滑动窗口（SlidingWindowCounter）的放行数对比
+     * 每种配置（持续超限、突发、大窗口大上限、未超限）都断言相对误差不超过其容差，
+     * 按接口的流量形态选择近似或精确模式；使用手动时钟回放，结果与机器负载无关
+     */
+    @Test
+    public void testAccuracyAgainstExactLog() {
+        AccuracySetting[] settings = {
+                new AccuracySetting("steady", 100, 20, ms -> 1, ACCURACY_TOLERANCE),
+                new AccuracySetting("bursty", 100, 20, ms -> ms % 50 == 0 ? 30 : 0, ACCURACY_TOLERANCE),
+                new AccuracySetting("large", 1000, 2000, ms -> 10, 0.01),     // 大上限时误差按比例缩小
+                new AccuracySetting("light", 100, 20, ms -> ms % 10 == 0 ? 1 : 0, 0.0), // 未超限时与精确一致
+        };
+        for (AccuracySetting setting : settings) {
+            ManualTimeSource clock = new ManualTimeSource();
+            SlidingWindowCounter exact = new SlidingWindowCounter(setting.window, setting.limit, clock);
+            WeightedSlidingWindowCounter approx = new WeightedSlidingWindowCounter(setting.window, setting.limit, clock);
+
+            int exactAllowed = 0;
+            int approxAllowed = 0;
+            for (int ms = 0; ms < 20 * setting.window; ms++) {
+                for (int i = setting.requestsAt.applyAsInt(ms); i > 0; i--) {
+                    if (exact.tryAcquire()) exactAllowed++;
+                    if (approx.tryAcquire()) approxAllowed++;
+                }
+                clock.advance(1, TimeUnit.MILLISECONDS);
+            }
+
+            double error = Math.abs(approxAllowed - exactAllowed) / (double) exactAllowed;
+            System.out.println(setting.name + " 精确放行: " + exactAllowed + ", 近似放行: " + approxAllowed + ", 误差: " + error);
+            assertTrue(setting.name + " 近似误差 " + error + " 超过 " + setting.tolerance, error <= setting.tolerance);
+        }
+    }
+}